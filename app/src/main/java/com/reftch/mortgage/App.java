@@ -7,6 +7,6 @@ import com.reftch.http.server.Server;
 public class App {
 
     public static void main(String[] args) {
-        Server.run();
+        Server.run(App.class);
     }
 }
@@ -4,6 +4,7 @@ import com.reftch.annotation.Controller;
 import com.reftch.annotation.Inject;
 import com.reftch.annotation.Route;
 import com.reftch.mortgage.service.LayoutService;
+import com.sun.net.httpserver.HttpExchange;
 
 @Controller
 public class PageController {
@@ -12,8 +13,16 @@ public class PageController {
     private LayoutService layoutService;
 
     @Route(method = "GET", path = "/")
-    public String getHome() {
-        return layoutService.getHome();
+    public byte[] getHome(HttpExchange exchange) {
+        var locale = layoutService.getLocale(exchange.getRequestHeaders().getFirst("Accept-Language"));
+        var page = layoutService.getHome(locale);
+        exchange.getResponseHeaders().set("Content-Type", "text/html; charset=UTF-8");
+        exchange.getResponseHeaders().set("Content-Language", locale.toLanguageTag());
+        exchange.getResponseHeaders().set("Vary", "Accept-Language");
+        for (var link : page.preloadLinks()) {
+            exchange.getResponseHeaders().add("Link", link);
+        }
+        return page.body();
     }
 
 } 
@@ -1,23 +1,168 @@
 package com.reftch.mortgage.service;
 
-import java.util.Map;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
 
+import com.reftch.annotation.ConfigProperties;
+import com.reftch.annotation.DefaultValue;
+import com.reftch.annotation.Inject;
 import com.reftch.annotation.Service;
+import com.reftch.annotation.Warmup;
 import com.reftch.config.ConfigurationService;
+import com.reftch.html.parser.AssetInliner;
+import com.reftch.html.parser.BoundTemplate;
+import com.reftch.html.parser.HtmlTemplateParser;
+import com.reftch.html.parser.RenderCache;
+import com.reftch.http.server.ServerProperties;
+import com.reftch.utilities.LocaleNegotiator;
 import com.reftch.utilities.ResourceService;
 
 @Service
 public class LayoutService {
 
-    private ResourceService resourceService = ResourceService.getInstance();
-    private ConfigurationService config = ConfigurationService.getInstance();
+    private static final String HOME_TEMPLATE = "views/index.html";
 
-    public String getHome() {
-        var values = Map.of(
-                "title", "Hypothekenrechner",
-                "mode.isProduction", config.getValue("server.isProduction")
-            );
-        return resourceService.getFileContent("views/index.html", values);
+    private final ResourceService resourceService;
+    private final ConfigurationService config;
+
+    /**
+     * The values of the home page template. Texts are compiled into the
+     * template variant of each locale.
+     */
+    public record Home(Mode mode) {
+    }
+
+    /**
+     * The build mode, selecting dev server or bundled assets.
+     */
+    public record Mode(boolean isProduction) {
+    }
+
+    /**
+     * The <code>template</code> section of the configuration.
+     * 
+     * @param inlineThreshold stylesheets and scripts up to this size in bytes
+     *                        are inlined into pages, 0 disables inlining
+     */
+    @ConfigProperties("template")
+    public record TemplateProperties(@DefaultValue("4096") int inlineThreshold) {
+
+        public TemplateProperties {
+            if (inlineThreshold < 0) {
+                throw new IllegalArgumentException("Negative inline threshold: " + inlineThreshold);
+            }
+        }
+    }
+
+    /**
+     * The <code>i18n</code> section of the configuration.
+     * 
+     * @param defaultLocale the locale of pages when no accepted language has a
+     *                      bundle
+     */
+    @ConfigProperties("i18n")
+    public record I18nProperties(@DefaultValue("de") Locale defaultLocale) {
+    }
+
+    /**
+     * A fully optimized page: the encoded body and the preload links of the
+     * assets it still references.
+     */
+    public record Page(byte[] body, List<String> preloadLinks) {
+    }
+
+    // Optimized pages by rendered body and inline threshold
+    private final RenderCache<Page> homePages = new RenderCache<>(8);
+
+    private final LocaleNegotiator locales;
+
+    @Inject
+    public LayoutService(ResourceService resourceService, ConfigurationService config) {
+        this.resourceService = resourceService;
+        this.config = config;
+        try {
+            locales = new LocaleNegotiator(resourceService.getLocales(),
+                    config.bind(I18nProperties.class).defaultLocale());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list message bundles", e);
+        }
+        // Fail at startup if the configuration is malformed
+        config.bind(TemplateProperties.class);
+        // Fail at startup if a variant reads a key Home does not provide or a message is missing
+        for (var locale : locales.getSupported()) {
+            homeTemplate(locale);
+        }
+        // Inlined assets may have changed, which the rendered body does not show
+        resourceService.addChangeListener(_ -> homePages.clear());
+    }
+
+    /**
+     * Chooses the locale of a page.
+     * 
+     * @param acceptLanguage The <code>Accept-Language</code> header, may be null
+     * @return The best supported locale
+     */
+    public Locale getLocale(String acceptLanguage) {
+        return locales.negotiate(acceptLanguage);
+    }
+
+    public Page getHome(Locale locale) {
+        // Bound once per configuration snapshot, so this parses nothing
+        var home = new Home(new Mode(config.bind(ServerProperties.class).isProduction()));
+        // The same array is returned while the template's render cache hits, and
+        // arrays compare by identity, so a steady state neither renders nor inlines
+        var rendered = homeTemplate(locale).renderCached(home);
+        int inlineThreshold = config.bind(TemplateProperties.class).inlineThreshold();
+        return homePages.get(List.of(rendered, inlineThreshold), () -> {
+            var html = new String(rendered, StandardCharsets.UTF_8);
+            html = new AssetInliner(this::loadAsset, inlineThreshold).inline(html);
+            return new Page(html.getBytes(StandardCharsets.UTF_8), getPreloadLinks(html));
+        });
+    }
+
+    /**
+     * Renders the home page in every supported locale, as requests without an
+     * <code>Accept-Language</code> header only reach the default one.
+     */
+    @Warmup
+    void warmupHome() {
+        for (var locale : locales.getSupported()) {
+            getHome(locale);
+        }
+    }
+
+    private BoundTemplate<Home> homeTemplate(Locale locale) {
+        return resourceService.getTemplate(HOME_TEMPLATE, locale).bind(Home.class);
+    }
+
+    /**
+     * Collects the <code>Link</code> header values for the critical assets of a
+     * page: its external stylesheets and scripts, and the fonts referenced by
+     * both inlined and external stylesheets.
+     */
+    private List<String> getPreloadLinks(String html) {
+        var links = new ArrayList<>(HtmlTemplateParser.extractPreloadLinks(html));
+        links.addAll(HtmlTemplateParser.extractFontPreloadLinks(html));
+        for (var stylesheet : HtmlTemplateParser.extractStylesheets(html)) {
+            var css = loadAsset(stylesheet);
+            if (css != null) {
+                links.addAll(HtmlTemplateParser.extractFontPreloadLinks(css));
+            }
+        }
+        return List.copyOf(links);
+    }
+
+    private String loadAsset(String url) {
+        try {
+            return resourceService.getFileContent(url.substring(1));
+        } catch (IllegalArgumentException e) {
+            // Bundles like static/ui are missing until the web build ran
+            return null;
+        }
     }
 
 }
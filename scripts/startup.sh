@@ -0,0 +1,38 @@
+#!/bin/bash
+
+# Measures the time from launching the application to its first answered
+# request, which includes the warmup. Usage:
+#   ./scripts/startup.sh java -jar app/build/libs/app.jar
+#   ./scripts/startup.sh app/build/native/nativeCompile/app
+# RUNS sets the number of launches (default 10), PORT the port (default 18080).
+
+if [ $# -eq 0 ]; then
+    echo "Usage: $0 <command to start the application>"
+    exit 1
+fi
+
+RUNS=${RUNS:-10}
+PORT=${PORT:-18080}
+TIMES=()
+
+for ((run = 1; run <= RUNS; run++)); do
+    start=$(date +%s%N)
+    SERVER_PORT=$PORT "$@" > /dev/null 2>&1 &
+    APP_PID=$!
+
+    until curl -s -o /dev/null "http://localhost:$PORT/"; do
+        if ! kill -0 $APP_PID 2>/dev/null; then
+            echo "Application exited before answering"
+            exit 1
+        fi
+        sleep 0.005
+    done
+    end=$(date +%s%N)
+
+    kill $APP_PID 2>/dev/null
+    wait $APP_PID 2>/dev/null
+    TIMES+=($(((end - start) / 1000000)))
+done
+
+SORTED=($(printf '%s\n' "${TIMES[@]}" | sort -n))
+echo "Startup over $RUNS runs: min ${SORTED[0]} ms, median ${SORTED[$((RUNS / 2))]} ms, max ${SORTED[$((RUNS - 1))]} ms"
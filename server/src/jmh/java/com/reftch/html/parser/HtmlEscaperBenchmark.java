@@ -0,0 +1,61 @@
+package com.reftch.html.parser;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the cost of contextual escaping: escaped <code>{{ key }}</code>
+ * slots against raw <code>{{{ key }}}</code> slots, for values with and
+ * without characters that need an entity.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class HtmlEscaperBenchmark {
+
+    private static final String TEMPLATE = """
+            <tr title="{{ v }}"><td>{{ v }}</td><td>{{ v }}</td><td>{{ v }}</td><td>{{ v }}</td></tr>
+            """;
+
+    @Param({ "clean", "dirty" })
+    public String kind;
+
+    private String value;
+    private Template escaped;
+    private Template raw;
+    private Map<String, String> values;
+
+    @Setup
+    public void setUp() {
+        value = kind.equals("clean")
+                ? "Monatliche Rate 1.234,56 EUR bei 3,5 % Zins über 25 Jahre"
+                : "Monatliche Rate <1.234,56 EUR> bei 3,5 % \"Zins\" & 25 Jahre";
+        escaped = Template.compile(TEMPLATE);
+        raw = Template.compile(TEMPLATE.replace("{{ v }}", "{{{ v }}}"));
+        values = Map.of("v", value);
+    }
+
+    @Benchmark
+    public String escapeText() {
+        return HtmlEscaper.escape(value, HtmlEscaper.Context.TEXT);
+    }
+
+    @Benchmark
+    public String renderEscaped() {
+        return escaped.render(values);
+    }
+
+    @Benchmark
+    public String renderRaw() {
+        return raw.render(values);
+    }
+}
@@ -0,0 +1,59 @@
+package com.reftch.html.parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compares the regex based {@link HtmlTemplateParser} with rendering a
+ * compiled {@link Template} on a copy of <code>views/index.html</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TemplateBenchmark {
+
+    private String source;
+    private Template template;
+    private Map<String, String> values;
+
+    @Setup
+    public void setUp() throws IOException {
+        try (InputStream is = getClass().getClassLoader().getResourceAsStream("views/index.html")) {
+            source = new String(is.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        template = Template.compile(source);
+        values = Map.of("title", "Hypothekenrechner", "mode.isProduction", "true");
+    }
+
+    @Benchmark
+    public String parseHtmlTemplate() {
+        return HtmlTemplateParser.parseHtmlTemplate(source, values);
+    }
+
+    @Benchmark
+    public String renderCompiled() {
+        return template.render(values);
+    }
+
+    @Benchmark
+    public void renderCompiledToStream() throws IOException {
+        template.renderTo(values, OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public Template compile() {
+        return Template.compile(source);
+    }
+}
@@ -0,0 +1,70 @@
+package com.reftch.utilities;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures finding the application class on the stack, with the annotated
+ * class <code>depth</code> frames below the lookup as behind the startup
+ * tasks: the {@link StackWalker} of {@link ClassFinder} against reading the
+ * whole stack trace and loading every frame's class by name, which it
+ * replaced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@ClassFinderBenchmark.Application
+public class ClassFinderBenchmark {
+
+    @Retention(RetentionPolicy.RUNTIME)
+    @interface Application {
+    }
+
+    @Param({ "8", "64" })
+    public int depth;
+
+    @Benchmark
+    public Class<?> stackWalker() {
+        return Caller.call(depth, () -> ClassFinder.findClassByAnnotation(Application.class));
+    }
+
+    @Benchmark
+    public Class<?> stackTrace() {
+        return Caller.call(depth, ClassFinderBenchmark::findByStackTrace);
+    }
+
+    private static Class<?> findByStackTrace() {
+        StackTraceElement[] stack = Thread.currentThread().getStackTrace();
+        for (int i = stack.length - 1; i >= 0; i--) {
+            try {
+                Class<?> clazz = Class.forName(stack[i].getClassName());
+                if (clazz.isAnnotationPresent(Application.class)) {
+                    return clazz;
+                }
+            } catch (ClassNotFoundException e) {
+                // Frames of other class loaders
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Adds frames of a class without the annotation.
+     */
+    private static final class Caller {
+
+        static Class<?> call(int depth, Supplier<Class<?>> lookup) {
+            return depth == 0 ? lookup.get() : call(depth - 1, lookup);
+        }
+    }
+}
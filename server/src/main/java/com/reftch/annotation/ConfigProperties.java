@@ -0,0 +1,34 @@
+package com.reftch.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Binds the configuration keys below a prefix to the components of a record.
+ * 
+ * The keys are parsed and validated once per loaded configuration, so a
+ * malformed value fails at startup instead of silently reading as 0 or false.
+ * Fields of such a record type annotated with {@link Inject} receive the bound
+ * values.
+ * 
+ * Example usage:
+ * <pre>
+ * &#64;ConfigProperties("server")
+ * public record ServerProperties(&#64;DefaultValue("8080") int port, boolean isProduction) {
+ * }
+ * </pre>
+ * 
+ * @see com.reftch.config.ConfigBinder
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface ConfigProperties {
+    /**
+     * The key prefix without a trailing dot, e.g. <code>server</code>.
+     * 
+     * @return The prefix
+     */
+    String value();
+}
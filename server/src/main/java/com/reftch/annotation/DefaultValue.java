@@ -0,0 +1,22 @@
+package com.reftch.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * The value of a {@link ConfigProperties} record component whose key is
+ * missing or empty, in the same notation as in
+ * <code>application.yaml</code>.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.RECORD_COMPONENT)
+public @interface DefaultValue {
+    /**
+     * The default value.
+     * 
+     * @return The value
+     */
+    String value();
+}
@@ -0,0 +1,23 @@
+package com.reftch.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a {@link Service} that is created on first use instead of at startup.
+ * 
+ * A lazy service is injected as a {@link com.reftch.http.server.Provider}
+ * holding it, which creates the service on its first
+ * {@link com.reftch.http.server.Provider#get()}:
+ * 
+ * <pre>
+ * &#64;Inject
+ * private Provider&lt;ReportService&gt; reports;
+ * </pre>
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Lazy {
+}
@@ -0,0 +1,16 @@
+package com.reftch.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a method without parameters that is called once a component is
+ * created and its {@link Inject} fields are set. An exception thrown by the
+ * method fails the startup, or the first use of a {@link Lazy} service.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface PostConstruct {
+}
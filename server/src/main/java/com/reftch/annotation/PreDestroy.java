@@ -0,0 +1,16 @@
+package com.reftch.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a method without parameters that is called when the server shuts
+ * down. Components are destroyed in the reverse order of their creation, so
+ * the services a component uses are still available.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface PreDestroy {
+}
@@ -0,0 +1,18 @@
+package com.reftch.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a method without parameters that exercises the hot paths of a
+ * component before the server accepts requests, such as rendering every
+ * variant of a page. It is called once for every warmup iteration configured
+ * in the <code>warmup</code> section, alongside the synthetic requests. A
+ * {@link Lazy} service not created yet is not warmed up.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Warmup {
+}
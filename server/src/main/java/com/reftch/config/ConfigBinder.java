@@ -0,0 +1,197 @@
+package com.reftch.config;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.RecordComponent;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import com.reftch.annotation.ConfigProperties;
+import com.reftch.annotation.DefaultValue;
+
+/**
+ * Binds configuration keys to the components of {@link ConfigProperties}
+ * records.
+ *
+ * <p>
+ * A component <code>port</code> of a record with the prefix
+ * <code>server</code> reads <code>server.port</code>. Supported component
+ * types are strings, primitives and their wrappers, enums (matched ignoring
+ * case), {@link Path}, {@link Locale} (a language tag), {@link Duration}
+ * (milliseconds or ISO-8601), nested records, which read the keys below the
+ * component's key, <code>Map&lt;String, String&gt;</code>, which holds
+ * them as is, and <code>List&lt;String&gt;</code> for a sequence. A missing
+ * or empty key takes the {@link DefaultValue} of the component; without one
+ * it is an error unless the component is a string. A compact constructor
+ * throwing {@link IllegalArgumentException} rejects the values as well.
+ * </p>
+ *
+ * <p>
+ * All errors of a record are collected and reported together. Binding is
+ * done once per {@link ConfigSnapshot}, see {@link ConfigSnapshot#bind(Class)}.
+ * </p>
+ */
+public final class ConfigBinder {
+
+    private ConfigBinder() {
+    }
+
+    /**
+     * Binds a record to a configuration.
+     *
+     * @param <T>      The record type.
+     * @param type     The record class annotated with {@link ConfigProperties}.
+     * @param snapshot The configuration.
+     * @return The record holding the parsed values.
+     * @throws IllegalArgumentException If the type is not annotated, or a value
+     *                                  is missing or invalid.
+     */
+    public static <T extends Record> T bind(Class<T> type, ConfigSnapshot snapshot) {
+        var properties = type.getAnnotation(ConfigProperties.class);
+        if (properties == null) {
+            throw new IllegalArgumentException(type.getName() + " is not annotated with @ConfigProperties");
+        }
+
+        var errors = new ArrayList<String>();
+        Object bound = bindRecord(type, properties.value(), snapshot, errors);
+        if (!errors.isEmpty()) {
+            throw new IllegalArgumentException(
+                    "Invalid configuration for " + type.getSimpleName() + ": " + String.join("; ", errors));
+        }
+        return type.cast(bound);
+    }
+
+    private static Object bindRecord(Class<?> type, String prefix, ConfigSnapshot snapshot, List<String> errors) {
+        RecordComponent[] components = type.getRecordComponents();
+        var parameterTypes = new Class<?>[components.length];
+        var arguments = new Object[components.length];
+        int errorCount = errors.size();
+
+        for (int i = 0; i < components.length; i++) {
+            var component = components[i];
+            var key = prefix + "." + component.getName();
+            parameterTypes[i] = component.getType();
+            arguments[i] = bindComponent(component, key, snapshot, errors);
+        }
+        if (errors.size() > errorCount) {
+            return null;
+        }
+
+        try {
+            Constructor<?> constructor = type.getDeclaredConstructor(parameterTypes);
+            constructor.setAccessible(true);
+            return constructor.newInstance(arguments);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof IllegalArgumentException invalid) {
+                errors.add(prefix + ": " + invalid.getMessage());
+                return null;
+            }
+            throw new IllegalStateException("Failed to create " + type.getName(), e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to create " + type.getName(), e);
+        }
+    }
+
+    private static Object bindComponent(RecordComponent component, String key, ConfigSnapshot snapshot,
+            List<String> errors) {
+        Class<?> type = component.getType();
+        if (type.isRecord()) {
+            return bindRecord(type, key, snapshot, errors);
+        }
+        if (type == Map.class) {
+            return Map.copyOf(snapshot.getValues(key));
+        }
+        if (type == List.class) {
+            // Sequence items are keyed by their index
+            var items = new ArrayList<String>();
+            for (String item; (item = snapshot.getAll().get(key + "." + items.size())) != null;) {
+                items.add(item);
+            }
+            return List.copyOf(items);
+        }
+
+        var value = snapshot.getValue(key);
+        if (value.isBlank()) {
+            var defaultValue = component.getAnnotation(DefaultValue.class);
+            if (defaultValue != null) {
+                value = defaultValue.value();
+            } else if (type != String.class) {
+                errors.add(key + " is missing");
+                return null;
+            }
+        }
+
+        try {
+            return convert(value, type);
+        } catch (IllegalArgumentException e) {
+            errors.add(key + ": '" + value + "' is not a valid " + type.getSimpleName());
+            return null;
+        }
+    }
+
+    /**
+     * Parses a configuration value.
+     *
+     * @param value The value as written in the configuration.
+     * @param type  The target type.
+     * @return The parsed value.
+     * @throws IllegalArgumentException If the value cannot be parsed.
+     * @throws IllegalStateException    If the type is not supported.
+     */
+    static Object convert(String value, Class<?> type) {
+        if (type == String.class) {
+            return value;
+        }
+        var text = value.strip();
+        if (type == int.class || type == Integer.class) {
+            return Integer.valueOf(text);
+        }
+        if (type == long.class || type == Long.class) {
+            return Long.valueOf(text);
+        }
+        if (type == double.class || type == Double.class) {
+            return Double.valueOf(text);
+        }
+        if (type == boolean.class || type == Boolean.class) {
+            // Unlike Boolean.parseBoolean, a typo is an error rather than false
+            if (text.equalsIgnoreCase("true")) {
+                return Boolean.TRUE;
+            }
+            if (text.equalsIgnoreCase("false")) {
+                return Boolean.FALSE;
+            }
+            throw new IllegalArgumentException("Not a boolean: " + text);
+        }
+        if (type.isEnum()) {
+            for (Object constant : type.getEnumConstants()) {
+                if (((Enum<?>) constant).name().equalsIgnoreCase(text)) {
+                    return constant;
+                }
+            }
+            throw new IllegalArgumentException("Not a " + type.getSimpleName() + ": " + text);
+        }
+        if (type == Path.class) {
+            return Path.of(text);
+        }
+        if (type == Locale.class) {
+            var locale = Locale.forLanguageTag(text);
+            if (locale.getLanguage().isEmpty()) {
+                throw new IllegalArgumentException("Not a language tag: " + text);
+            }
+            return locale;
+        }
+        if (type == Duration.class) {
+            try {
+                return text.chars().allMatch(Character::isDigit) ? Duration.ofMillis(Long.parseLong(text))
+                        : Duration.parse(text);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Not a duration: " + text, e);
+            }
+        }
+        throw new IllegalStateException("Unsupported configuration type: " + type.getName());
+    }
+}
@@ -0,0 +1,153 @@
+package com.reftch.config;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An immutable view of the configuration at one point in time.
+ *
+ * <p>
+ * {@link ConfigurationService} builds a new snapshot on every reload and
+ * swaps it in as a whole, so a reader holding a snapshot sees the keys of
+ * exactly one version of the configuration, never a mix or an empty map
+ * between two loads.
+ * </p>
+ */
+public final class ConfigSnapshot {
+
+    private final Map<String, String> values;
+    private final long version;
+    // Records bound to this snapshot by type, each parsed once
+    private final Map<Class<?>, Record> bindings = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a snapshot.
+     *
+     * @param values  The flat configuration keys and their values.
+     * @param version The number of the load that produced the values.
+     */
+    public ConfigSnapshot(Map<String, String> values, long version) {
+        this.values = Map.copyOf(values);
+        this.version = version;
+    }
+
+    /**
+     * Gets the number of the load that produced this snapshot, increasing with
+     * every reload.
+     *
+     * @return The version.
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Gets a value.
+     *
+     * @param key The configuration key.
+     * @return The value, or an empty string if the key is not configured.
+     */
+    public String getValue(String key) {
+        return values.getOrDefault(key, "");
+    }
+
+    /**
+     * Gets a value as an integer.
+     *
+     * @param key The configuration key.
+     * @return The value, or 0 if the key is not configured or not a number.
+     */
+    public int getInt(String key) {
+        var value = values.get(key);
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Gets a value as a boolean.
+     *
+     * @param key The configuration key.
+     * @return True if the value is <code>true</code>, ignoring case.
+     */
+    public boolean getBoolean(String key) {
+        return Boolean.parseBoolean(values.get(key));
+    }
+
+    /**
+     * Gets all values nested under a prefix, see
+     * {@link ConfigurationService#getValues(String)}.
+     *
+     * @param prefix The key prefix without a trailing dot.
+     * @return A new map of the matching keys, relative to the prefix.
+     */
+    public Map<String, String> getValues(String prefix) {
+        var keyPrefix = prefix + ".";
+        var result = new HashMap<String, String>();
+        for (var entry : values.entrySet()) {
+            if (entry.getKey().startsWith(keyPrefix)) {
+                result.put(entry.getKey().substring(keyPrefix.length()), entry.getValue());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets all values.
+     *
+     * @return The unmodifiable map of keys and values.
+     */
+    public Map<String, String> getAll() {
+        return values;
+    }
+
+    /**
+     * Binds a {@link com.reftch.annotation.ConfigProperties} record to this
+     * snapshot. The values are parsed and validated on the first call only;
+     * later calls return the same record.
+     *
+     * @param <T>  The record type.
+     * @param type The record class.
+     * @return The bound record.
+     * @throws IllegalArgumentException If a value is missing or invalid.
+     * @see ConfigBinder
+     */
+    public <T extends Record> T bind(Class<T> type) {
+        var bound = bindings.get(type);
+        if (bound == null) {
+            bound = bindings.computeIfAbsent(type, _ -> ConfigBinder.bind(type, this));
+        }
+        return type.cast(bound);
+    }
+
+    /**
+     * Gets the keys whose values differ between two snapshots, including keys
+     * present in only one of them.
+     *
+     * @param other The snapshot to compare with.
+     * @return The changed keys.
+     */
+    public Set<String> changedKeys(ConfigSnapshot other) {
+        var changed = new HashSet<String>();
+        for (var entry : values.entrySet()) {
+            if (!Objects.equals(entry.getValue(), other.values.get(entry.getKey()))) {
+                changed.add(entry.getKey());
+            }
+        }
+        for (var key : other.values.keySet()) {
+            if (!values.containsKey(key)) {
+                changed.add(key);
+            }
+        }
+        return changed;
+    }
+}
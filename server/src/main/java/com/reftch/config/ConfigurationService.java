@@ -4,26 +4,71 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.ArrayDeque;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Deque;
+import java.time.Duration;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import com.reftch.utilities.FileWatcher;
 import com.reftch.utilities.ResourceService;
 
+/**
+ * The application configuration, read from <code>application.yaml</code> on
+ * the classpath and overridden by <code>~/.application.yaml</code>.
+ * 
+ * <p>
+ * The values are held as an immutable {@link ConfigSnapshot}. A reload builds
+ * a complete new snapshot and publishes it with a single volatile write, so
+ * readers never lock and never see a partially loaded configuration.
+ * Listeners are told about the keys that changed, e.g. to resize a cache.
+ * </p>
+ * 
+ * <p>
+ * Typed access goes through {@link #bind(Class)}: a
+ * {@link com.reftch.annotation.ConfigProperties} record is parsed once per
+ * snapshot, and a reload with values it rejects is not applied.
+ * </p>
+ */
 public class ConfigurationService {
-    private static ConfigurationService instance;
-    private final Map<String, String> configMap = new HashMap<>();
+    private static final Logger logger = Logger.getLogger(ConfigurationService.class.getName());
+
+    private static volatile ConfigurationService instance;
     private static final String CONFIG_FILE = "application.yaml";
     private static final String USER_CONFIG_FILE = ".application.yaml";
     private static final Pattern ENV_VAR_PATTERN = Pattern.compile("\\{([^:{}]+)(?::([^{}]*))?\\}");
 
+    /**
+     * Reacts to a reloaded configuration.
+     */
+    @FunctionalInterface
+    public interface Listener {
+
+        /**
+         * Called after a reload changed at least one key.
+         * 
+         * @param previous    The replaced configuration
+         * @param current     The new configuration
+         * @param changedKeys The keys whose values differ
+         */
+        void onChange(ConfigSnapshot previous, ConfigSnapshot current, Set<String> changedKeys);
+    }
+
     private ResourceService resourceService = ResourceService.getInstance();
 
+    private volatile ConfigSnapshot snapshot;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    // Record types validated against every new snapshot before it is applied
+    private final Set<Class<? extends Record>> boundTypes = new CopyOnWriteArraySet<>();
+    private FileWatcher userConfigWatcher;
+
     /**
      * Private constructor that initializes the configuration service by loading
      * the configuration file from the classpath.
@@ -42,9 +87,13 @@ public class ConfigurationService {
      * 
      * @return The singleton instance of ConfigurationService
      */
-    public static synchronized ConfigurationService getInstance() {
+    public static ConfigurationService getInstance() {
         if (instance == null) {
-            instance = new ConfigurationService();
+            synchronized (ConfigurationService.class) {
+                if (instance == null) {
+                    instance = new ConfigurationService();
+                }
+            }
         }
         return instance;
     }
@@ -56,31 +105,59 @@ public class ConfigurationService {
      * key-value map. It handles nested structures by using dot notation for keys
      * and properly manages indentation to determine the hierarchy level of each
      * configuration property.
+     * 
+     * The values are collected into a new snapshot, which replaces the current
+     * one only when complete and every record bound so far binds to it.
+     * Listeners are notified if any key changed.
+     * 
+     * @throws IllegalArgumentException If a file is malformed or a bound
+     *                                  record rejects the new values; the
+     *                                  current configuration is kept
      */
-    public void loadConfig() {
-        // Clear existing config
-        configMap.clear();
+    public synchronized void loadConfig() {
+        var values = new LinkedHashMap<String, String>();
 
         // Load default configuration from classpath
-        loadDefaultConfig();
+        loadDefaultConfig(values);
 
         // Load user configuration and override defaults
-        loadUserConfig();
+        loadUserConfig(values);
+
+        var previous = snapshot;
+        var current = new ConfigSnapshot(values, previous == null ? 1 : previous.version() + 1);
+        for (Class<? extends Record> type : boundTypes) {
+            current.bind(type);
+        }
+        snapshot = current;
+
+        if (previous != null) {
+            var changedKeys = current.changedKeys(previous);
+            if (!changedKeys.isEmpty()) {
+                logger.log(Level.INFO, "Configuration reloaded, changed {0}", changedKeys);
+                for (Listener listener : listeners) {
+                    listener.onChange(previous, current, changedKeys);
+                }
+            }
+        }
     }
 
     /**
      * Loads the default configuration from classpath
      */
-    private void loadDefaultConfig() {
+    private void loadDefaultConfig(Map<String, String> values) {
         var fileContent = resourceService.getFileContent(CONFIG_FILE);
-        parse(fileContent);
+        try {
+            values.putAll(parse(fileContent));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(CONFIG_FILE + ": " + e.getMessage(), e);
+        }
     }
 
     /**
      * Loads user configuration from ~/.application.yaml if it exists
      * and overrides default values
      */
-    private void loadUserConfig() {
+    private void loadUserConfig(Map<String, String> values) {
         try {
             // Get user home directory
             String userHome = System.getProperty("user.home");
@@ -94,14 +171,85 @@ public class ConfigurationService {
             if (Files.exists(userConfigPath) && Files.isReadable(userConfigPath)) {
                 // Read user config content
                 String fileContent = new String(Files.readAllBytes(userConfigPath));
-                parse(fileContent);
+                try {
+                    values.putAll(parse(fileContent));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException(userConfigPath + ": " + e.getMessage(), e);
+                }
             }
         } catch (IOException e) {
             // Log error but don't fail the application
-            System.err.println("Warning: Could not load user configuration file: " + e.getMessage());
+            logger.log(Level.WARNING, "Could not load user configuration file: {0}", e.getMessage());
         }
     }
 
+    /**
+     * Reloads the configuration whenever <code>~/.application.yaml</code> is
+     * created, changed or deleted. A reload that fails is logged and the
+     * previous configuration stays in effect.
+     * 
+     * @param debounce How long to wait for further changes before reloading
+     * @throws IOException If the home directory cannot be watched
+     */
+    public synchronized void watchUserConfig(Duration debounce) throws IOException {
+        String userHome = System.getProperty("user.home");
+        if (userHome == null || userConfigWatcher != null) {
+            return;
+        }
+        Path userConfigFile = Paths.get(USER_CONFIG_FILE);
+        userConfigWatcher = new FileWatcher(Paths.get(userHome), false, debounce, paths -> {
+            if (paths.contains(userConfigFile) || paths.contains(FileWatcher.ALL)) {
+                loadConfig();
+            }
+        }).start();
+    }
+
+    /**
+     * Registers a listener for reloads that change the configuration.
+     * 
+     * @param listener The listener
+     */
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener.
+     * 
+     * @param listener The listener
+     */
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Binds a {@link com.reftch.annotation.ConfigProperties} record to the
+     * current configuration, e.g.
+     * <code>config.bind(ServerProperties.class).port()</code>. The record is
+     * parsed once per snapshot, so calling this on every request costs a map
+     * lookup. From then on, reloads the record rejects are not applied.
+     * 
+     * @param <T>  The record type
+     * @param type The record class
+     * @return The record bound to the current configuration
+     * @throws IllegalArgumentException If a value is missing or invalid
+     */
+    public <T extends Record> T bind(Class<T> type) {
+        var bound = snapshot.bind(type);
+        boundTypes.add(type);
+        return bound;
+    }
+
+    /**
+     * Gets the current configuration. Reading several keys from one snapshot
+     * guarantees they belong to the same version.
+     * 
+     * @return The snapshot
+     */
+    public ConfigSnapshot snapshot() {
+        return snapshot;
+    }
+
     /**
      * Processes environment variables in configuration values
      * 
@@ -154,44 +302,6 @@ public class ConfigurationService {
         return value;
     }
 
-    /**
-     * Calculates the indentation level of a line by comparing its length with
-     * the length after stripping leading whitespace.
-     * 
-     * This method helps determine the hierarchy level of configuration properties
-     * in nested YAML structures.
-     * 
-     * @param line The line of text to analyze for indentation
-     * @return The number of leading whitespace characters (indentation level)
-     */
-    private int getIndentLevel(String line) {
-        int count = 0;
-        for (char c : line.toCharArray()) {
-            if (c == ' ')
-                count++;
-            else
-                break;
-        }
-        return count / 2; // Assuming 2 spaces per indent level
-    }
-
-    /**
-     * Removes surrounding quotes from a string value if present.
-     * 
-     * This method handles both single and double quotes that may be present
-     * in YAML configuration values.
-     * 
-     * @param value The string value that may contain surrounding quotes
-     * @return The string value with quotes removed, or the original string if no
-     *         quotes found
-     */
-    private String removeQuotes(String value) {
-        if ((value.startsWith("\"") && value.endsWith("\"")) || (value.startsWith("'") && value.endsWith("'"))) {
-            return value.substring(1, value.length() - 1);
-        }
-        return value;
-    }
-
     /**
      * Retrieves a configuration value as a String, returning a default value if the
      * key is not found.
@@ -201,7 +311,7 @@ public class ConfigurationService {
      *         found
      */
     public String getValue(String key) {
-        return configMap.getOrDefault(key, "");
+        return snapshot.getValue(key);
     }
 
     /**
@@ -214,15 +324,7 @@ public class ConfigurationService {
      *         found or parsing fails
      */
     public int getInt(String key) {
-        var val = configMap.get(key);
-        if (val == null) {
-            return 0;
-        }
-        try {
-            return Integer.parseInt(val);
-        } catch (NumberFormatException e) {
-            return 0;
-        }
+        return snapshot.getInt(key);
     }
 
     /**
@@ -237,11 +339,21 @@ public class ConfigurationService {
      *         found or parsing fails
      */
     public boolean getBoolean(String key) {
-        var val = configMap.get(key);
-        if (val == null) {
-            return false;
-        }
-        return Boolean.parseBoolean(val);
+        return snapshot.getBoolean(key);
+    }
+
+    /**
+     * Retrieves all configuration values nested under the given prefix.
+     * 
+     * The prefix and the separating dot are stripped from the returned keys, so
+     * for <code>static.mounts.media: /srv/media</code> a lookup with the prefix
+     * <code>static.mounts</code> yields <code>media -&gt; /srv/media</code>.
+     * 
+     * @param prefix The key prefix without a trailing dot
+     * @return A new map of the matching keys (relative to the prefix) and values
+     */
+    public Map<String, String> getValues(String prefix) {
+        return snapshot.getValues(prefix);
     }
 
     /**
@@ -250,52 +362,24 @@ public class ConfigurationService {
      * @return A new HashMap containing all configuration key-value pairs
      */
     public Map<String, String> getAll() {
-        return new HashMap<>(configMap);
+        return new HashMap<>(snapshot.getAll());
     }
 
+    /**
+     * Parses YAML configuration content into flat, dot-separated keys without
+     * changing the loaded configuration. Nested mappings, sequences (keyed by
+     * index, e.g. <code>hosts.0</code>), flow collections, quoted strings and
+     * block scalars are supported, see {@link YamlParser}. Environment
+     * placeholders like <code>{SERVER_PORT:8080}</code> are resolved in every
+     * value.
+     * 
+     * @param fileContent The YAML content
+     * @return A new map of keys and values in document order
+     * @throws IllegalArgumentException If the content is malformed, with the
+     *                                  line and column of the error
+     */
     public Map<String, String> parse(String fileContent) {
-        String[] lines = fileContent.split("\\r?\\n");
-        Deque<String> keyStack = new ArrayDeque<>();
-        int previousIndentLevel = 0;
-
-        for (var line : lines) {
-            if (line.trim().isEmpty() || line.trim().startsWith("#")) {
-                continue;
-            }
-
-            int indentLevel = getIndentLevel(line);
-            line = line.trim();
-
-            if (!line.contains(":")) {
-                continue;
-            }
-
-            String[] parts = line.split(":", 2);
-            var key = parts[0].trim();
-            var value = parts[1].trim();
-
-            // Pop keys when current indent is less than the previous line's indent
-            while (indentLevel < previousIndentLevel && !keyStack.isEmpty()) {
-                keyStack.pop();
-                previousIndentLevel--;
-            }
-
-            if (value.isEmpty()) {
-                // Nested key, push to stack
-                keyStack.push(key);
-                previousIndentLevel = indentLevel + 1;
-            } else {
-                // Compose full key path from stack plus current key (reversed stack)
-                var fullKeyParts = new ArrayList<>(keyStack);
-                Collections.reverse(fullKeyParts);
-                fullKeyParts.add(key);
-                var fullKey = String.join(".", fullKeyParts);
-
-                String processedValue = processEnvironmentVariables(value);
-                configMap.put(fullKey, removeQuotes(processedValue));
-            }
-        }
-        return configMap;
+        return YamlParser.parse(fileContent, this::processEnvironmentVariables);
     }
 
 }
@@ -0,0 +1,660 @@
+package com.reftch.config;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * A single-pass parser for the YAML subset used by configuration files.
+ *
+ * <p>
+ * The document is read once, character by character, straight into a flat map
+ * of dot-separated keys. The key of the current position is kept in one
+ * {@link StringBuilder} that is extended and truncated as the parser enters
+ * and leaves nested blocks, so only leaf keys and values are allocated.
+ * </p>
+ *
+ * <p>
+ * Supported are block mappings with any consistent indentation, block
+ * sequences (<code>- item</code>, also of mappings), flow mappings
+ * (<code>{a: 1, b: 2}</code>) and flow sequences (<code>[a, b]</code>),
+ * single and double quoted strings with escapes, literal (<code>|</code>) and
+ * folded (<code>&gt;</code>) block scalars, comments after values and
+ * <code>---</code> document markers. Sequence items are keyed by their index,
+ * e.g. <code>hosts.0</code>. A value like <code>{SERVER_PORT:8080}</code> is
+ * an environment placeholder, not a flow mapping, and is kept as a scalar.
+ * Anchors, aliases and tags are rejected. Errors report the line and column.
+ * </p>
+ */
+final class YamlParser {
+
+    private final String source;
+    private final UnaryOperator<String> scalars;
+    private final Map<String, String> values = new LinkedHashMap<>();
+    private final StringBuilder path = new StringBuilder();
+
+    private int pos;
+    private int line = 1;
+    private int lineStart;
+    // Where nextLine() last stopped, so that calling it again stays there
+    private int contentPos = -1;
+
+    private YamlParser(String source, UnaryOperator<String> scalars) {
+        this.source = source;
+        this.scalars = scalars;
+    }
+
+    /**
+     * Parses a document.
+     *
+     * @param source  The YAML content.
+     * @param scalars Applied to every scalar value, e.g. to resolve
+     *                placeholders.
+     * @return The flat keys and values in document order.
+     * @throws IllegalArgumentException If the document is malformed.
+     */
+    static Map<String, String> parse(String source, UnaryOperator<String> scalars) {
+        var parser = new YamlParser(source, scalars);
+        int indent = parser.nextLine();
+        if (indent >= 0) {
+            if (parser.atSequenceItem()) {
+                parser.parseSequence(indent);
+            } else {
+                parser.parseMapping(indent);
+            }
+            if (parser.nextLine() >= 0) {
+                throw parser.error("Unexpected indentation");
+            }
+        }
+        return parser.values;
+    }
+
+    // Block structure
+
+    private void parseMapping(int indent) {
+        int indentation;
+        while ((indentation = nextLine()) == indent && !atSequenceItem()) {
+            int mark = path.length();
+            appendKey(parseKey(false));
+            skipSpaces();
+            parseBlockValue(indent);
+            path.setLength(mark);
+        }
+        if (indentation > indent) {
+            throw error("Unexpected indentation");
+        }
+    }
+
+    private void parseSequence(int indent) {
+        int index = 0;
+        while (nextLine() == indent && atSequenceItem()) {
+            int mark = path.length();
+            appendKey(Integer.toString(index++));
+            pos++;
+            skipSpaces();
+
+            if (atLineEnd()) {
+                skipLineEnd();
+                parseNested(indent);
+            } else if (atSequenceItem()) {
+                // "- - item" starts a sequence indented to the inner dash
+                int column = pos - lineStart;
+                contentPos = pos;
+                parseSequence(column);
+            } else if (atMappingKey()) {
+                // "- key: value" starts a mapping indented to the key
+                int column = pos - lineStart;
+                int keyMark = path.length();
+                appendKey(parseKey(false));
+                skipSpaces();
+                parseBlockValue(column);
+                path.setLength(keyMark);
+                parseMapping(column);
+            } else {
+                parseInlineValue();
+                skipLineEnd();
+            }
+            path.setLength(mark);
+        }
+    }
+
+    /**
+     * Parses what follows <code>key:</code> on the same line and the lines
+     * nested below it.
+     */
+    private void parseBlockValue(int indent) {
+        if (atLineEnd()) {
+            skipLineEnd();
+            int nested = nextLine();
+            // A sequence may sit at the indentation of its key
+            if (nested == indent && atSequenceItem()) {
+                parseSequence(indent);
+            } else {
+                parseNested(indent);
+            }
+        } else if (peek() == '|' || peek() == '>') {
+            parseBlockScalar(indent);
+        } else {
+            parseInlineValue();
+            skipLineEnd();
+        }
+    }
+
+    private void parseNested(int parentIndent) {
+        int indent = nextLine();
+        if (indent <= parentIndent) {
+            // Empty value
+            return;
+        }
+        if (atSequenceItem()) {
+            parseSequence(indent);
+        } else {
+            parseMapping(indent);
+        }
+    }
+
+    private void parseBlockScalar(int parentIndent) {
+        boolean literal = source.charAt(pos++) == '|';
+        char chomping = ' ';
+        if (pos < source.length() && (peek() == '-' || peek() == '+')) {
+            chomping = source.charAt(pos++);
+        }
+        skipSpaces();
+        if (!atLineEnd()) {
+            throw error("Unexpected character after block scalar indicator");
+        }
+        skipLineEnd();
+
+        var text = new StringBuilder();
+        int blockIndent = -1;
+        int pendingNewlines = 0;
+        while (pos < source.length()) {
+            int start = pos;
+            int indent = 0;
+            while (pos < source.length() && source.charAt(pos) == ' ') {
+                pos++;
+                indent++;
+            }
+            boolean blank = pos >= source.length() || source.charAt(pos) == '\n' || source.charAt(pos) == '\r';
+            if (!blank && (indent <= parentIndent || (blockIndent >= 0 && indent < blockIndent))) {
+                pos = start;
+                break;
+            }
+            if (blank) {
+                pendingNewlines++;
+                skipToLineEnd();
+                if (pos < source.length()) {
+                    newLine();
+                }
+                continue;
+            }
+            if (blockIndent < 0) {
+                blockIndent = indent;
+            }
+
+            if (!text.isEmpty()) {
+                if (literal) {
+                    text.append("\n".repeat(pendingNewlines + 1));
+                } else {
+                    text.append(pendingNewlines == 0 ? " " : "\n".repeat(pendingNewlines));
+                }
+            }
+            pendingNewlines = 0;
+            int contentStart = lineStart + blockIndent;
+            skipToLineEnd();
+            text.append(source, contentStart, trimCarriageReturn(pos));
+            if (pos < source.length()) {
+                newLine();
+            }
+        }
+
+        if (!text.isEmpty() && chomping != '-') {
+            text.append('\n');
+            if (chomping == '+') {
+                text.append("\n".repeat(pendingNewlines));
+            }
+        }
+        put(text.toString());
+    }
+
+    // Values
+
+    /**
+     * Parses a scalar or flow collection and stores it under the current
+     * path.
+     */
+    private void parseInlineValue() {
+        char c = peek();
+        if (c == '&' || c == '*') {
+            throw error("Anchors and aliases are not supported");
+        }
+        if (c == '!') {
+            throw error("Tags are not supported");
+        }
+        if (c == '[') {
+            parseFlowSequence();
+        } else if (c == '{' && !atPlaceholder()) {
+            parseFlowMapping();
+        } else if (c == '"' || c == '\'') {
+            put(parseQuoted());
+        } else {
+            put(parsePlain(false));
+        }
+    }
+
+    private void parseFlowSequence() {
+        pos++;
+        int index = 0;
+        skipFlowSpace();
+        if (peekOrEnd() == ']') {
+            pos++;
+            return;
+        }
+        while (true) {
+            int mark = path.length();
+            appendKey(Integer.toString(index++));
+            parseFlowValue();
+            path.setLength(mark);
+
+            skipFlowSpace();
+            char c = peekOrEnd();
+            pos++;
+            if (c == ']') {
+                return;
+            }
+            if (c != ',') {
+                pos--;
+                throw error("Expected ',' or ']'");
+            }
+            skipFlowSpace();
+        }
+    }
+
+    private void parseFlowMapping() {
+        pos++;
+        skipFlowSpace();
+        if (peekOrEnd() == '}') {
+            pos++;
+            return;
+        }
+        while (true) {
+            int mark = path.length();
+            appendKey(parseKey(true));
+            skipFlowSpace();
+            parseFlowValue();
+            path.setLength(mark);
+
+            skipFlowSpace();
+            char c = peekOrEnd();
+            pos++;
+            if (c == '}') {
+                return;
+            }
+            if (c != ',') {
+                pos--;
+                throw error("Expected ',' or '}'");
+            }
+            skipFlowSpace();
+        }
+    }
+
+    private void parseFlowValue() {
+        skipFlowSpace();
+        char c = peekOrEnd();
+        if (c == '[') {
+            parseFlowSequence();
+        } else if (c == '{' && !atPlaceholder()) {
+            parseFlowMapping();
+        } else if (c == '"' || c == '\'') {
+            put(parseQuoted());
+        } else if (c == '&' || c == '*' || c == '!') {
+            throw error("Anchors, aliases and tags are not supported");
+        } else {
+            put(parsePlain(true));
+        }
+    }
+
+    /**
+     * Reads a key up to and including its colon.
+     */
+    private String parseKey(boolean flow) {
+        String key;
+        char c = peek();
+        if (c == '"' || c == '\'') {
+            key = parseQuoted();
+            skipSpaces();
+        } else {
+            int start = pos;
+            while (pos < source.length() && !isKeyEnd(flow)) {
+                char k = source.charAt(pos);
+                if (k == '\n' || k == '\r' || (flow && (k == ',' || k == '}'))) {
+                    throw error("Expected ':' after key");
+                }
+                pos++;
+            }
+            key = source.substring(start, trimEnd(start, pos));
+        }
+        if (pos >= source.length() || source.charAt(pos) != ':') {
+            throw error("Expected ':' after key");
+        }
+        if (key.isEmpty()) {
+            throw error("Empty key");
+        }
+        pos++;
+        return key;
+    }
+
+    private String parsePlain(boolean flow) {
+        int start = pos;
+        int end = pos;
+        while (pos < source.length()) {
+            char c = source.charAt(pos);
+            if (c == '\n' || c == '\r') {
+                break;
+            }
+            if (c == '#' && pos > start && isSpace(source.charAt(pos - 1))) {
+                break;
+            }
+            if (flow && (c == ',' || c == ']' || c == '}')) {
+                break;
+            }
+            if (c == '{' && atPlaceholder()) {
+                // Skip the placeholder, whose default may contain flow characters
+                pos = source.indexOf('}', pos) + 1;
+                end = pos;
+                continue;
+            }
+            pos++;
+            if (!isSpace(c)) {
+                end = pos;
+            }
+        }
+        return scalars.apply(source.substring(start, end));
+    }
+
+    private String parseQuoted() {
+        int startLine = line;
+        int startColumn = pos - lineStart + 1;
+        char quote = source.charAt(pos++);
+        var text = new StringBuilder();
+        while (true) {
+            if (pos >= source.length()) {
+                throw error("Unterminated string", startLine, startColumn);
+            }
+            char c = source.charAt(pos++);
+            if (c == quote) {
+                if (quote == '\'' && pos < source.length() && source.charAt(pos) == '\'') {
+                    // '' is an escaped single quote
+                    text.append('\'');
+                    pos++;
+                    continue;
+                }
+                return scalars.apply(text.toString());
+            }
+            if (c == '\n') {
+                newLine();
+                text.append(' ');
+            } else if (c == '\\' && quote == '"') {
+                text.append(parseEscape());
+            } else if (c != '\r') {
+                text.append(c);
+            }
+        }
+    }
+
+    private char parseEscape() {
+        if (pos >= source.length()) {
+            throw error("Unterminated string");
+        }
+        char c = source.charAt(pos++);
+        return switch (c) {
+            case 'n' -> '\n';
+            case 't' -> '\t';
+            case 'r' -> '\r';
+            case '0' -> '\0';
+            case 'b' -> '\b';
+            case 'f' -> '\f';
+            case '"', '\\', '/', ' ' -> c;
+            case 'u' -> {
+                if (pos + 4 > source.length()) {
+                    throw error("Invalid unicode escape");
+                }
+                try {
+                    char unicode = (char) Integer.parseInt(source, pos, pos + 4, 16);
+                    pos += 4;
+                    yield unicode;
+                } catch (NumberFormatException e) {
+                    throw error("Invalid unicode escape");
+                }
+            }
+            default -> {
+                pos--;
+                throw error("Invalid escape '\\" + c + "'");
+            }
+        };
+    }
+
+    // Lines
+
+    /**
+     * Moves to the first character of the next line with content, skipping
+     * blank lines, comments and document markers.
+     *
+     * @return The indentation of that line, or -1 at the end of the document.
+     */
+    private int nextLine() {
+        if (pos == contentPos) {
+            return pos - lineStart;
+        }
+        while (pos < source.length()) {
+            if (pos == lineStart) {
+                int indent = 0;
+                while (pos < source.length() && source.charAt(pos) == ' ') {
+                    pos++;
+                    indent++;
+                }
+                if (pos < source.length() && source.charAt(pos) == '\t') {
+                    throw error("Tabs are not allowed for indentation");
+                }
+                if (!atLineEnd() && !(indent == 0 && atDocumentMarker())) {
+                    contentPos = pos;
+                    return indent;
+                }
+            }
+            skipToLineEnd();
+            if (pos < source.length()) {
+                newLine();
+            }
+        }
+        return -1;
+    }
+
+    private boolean atDocumentMarker() {
+        return (source.startsWith("---", pos) || source.startsWith("...", pos))
+                && (pos + 3 == source.length() || Character.isWhitespace(source.charAt(pos + 3)));
+    }
+
+    /**
+     * Checks for the end of the content of a line: its end or a comment.
+     */
+    private boolean atLineEnd() {
+        if (pos >= source.length()) {
+            return true;
+        }
+        char c = source.charAt(pos);
+        return c == '\n' || c == '\r' || c == '#';
+    }
+
+    /**
+     * Skips trailing spaces and a comment, failing on anything else.
+     */
+    private void skipLineEnd() {
+        skipSpaces();
+        if (!atLineEnd()) {
+            throw error("Unexpected characters after value");
+        }
+        skipToLineEnd();
+        if (pos < source.length()) {
+            newLine();
+        }
+    }
+
+    private void skipToLineEnd() {
+        while (pos < source.length() && source.charAt(pos) != '\n') {
+            pos++;
+        }
+    }
+
+    /**
+     * Steps over a line feed.
+     */
+    private void newLine() {
+        pos++;
+        line++;
+        lineStart = pos;
+    }
+
+    private boolean atSequenceItem() {
+        return peekOrEnd() == '-' && (pos + 1 >= source.length() || isSpace(source.charAt(pos + 1))
+                || source.charAt(pos + 1) == '\n' || source.charAt(pos + 1) == '\r');
+    }
+
+    private boolean atMappingKey() {
+        char c = peek();
+        if (c == '"' || c == '\'' || c == '[' || c == '{') {
+            // Quoted keys in sequence items are not supported; such items are scalars
+            return false;
+        }
+        int mark = pos;
+        try {
+            while (pos < source.length() && !isKeyEnd(false)) {
+                char k = source.charAt(pos);
+                if (k == '\n' || k == '\r' || (k == '#' && pos > mark && isSpace(source.charAt(pos - 1)))) {
+                    return false;
+                }
+                pos++;
+            }
+            return pos < source.length();
+        } finally {
+            pos = mark;
+        }
+    }
+
+    /**
+     * Checks for a colon ending a key: one followed by whitespace, the end of
+     * the line or, in flow context, a flow indicator.
+     */
+    private boolean isKeyEnd(boolean flow) {
+        if (source.charAt(pos) != ':') {
+            return false;
+        }
+        if (pos + 1 >= source.length()) {
+            return true;
+        }
+        char next = source.charAt(pos + 1);
+        return Character.isWhitespace(next) || (flow && (next == ',' || next == '}' || next == ']'));
+    }
+
+    /**
+     * Checks for an environment placeholder like <code>{NAME}</code> or
+     * <code>{NAME:default}</code> on the current line. Unlike in a flow mapping,
+     * the colon is not followed by a space.
+     */
+    private boolean atPlaceholder() {
+        int i = pos + 1;
+        int nameStart = i;
+        while (i < source.length() && isNameChar(source.charAt(i))) {
+            i++;
+        }
+        if (i == nameStart || i >= source.length()) {
+            return false;
+        }
+        char c = source.charAt(i);
+        if (c == '}') {
+            return true;
+        }
+        if (c != ':' || (i + 1 < source.length() && isSpace(source.charAt(i + 1)))) {
+            return false;
+        }
+        for (i++; i < source.length(); i++) {
+            c = source.charAt(i);
+            if (c == '}') {
+                return true;
+            }
+            if (c == '{' || c == '\n') {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isNameChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '.' || c == '-';
+    }
+
+    // Helpers
+
+    private void put(String value) {
+        values.put(path.toString(), value);
+    }
+
+    private void appendKey(String key) {
+        if (!path.isEmpty()) {
+            path.append('.');
+        }
+        path.append(key);
+    }
+
+    private char peek() {
+        return source.charAt(pos);
+    }
+
+    private char peekOrEnd() {
+        return pos < source.length() ? source.charAt(pos) : '\0';
+    }
+
+    private void skipSpaces() {
+        while (pos < source.length() && isSpace(source.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private void skipFlowSpace() {
+        while (pos < source.length()) {
+            char c = source.charAt(pos);
+            if (c == '\n') {
+                newLine();
+            } else if (c == ' ' || c == '\t' || c == '\r') {
+                pos++;
+            } else if (c == '#') {
+                skipToLineEnd();
+            } else {
+                return;
+            }
+        }
+        throw error("Unterminated flow collection");
+    }
+
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t';
+    }
+
+    private int trimEnd(int start, int end) {
+        while (end > start && isSpace(source.charAt(end - 1))) {
+            end--;
+        }
+        return end;
+    }
+
+    private int trimCarriageReturn(int end) {
+        return end > lineStart && source.charAt(end - 1) == '\r' ? end - 1 : end;
+    }
+
+    private IllegalArgumentException error(String message) {
+        return error(message, line, pos - lineStart + 1);
+    }
+
+    private static IllegalArgumentException error(String message, int line, int column) {
+        return new IllegalArgumentException(message + " at line " + line + ", column " + column);
+    }
+}
@@ -0,0 +1,144 @@
+package com.reftch.html.parser;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Optimization stage that inlines small stylesheets and scripts into a
+ * rendered HTML page.
+ *
+ * <p>
+ * Every <code>&lt;link rel="stylesheet"&gt;</code> and
+ * <code>&lt;script src="..."&gt;&lt;/script&gt;</code> pointing below
+ * <code>/static/</code> whose content is smaller than the threshold is replaced
+ * by an inline <code>&lt;style&gt;</code> or <code>&lt;script&gt;</code>
+ * element, saving a request before first paint. The stage runs on the
+ * rendered output, so asset content is never interpreted as template syntax.
+ * </p>
+ *
+ * <p>
+ * Assets are left untouched when they cannot be loaded, exceed the threshold,
+ * contain a closing tag that would end the inline element early, or (for
+ * stylesheets) reference relative URLs that would resolve differently once
+ * inlined. Module, <code>defer</code> and <code>async</code> scripts are kept
+ * external too, since inline scripts would run synchronously at once.
+ * </p>
+ */
+public class AssetInliner {
+
+    /**
+     * Regular expression pattern used to match stylesheet links.
+     */
+    private static final Pattern LINK_PATTERN = Pattern.compile("<link\\b([^>]*)>", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * Regular expression pattern used to match empty external scripts.
+     */
+    private static final Pattern SCRIPT_PATTERN = Pattern.compile("<script\\b([^>]*)>\\s*</script>",
+            Pattern.CASE_INSENSITIVE);
+
+    /**
+     * Regular expression pattern used to match the <code>defer</code> and
+     * <code>async</code> attributes outside of quoted values.
+     */
+    private static final Pattern DEFERRED_SCRIPT_PATTERN = Pattern.compile(
+            "(?<![\\w-])(?:defer|async)(?![\\w-])(?=(?:[^\"']|\"[^\"]*\"|'[^']*')*$)", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * Regular expression pattern used to match relative CSS URLs.
+     */
+    private static final Pattern RELATIVE_CSS_URL_PATTERN = Pattern
+            .compile("(?:url\\(|@import)\\s*['\"]?(?![/'\"]|data:|https?:|#)", Pattern.CASE_INSENSITIVE);
+
+    private final Function<String, String> assetLoader;
+    private final int threshold;
+
+    /**
+     * Creates an inliner.
+     *
+     * @param assetLoader Loads an asset by its URL path, e.g.
+     *                    <code>/static/reset.css</code>. May return null or throw
+     *                    {@link IllegalArgumentException} for missing assets.
+     * @param threshold   The maximum size in bytes of an asset to inline; 0
+     *                    disables inlining.
+     */
+    public AssetInliner(Function<String, String> assetLoader, int threshold) {
+        this.assetLoader = assetLoader;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Inlines all eligible assets of the page.
+     *
+     * @param html The rendered HTML page.
+     * @return The page with small assets inlined.
+     */
+    public String inline(String html) {
+        if (html == null || threshold <= 0) {
+            return html;
+        }
+        return inlineScripts(inlineStylesheets(html));
+    }
+
+    private String inlineStylesheets(String html) {
+        return replace(LINK_PATTERN.matcher(html), attributeText -> {
+            var attributes = HtmlTemplateParser.parseAttributes(attributeText);
+            if (!"stylesheet".equalsIgnoreCase(attributes.get("rel"))) {
+                return null;
+            }
+            var css = load(attributes.get("href"), "</style");
+            if (css == null || RELATIVE_CSS_URL_PATTERN.matcher(css).find()) {
+                return null;
+            }
+            var media = attributes.get("media");
+            return (media != null ? "<style media=\"" + media + "\">" : "<style>") + css + "</style>";
+        });
+    }
+
+    private String inlineScripts(String html) {
+        return replace(SCRIPT_PATTERN.matcher(html), attributeText -> {
+            var attributes = HtmlTemplateParser.parseAttributes(attributeText);
+            var type = attributes.get("type");
+            // Inlining would drop the module semantics or the deferred execution
+            if ("module".equalsIgnoreCase(type) || DEFERRED_SCRIPT_PATTERN.matcher(attributeText).find()) {
+                return null;
+            }
+            var js = load(attributes.get("src"), "</script");
+            if (js == null) {
+                return null;
+            }
+            return (type != null ? "<script type=\"" + type + "\">" : "<script>") + js + "</script>";
+        });
+    }
+
+    private static String replace(Matcher matcher, Function<String, String> replacer) {
+        var sb = new StringBuilder();
+        while (matcher.find()) {
+            var replacement = replacer.apply(matcher.group(1));
+            matcher.appendReplacement(sb, Matcher.quoteReplacement(replacement != null ? replacement : matcher.group()));
+        }
+        matcher.appendTail(sb);
+        return sb.toString();
+    }
+
+    private String load(String url, String closingTag) {
+        if (!HtmlTemplateParser.isStaticAsset(url)) {
+            return null;
+        }
+
+        String content;
+        try {
+            content = assetLoader.apply(url);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+
+        if (content == null || content.getBytes(StandardCharsets.UTF_8).length > threshold
+                || content.toLowerCase().contains(closingTag)) {
+            return null;
+        }
+        return content.strip();
+    }
+}
@@ -0,0 +1,237 @@
+package com.reftch.html.parser;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.RecordComponent;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.BaseStream;
+import java.util.stream.IntStream;
+
+/**
+ * A {@link Template} bound to a context type.
+ *
+ * <p>
+ * Binding resolves every key the template reads to an accessor of the
+ * context type once: a record component, a public getter
+ * (<code>getTitle()</code>, <code>isProduction()</code>) or a public no-arg
+ * method of that name. Dotted keys like <code>mode.isProduction</code> walk
+ * nested types. Accessors are method handles stored by the slot of their key,
+ * see {@link Template#slots()}, so rendering reads the context by index
+ * without building a map or looking up keys per call. A key read outside of
+ * loops without accessor fails when binding instead of rendering the
+ * placeholder. Keys read inside loops only need an accessor if the items do
+ * not provide them.
+ * </p>
+ *
+ * <p>
+ * {@link #renderCached(Object)} memoizes the encoded output in a
+ * {@link RenderCache}, keyed by the values the accessors read. A bound template
+ * belongs to its template, so reloading the template also drops its cache.
+ * </p>
+ *
+ * <pre>
+ * record Home(String title) {
+ * }
+ *
+ * BoundTemplate&lt;Home&gt; home = template.bind(Home.class);
+ * String html = home.render(new Home("Hypothekenrechner"));
+ * </pre>
+ *
+ * @param <R> The context type.
+ */
+public final class BoundTemplate<R> {
+
+    private static final String THIS = "this";
+    private static final int RENDER_CACHE_SIZE = 64;
+    private static final MethodType ACCESSOR_TYPE = MethodType.methodType(Object.class, Object.class);
+    // Ends an accessor chain at the first null instead of failing on the next segment
+    private static final MethodHandle IS_NULL;
+    private static final MethodHandle MAP_GET;
+
+    static {
+        var lookup = MethodHandles.lookup();
+        try {
+            IS_NULL = lookup.findStatic(Objects.class, "isNull", MethodType.methodType(boolean.class, Object.class));
+            MAP_GET = lookup.findVirtual(Map.class, "get", MethodType.methodType(Object.class, Object.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Template template;
+    private final Class<R> type;
+    private final List<String> slots;
+    private final MethodHandle[] accessors;
+    private final int[] fingerprint;
+    private final RenderCache<byte[]> cache = new RenderCache<>(RENDER_CACHE_SIZE);
+
+    private BoundTemplate(Template template, Class<R> type, MethodHandle[] accessors) {
+        this.template = template;
+        this.type = type;
+        this.slots = template.slots();
+        this.accessors = accessors;
+        this.fingerprint = IntStream.range(0, accessors.length).filter(slot -> accessors[slot] != null).toArray();
+    }
+
+    /**
+     * Binds a template to a context type.
+     *
+     * @param template The template.
+     * @param type     The context type.
+     * @return The bound template.
+     * @throws IllegalArgumentException If a key has no accessor on the type.
+     */
+    static <R> BoundTemplate<R> bind(Template template, Class<R> type) {
+        List<String> slots = template.slots();
+        Set<String> keys = template.keys();
+        var accessors = new MethodHandle[slots.size()];
+        Set<String> unknown = new TreeSet<>();
+        for (int slot = 0; slot < accessors.length; slot++) {
+            var key = slots.get(slot);
+            accessors[slot] = accessor(type, key);
+            // Loop keys that are not on the items fall back to the context, if it has them
+            if (accessors[slot] == null && keys.contains(key)) {
+                unknown.add(key);
+            }
+        }
+        if (!unknown.isEmpty()) {
+            throw new IllegalArgumentException("Unknown template keys " + unknown + " for " + type.getName());
+        }
+        return new BoundTemplate<>(template, type, accessors);
+    }
+
+    /**
+     * Renders the template.
+     *
+     * @param context The values to substitute.
+     * @return The rendered HTML.
+     */
+    public String render(R context) {
+        return template.render(TemplateScope.bound(context, accessors));
+    }
+
+    /**
+     * Renders the template as UTF-8 to a stream.
+     *
+     * @param context The values to substitute.
+     * @param out     The stream to write to; it is not closed.
+     * @throws IOException If writing fails.
+     */
+    public void renderTo(R context, OutputStream out) throws IOException {
+        template.renderTo(TemplateScope.bound(context, accessors), out);
+    }
+
+    /**
+     * Renders the template as UTF-8, reusing the output of a context that read
+     * the same values before.
+     *
+     * <p>
+     * The fingerprint is the list of values read through the accessors of the
+     * template, compared with {@link Object#equals(Object) equals}. Contexts
+     * holding an iterator or stream can only be read once and are always
+     * rendered.
+     * </p>
+     *
+     * @param context The values to substitute.
+     * @return The rendered HTML; shared between callers and must not be modified.
+     */
+    public byte[] renderCached(R context) {
+        var values = new Object[fingerprint.length];
+        for (int i = 0; i < values.length; i++) {
+            int slot = fingerprint[i];
+            values[i] = TemplateScope.invoke(accessors[slot], context, slots.get(slot));
+            if (values[i] instanceof Iterator<?> || values[i] instanceof BaseStream<?, ?>) {
+                return render(context).getBytes(StandardCharsets.UTF_8);
+            }
+        }
+        return cache.get(Arrays.asList(values), () -> render(context).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Gets the statistics of the cache behind {@link #renderCached(Object)}.
+     *
+     * @return The cache statistics.
+     */
+    public RenderCache.Stats cacheStats() {
+        return cache.stats();
+    }
+
+    /**
+     * Gets the context type.
+     *
+     * @return The type the template is bound to.
+     */
+    public Class<R> type() {
+        return type;
+    }
+
+    /**
+     * Resolves a possibly dotted key to a chain of accessors.
+     *
+     * @return The accessor of type <code>(Object)Object</code>, or null if a
+     *         segment does not exist on its type.
+     */
+    private static MethodHandle accessor(Class<?> type, String key) {
+        if (THIS.equals(key)) {
+            return MethodHandles.identity(Object.class);
+        }
+
+        MethodHandle chain = MethodHandles.identity(Object.class);
+        Class<?> current = type;
+        for (String segment : key.split("\\.", -1)) {
+            MethodHandle step;
+            if (Map.class.isAssignableFrom(current)) {
+                step = MethodHandles.insertArguments(MAP_GET, 1, segment).asType(ACCESSOR_TYPE);
+                current = Object.class;
+            } else {
+                Method method = getter(current, segment);
+                if (method == null) {
+                    return null;
+                }
+                step = TemplateScope.unreflect(method);
+                current = method.getReturnType();
+            }
+            chain = MethodHandles.filterReturnValue(chain,
+                    MethodHandles.guardWithTest(IS_NULL, MethodHandles.empty(ACCESSOR_TYPE), step));
+        }
+        return chain;
+    }
+
+    private static Method getter(Class<?> type, String name) {
+        if (name.isEmpty()) {
+            return null;
+        }
+        if (type.isRecord()) {
+            for (RecordComponent component : type.getRecordComponents()) {
+                if (component.getName().equals(name)) {
+                    return component.getAccessor();
+                }
+            }
+        }
+        var capitalized = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        for (String candidate : new String[] { name, "get" + capitalized, "is" + capitalized }) {
+            try {
+                Method method = type.getMethod(candidate);
+                if (method.getReturnType() != void.class && !Modifier.isStatic(method.getModifiers())
+                        && method.getDeclaringClass() != Object.class) {
+                    return method;
+                }
+            } catch (NoSuchMethodException e) {
+                // Try the next naming convention
+            }
+        }
+        return null;
+    }
+}
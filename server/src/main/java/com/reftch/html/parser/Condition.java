@@ -0,0 +1,176 @@
+package com.reftch.html.parser;
+
+import java.util.Map;
+
+/**
+ * A precompiled <code>{{#if ...}}</code> condition.
+ *
+ * <p>
+ * Conditions are parsed once when the template is compiled. Keys are interned
+ * and literals unquoted up front, so evaluating a condition costs a map lookup
+ * and a string comparison per operand.
+ * </p>
+ *
+ * <p>
+ * Grammar, from lowest to highest precedence:
+ * </p>
+ *
+ * <pre>
+ * or         := and ( "||" and )*
+ * and        := unary ( "&amp;&amp;" unary )*
+ * unary      := "!" unary | "(" or ")" | comparison
+ * comparison := key ( ( "==" | "!=" ) literal )?
+ * literal    := "quoted string" | 'quoted string' | bare-word
+ * </pre>
+ *
+ * <p>
+ * A bare key is an existence check: it holds when the key has a non-empty
+ * value.
+ * </p>
+ */
+public sealed interface Condition {
+
+    /**
+     * Evaluates the condition.
+     *
+     * @param scope The values of the current render.
+     * @return True if the condition holds.
+     */
+    boolean test(TemplateScope scope);
+
+    /**
+     * Evaluates the condition against plain values.
+     *
+     * @param values The values to test.
+     * @return True if the condition holds.
+     */
+    default boolean test(Map<String, ?> values) {
+        return test(TemplateScope.of(values));
+    }
+
+    /**
+     * Parses a condition.
+     *
+     * @param text The condition as written after <code>#if</code>.
+     * @return The parsed condition.
+     * @throws IllegalArgumentException If the condition is malformed.
+     */
+    static Condition parse(String text) {
+        return ConditionParser.parse(text);
+    }
+
+    /**
+     * Holds when the key has a non-empty value.
+     *
+     * @param key  The interned key.
+     * @param slot The index of the key in {@link Template#slots()}, -1 until
+     *             the condition belongs to a template.
+     */
+    record Exists(String key, int slot) implements Condition {
+
+        public Exists {
+            key = key.intern();
+        }
+
+        public Exists(String key) {
+            this(key, -1);
+        }
+
+        @Override
+        public boolean test(TemplateScope scope) {
+            var value = scope.text(slot, key);
+            return value != null && !value.isEmpty();
+        }
+    }
+
+    /**
+     * Holds when the value of the key equals the literal.
+     *
+     * @param key      The interned key.
+     * @param expected The unquoted literal.
+     * @param slot     The index of the key in {@link Template#slots()}, -1
+     *                 until the condition belongs to a template.
+     */
+    record Equals(String key, String expected, int slot) implements Condition {
+
+        public Equals {
+            key = key.intern();
+        }
+
+        public Equals(String key, String expected) {
+            this(key, expected, -1);
+        }
+
+        @Override
+        public boolean test(TemplateScope scope) {
+            return expected.equals(scope.text(slot, key));
+        }
+    }
+
+    /**
+     * Holds when the value of the key differs from the literal or is missing.
+     *
+     * @param key      The interned key.
+     * @param expected The unquoted literal.
+     * @param slot     The index of the key in {@link Template#slots()}, -1
+     *                 until the condition belongs to a template.
+     */
+    record NotEquals(String key, String expected, int slot) implements Condition {
+
+        public NotEquals {
+            key = key.intern();
+        }
+
+        public NotEquals(String key, String expected) {
+            this(key, expected, -1);
+        }
+
+        @Override
+        public boolean test(TemplateScope scope) {
+            return !expected.equals(scope.text(slot, key));
+        }
+    }
+
+    /**
+     * Negates a condition.
+     *
+     * @param operand The negated condition.
+     */
+    record Not(Condition operand) implements Condition {
+
+        @Override
+        public boolean test(TemplateScope scope) {
+            return !operand.test(scope);
+        }
+    }
+
+    /**
+     * Holds when both conditions hold; the right side is only evaluated when
+     * needed.
+     *
+     * @param left  The left operand.
+     * @param right The right operand.
+     */
+    record And(Condition left, Condition right) implements Condition {
+
+        @Override
+        public boolean test(TemplateScope scope) {
+            return left.test(scope) && right.test(scope);
+        }
+    }
+
+    /**
+     * Holds when either condition holds; the right side is only evaluated when
+     * needed.
+     *
+     * @param left  The left operand.
+     * @param right The right operand.
+     */
+    record Or(Condition left, Condition right) implements Condition {
+
+        @Override
+        public boolean test(TemplateScope scope) {
+            return left.test(scope) || right.test(scope);
+        }
+    }
+}
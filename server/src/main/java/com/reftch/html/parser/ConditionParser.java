@@ -0,0 +1,128 @@
+package com.reftch.html.parser;
+
+/**
+ * Recursive descent parser for {@link Condition}s, see its documentation for
+ * the grammar.
+ */
+final class ConditionParser {
+
+    private final String text;
+    private int position;
+
+    private ConditionParser(String text) {
+        this.text = text;
+    }
+
+    static Condition parse(String text) {
+        var parser = new ConditionParser(text);
+        var condition = parser.parseOr();
+        parser.skipWhitespace();
+        if (!parser.atEnd()) {
+            throw parser.error("Unexpected '" + text.substring(parser.position) + "'");
+        }
+        return condition;
+    }
+
+    private Condition parseOr() {
+        var condition = parseAnd();
+        while (consume("||")) {
+            condition = new Condition.Or(condition, parseAnd());
+        }
+        return condition;
+    }
+
+    private Condition parseAnd() {
+        var condition = parseUnary();
+        while (consume("&&")) {
+            condition = new Condition.And(condition, parseUnary());
+        }
+        return condition;
+    }
+
+    private Condition parseUnary() {
+        skipWhitespace();
+        if (peek("!=")) {
+            throw error("Missing key before '!='");
+        }
+        if (consume("!")) {
+            return new Condition.Not(parseUnary());
+        }
+        if (consume("(")) {
+            var condition = parseOr();
+            if (!consume(")")) {
+                throw error("Missing ')'");
+            }
+            return condition;
+        }
+        return parseComparison();
+    }
+
+    private Condition parseComparison() {
+        var key = parseWord("key");
+        if (consume("==")) {
+            return new Condition.Equals(key, parseLiteral());
+        }
+        if (consume("!=")) {
+            return new Condition.NotEquals(key, parseLiteral());
+        }
+        return new Condition.Exists(key);
+    }
+
+    private String parseLiteral() {
+        skipWhitespace();
+        if (!atEnd() && (text.charAt(position) == '"' || text.charAt(position) == '\'')) {
+            char quote = text.charAt(position);
+            int end = text.indexOf(quote, position + 1);
+            if (end == -1) {
+                throw error("Unterminated string");
+            }
+            var literal = text.substring(position + 1, end);
+            position = end + 1;
+            return literal;
+        }
+        return parseWord("value");
+    }
+
+    private String parseWord(String expected) {
+        skipWhitespace();
+        int start = position;
+        while (!atEnd() && isWordChar(text.charAt(position))) {
+            position++;
+        }
+        if (start == position) {
+            throw error("Expected " + expected);
+        }
+        return text.substring(start, position);
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '.' || c == '_' || c == '-';
+    }
+
+    private boolean consume(String token) {
+        skipWhitespace();
+        if (peek(token)) {
+            position += token.length();
+            return true;
+        }
+        return false;
+    }
+
+    private boolean peek(String token) {
+        return text.startsWith(token, position);
+    }
+
+    private void skipWhitespace() {
+        while (!atEnd() && Character.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+    }
+
+    private boolean atEnd() {
+        return position >= text.length();
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " in condition '" + text + "' at offset " + position);
+    }
+}
@@ -0,0 +1,195 @@
+package com.reftch.html.parser;
+
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Follows the HTML markup of a template while it is compiled to find the
+ * {@link HtmlEscaper.Context} of each slot.
+ *
+ * <p>
+ * The tracker is a small state machine fed with the literal text in source
+ * order. It knows whether the text ends in element content, inside a tag, or
+ * inside a quoted or unquoted attribute value, and the name of that
+ * attribute. Conditional branches are followed in source order, which matches
+ * templates whose branches each contain balanced markup. Partials and layouts
+ * continue from the position they are included at.
+ * </p>
+ */
+final class HtmlContextTracker {
+
+    private static final Set<String> URL_ATTRIBUTES = Set.of("href", "src", "action", "formaction", "poster",
+            "cite", "background", "data", "manifest");
+
+    private enum State {
+        TEXT, COMMENT, TAG, ATTRIBUTE_NAME, AFTER_ATTRIBUTE_NAME, BEFORE_VALUE, QUOTED_VALUE, UNQUOTED_VALUE
+    }
+
+    private State state = State.TEXT;
+    private final StringBuilder attribute = new StringBuilder();
+    private char quote;
+    private boolean valueStart;
+
+    /**
+     * Advances over literal text.
+     *
+     * @param text The text.
+     */
+    void text(CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (state) {
+                case TEXT -> {
+                    if (c == '<' && i + 1 < text.length()) {
+                        char next = text.charAt(i + 1);
+                        if (startsWith(text, i, "<!--")) {
+                            state = State.COMMENT;
+                            i += 3;
+                        } else if (Character.isLetter(next) || next == '/') {
+                            state = State.TAG;
+                            // Skip the tag name
+                            while (i + 1 < text.length() && !isSpace(text.charAt(i + 1))
+                                    && text.charAt(i + 1) != '>') {
+                                i++;
+                            }
+                        }
+                    }
+                }
+                case COMMENT -> {
+                    if (startsWith(text, i, "-->")) {
+                        state = State.TEXT;
+                        i += 2;
+                    }
+                }
+                case TAG -> {
+                    if (c == '>') {
+                        state = State.TEXT;
+                    } else if (!isSpace(c) && c != '/') {
+                        attribute.setLength(0);
+                        attribute.append(c);
+                        state = State.ATTRIBUTE_NAME;
+                    }
+                }
+                case ATTRIBUTE_NAME -> {
+                    if (c == '>') {
+                        state = State.TEXT;
+                    } else if (c == '=') {
+                        state = State.BEFORE_VALUE;
+                    } else if (isSpace(c)) {
+                        state = State.AFTER_ATTRIBUTE_NAME;
+                    } else {
+                        attribute.append(c);
+                    }
+                }
+                case AFTER_ATTRIBUTE_NAME -> {
+                    if (c == '>') {
+                        state = State.TEXT;
+                    } else if (c == '=') {
+                        state = State.BEFORE_VALUE;
+                    } else if (!isSpace(c)) {
+                        attribute.setLength(0);
+                        attribute.append(c);
+                        state = State.ATTRIBUTE_NAME;
+                    }
+                }
+                case BEFORE_VALUE -> {
+                    if (c == '"' || c == '\'') {
+                        quote = c;
+                        valueStart = true;
+                        state = State.QUOTED_VALUE;
+                    } else if (c == '>') {
+                        state = State.TEXT;
+                    } else if (!isSpace(c)) {
+                        valueStart = false;
+                        state = State.UNQUOTED_VALUE;
+                    }
+                }
+                case QUOTED_VALUE -> {
+                    if (c == quote) {
+                        state = State.TAG;
+                    } else {
+                        valueStart = false;
+                    }
+                }
+                case UNQUOTED_VALUE -> {
+                    if (c == '>') {
+                        state = State.TEXT;
+                    } else if (isSpace(c)) {
+                        state = State.TAG;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the context of a slot at the current position and advances past
+     * it.
+     *
+     * @return The escaping context.
+     */
+    HtmlEscaper.Context slot() {
+        switch (state) {
+            case TEXT, COMMENT -> {
+                return HtmlEscaper.Context.TEXT;
+            }
+            case QUOTED_VALUE -> {
+                var context = valueStart && isUrlAttribute() ? HtmlEscaper.Context.URL : HtmlEscaper.Context.ATTRIBUTE;
+                valueStart = false;
+                return context;
+            }
+            case BEFORE_VALUE -> {
+                state = State.UNQUOTED_VALUE;
+                return isUrlAttribute() ? HtmlEscaper.Context.UNQUOTED_URL : HtmlEscaper.Context.UNQUOTED_ATTRIBUTE;
+            }
+            default -> {
+                return HtmlEscaper.Context.UNQUOTED_ATTRIBUTE;
+            }
+        }
+    }
+
+    /**
+     * Copies the current position, e.g. to return to it with
+     * {@link #restore(HtmlContextTracker)}.
+     *
+     * @return A tracker at the same position.
+     */
+    HtmlContextTracker copy() {
+        var copy = new HtmlContextTracker();
+        copy.restore(this);
+        return copy;
+    }
+
+    /**
+     * Returns to the position of another tracker.
+     *
+     * @param other The tracker to continue from.
+     */
+    void restore(HtmlContextTracker other) {
+        state = other.state;
+        attribute.setLength(0);
+        attribute.append(other.attribute);
+        quote = other.quote;
+        valueStart = other.valueStart;
+    }
+
+    private boolean isUrlAttribute() {
+        return URL_ATTRIBUTES.contains(attribute.toString().toLowerCase(Locale.ROOT));
+    }
+
+    private static boolean startsWith(CharSequence text, int offset, String prefix) {
+        if (offset + prefix.length() > text.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (text.charAt(offset + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f';
+    }
+}
@@ -0,0 +1,183 @@
+package com.reftch.html.parser;
+
+import java.util.Locale;
+
+/**
+ * Contextual HTML escaping for substituted template values.
+ *
+ * <p>
+ * The context of every <code>{{ key }}</code> slot is determined once when
+ * the template is compiled, see {@link HtmlContextTracker}. At render time a
+ * value is scanned with a single table lookup per character. Values without
+ * special characters, which is nearly all of them, are returned or appended
+ * as is without any copy; otherwise clean runs are copied in bulk and only
+ * the offending characters are replaced by entities.
+ * </p>
+ */
+public final class HtmlEscaper {
+
+    /**
+     * Where a value is inserted into the document.
+     */
+    public enum Context {
+
+        /**
+         * Written verbatim, for <code>{{{ key }}}</code> slots.
+         */
+        RAW,
+
+        /**
+         * Element content.
+         */
+        TEXT,
+
+        /**
+         * A quoted attribute value.
+         */
+        ATTRIBUTE,
+
+        /**
+         * An unquoted attribute value or any other position inside a tag, where
+         * whitespace and <code>=</code> would end the value.
+         */
+        UNQUOTED_ATTRIBUTE,
+
+        /**
+         * The start of a quoted URL attribute such as <code>href</code> or
+         * <code>src</code>. Unsafe schemes like <code>javascript:</code> are
+         * replaced before the value is escaped as an attribute.
+         */
+        URL,
+
+        /**
+         * The start of an unquoted URL attribute.
+         */
+        UNQUOTED_URL
+    }
+
+    /**
+     * Replacement for URLs with a scheme that could execute code.
+     */
+    static final String BLOCKED_URL = "about:invalid#blocked";
+
+    private static final String[] MARKUP_ENTITIES = new String[128];
+    private static final String[] UNQUOTED_ENTITIES = new String[128];
+
+    static {
+        MARKUP_ENTITIES['&'] = "&amp;";
+        MARKUP_ENTITIES['<'] = "&lt;";
+        MARKUP_ENTITIES['>'] = "&gt;";
+        MARKUP_ENTITIES['"'] = "&quot;";
+        MARKUP_ENTITIES['\''] = "&#39;";
+        System.arraycopy(MARKUP_ENTITIES, 0, UNQUOTED_ENTITIES, 0, MARKUP_ENTITIES.length);
+        for (char c : new char[] { ' ', '\t', '\n', '\r', '\f', '=', '`' }) {
+            UNQUOTED_ENTITIES[c] = "&#" + (int) c + ";";
+        }
+    }
+
+    private HtmlEscaper() {
+    }
+
+    /**
+     * Escapes a value for a context.
+     *
+     * @param value   The value.
+     * @param context The context of the slot.
+     * @return The escaped value, the same instance if nothing needed escaping.
+     */
+    public static String escape(String value, Context context) {
+        if (context == Context.RAW) {
+            return value;
+        }
+        if (context == Context.URL || context == Context.UNQUOTED_URL) {
+            value = filterUrl(value);
+        }
+
+        String[] entities = entities(context);
+        int index = indexOfSpecial(value, entities);
+        if (index < 0) {
+            return value;
+        }
+        var out = new StringBuilder(value.length() + 16);
+        appendEscaped(value, index, entities, out);
+        return out.toString();
+    }
+
+    /**
+     * Appends a value escaped for a context.
+     *
+     * @param value   The value.
+     * @param context The context of the slot.
+     * @param out     The output to append to.
+     */
+    public static void escape(String value, Context context, StringBuilder out) {
+        if (context == Context.RAW) {
+            out.append(value);
+            return;
+        }
+        if (context == Context.URL || context == Context.UNQUOTED_URL) {
+            value = filterUrl(value);
+        }
+
+        String[] entities = entities(context);
+        int index = indexOfSpecial(value, entities);
+        if (index < 0) {
+            out.append(value);
+        } else {
+            appendEscaped(value, index, entities, out);
+        }
+    }
+
+    private static String[] entities(Context context) {
+        return context == Context.UNQUOTED_ATTRIBUTE || context == Context.UNQUOTED_URL ? UNQUOTED_ENTITIES
+                : MARKUP_ENTITIES;
+    }
+
+    /**
+     * Finds the first character needing an entity. A simple counted loop over
+     * a lookup table, which the JIT unrolls.
+     */
+    private static int indexOfSpecial(String value, String[] entities) {
+        for (int i = 0, length = value.length(); i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 128 && entities[c] != null) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static void appendEscaped(String value, int index, String[] entities, StringBuilder out) {
+        int start = 0;
+        for (int i = index, length = value.length(); i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 128 && entities[c] != null) {
+                out.append(value, start, i).append(entities[c]);
+                start = i + 1;
+            }
+        }
+        out.append(value, start, value.length());
+    }
+
+    /**
+     * Replaces URLs whose scheme is not known to be safe. Relative URLs and
+     * URLs without a scheme pass unchanged.
+     */
+    static String filterUrl(String value) {
+        var url = value.strip();
+        for (int i = 0; i < url.length(); i++) {
+            char c = url.charAt(i);
+            if (c == ':') {
+                var scheme = url.substring(0, i).toLowerCase(Locale.ROOT);
+                return switch (scheme) {
+                    case "http", "https", "mailto", "tel" -> value;
+                    default -> BLOCKED_URL;
+                };
+            }
+            if (c == '/' || c == '?' || c == '#') {
+                return value;
+            }
+        }
+        return value;
+    }
+}
@@ -1,6 +1,11 @@
 package com.reftch.html.parser;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -50,6 +55,29 @@ public class HtmlTemplateParser {
      */
     private static final Pattern CLOSE_IF_PATTERN = Pattern.compile("\\{\\{/if\\}\\}");
 
+    /**
+     * Regular expression pattern used to match <code>&lt;link&gt;</code> and
+     * <code>&lt;script&gt;</code> start tags.
+     */
+    private static final Pattern ASSET_TAG_PATTERN = Pattern.compile("<(link|script)\\b([^>]*)>",
+            Pattern.CASE_INSENSITIVE);
+
+    /**
+     * Regular expression pattern used to match a single tag attribute.
+     */
+    private static final Pattern ATTRIBUTE_PATTERN = Pattern.compile("([\\w-]+)\\s*=\\s*(\"[^\"]*\"|'[^']*')");
+
+    /**
+     * Regular expression pattern used to match <code>.woff2</code> font
+     * references in CSS <code>url(...)</code> functions.
+     */
+    private static final Pattern FONT_URL_PATTERN = Pattern.compile("url\\(\\s*['\"]?([^'\")]+\\.woff2)['\"]?\\s*\\)");
+
+    /**
+     * Only same-origin assets below this path are preloaded.
+     */
+    private static final String STATIC_PATH = "/static/";
+
     /**
      * Parses an HTML string by replacing template expressions and evaluating
      * conditional blocks.
@@ -221,4 +249,100 @@ public class HtmlTemplateParser {
         matcher.appendTail(sb);
         return sb.toString();
     }
+
+    /**
+     * Extracts the critical assets referenced by a rendered page as
+     * <code>Link</code> header values.
+     *
+     * <p>
+     * Stylesheets become <code>rel=preload; as=style</code>, classic scripts
+     * <code>rel=preload; as=script</code> and module scripts
+     * <code>rel=modulepreload</code>. Only assets served from
+     * <code>/static/</code> are considered, so the development server and icons
+     * are skipped.
+     * </p>
+     *
+     * @param html The rendered HTML page.
+     * @return The <code>Link</code> header values in document order.
+     */
+    public static List<String> extractPreloadLinks(String html) {
+        var links = new LinkedHashSet<String>();
+        var matcher = ASSET_TAG_PATTERN.matcher(html);
+
+        while (matcher.find()) {
+            var tag = matcher.group(1).toLowerCase();
+            var attributes = parseAttributes(matcher.group(2));
+
+            if (tag.equals("link") && "stylesheet".equalsIgnoreCase(attributes.get("rel"))) {
+                var href = attributes.get("href");
+                if (isStaticAsset(href)) {
+                    links.add("<" + href + ">; rel=preload; as=style");
+                }
+            } else if (tag.equals("script")) {
+                var src = attributes.get("src");
+                if (isStaticAsset(src)) {
+                    links.add("module".equalsIgnoreCase(attributes.get("type"))
+                            ? "<" + src + ">; rel=modulepreload"
+                            : "<" + src + ">; rel=preload; as=script");
+                }
+            }
+        }
+        return new ArrayList<>(links);
+    }
+
+    /**
+     * Extracts the stylesheets referenced by a rendered page that are served
+     * from <code>/static/</code>.
+     *
+     * @param html The rendered HTML page.
+     * @return The stylesheet paths in document order.
+     */
+    public static List<String> extractStylesheets(String html) {
+        var stylesheets = new ArrayList<String>();
+        var matcher = ASSET_TAG_PATTERN.matcher(html);
+
+        while (matcher.find()) {
+            var attributes = parseAttributes(matcher.group(2));
+            if (matcher.group(1).equalsIgnoreCase("link") && "stylesheet".equalsIgnoreCase(attributes.get("rel"))
+                    && isStaticAsset(attributes.get("href"))) {
+                stylesheets.add(attributes.get("href"));
+            }
+        }
+        return stylesheets;
+    }
+
+    /**
+     * Extracts <code>.woff2</code> fonts referenced by a stylesheet as
+     * <code>Link</code> header values. Fonts are always fetched in CORS mode,
+     * so the preload has to be marked <code>crossorigin</code> to be reused.
+     *
+     * @param css The stylesheet content.
+     * @return The <code>Link</code> header values in document order.
+     */
+    public static List<String> extractFontPreloadLinks(String css) {
+        Set<String> links = new LinkedHashSet<>();
+        var matcher = FONT_URL_PATTERN.matcher(css);
+
+        while (matcher.find()) {
+            var url = matcher.group(1).trim();
+            if (isStaticAsset(url)) {
+                links.add("<" + url + ">; rel=preload; as=font; type=\"font/woff2\"; crossorigin");
+            }
+        }
+        return new ArrayList<>(links);
+    }
+
+    static Map<String, String> parseAttributes(String attributes) {
+        var result = new HashMap<String, String>();
+        var matcher = ATTRIBUTE_PATTERN.matcher(attributes);
+        while (matcher.find()) {
+            var value = matcher.group(2);
+            result.put(matcher.group(1).toLowerCase(), value.substring(1, value.length() - 1));
+        }
+        return result;
+    }
+
+    static boolean isStaticAsset(String url) {
+        return url != null && url.startsWith(STATIC_PATH);
+    }
 }
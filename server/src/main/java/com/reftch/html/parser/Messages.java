@@ -0,0 +1,80 @@
+package com.reftch.html.parser;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Conventions for the message bundles used by <code>{{#msg key}}</code>.
+ *
+ * <p>
+ * Bundles are UTF-8 properties files named after their locale below
+ * <code>i18n/</code>, e.g. <code>i18n/messages_de.properties</code>. The same
+ * files are read at build time by {@link TemplateCodeGenerator} and at runtime
+ * for templates that were not precompiled.
+ * </p>
+ */
+public final class Messages {
+
+    /**
+     * The classpath directory of the bundles.
+     */
+    public static final String DIRECTORY = "i18n";
+
+    private static final String PREFIX = DIRECTORY + "/messages_";
+    private static final String SUFFIX = ".properties";
+
+    private Messages() {
+    }
+
+    /**
+     * Gets the classpath path of the bundle of a locale.
+     *
+     * @param locale The locale.
+     * @return The path, e.g. <code>i18n/messages_de.properties</code>.
+     */
+    public static String path(Locale locale) {
+        return PREFIX + locale.toLanguageTag().replace('-', '_') + SUFFIX;
+    }
+
+    /**
+     * Gets the locale of a bundle.
+     *
+     * @param path The classpath path of a file.
+     * @return The locale, or null if the path is not a bundle.
+     */
+    public static Locale locale(String path) {
+        if (!path.startsWith(PREFIX) || !path.endsWith(SUFFIX) || path.length() == PREFIX.length() + SUFFIX.length()) {
+            return null;
+        }
+        var tag = path.substring(PREFIX.length(), path.length() - SUFFIX.length()).replace('_', '-');
+        return Locale.forLanguageTag(tag);
+    }
+
+    /**
+     * Parses the content of a bundle.
+     *
+     * @param content The properties content.
+     * @return The messages by key.
+     */
+    public static Map<String, String> parse(String content) {
+        var properties = new Properties();
+        try {
+            properties.load(new StringReader(content));
+        } catch (IOException e) {
+            // A StringReader does not fail
+            throw new UncheckedIOException(e);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid message bundle: " + e.getMessage(), e);
+        }
+        Map<String, String> messages = new HashMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            messages.put(key, properties.getProperty(key));
+        }
+        return Map.copyOf(messages);
+    }
+}
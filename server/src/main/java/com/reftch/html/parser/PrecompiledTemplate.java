@@ -0,0 +1,97 @@
+package com.reftch.html.parser;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+/**
+ * A template compiled to Java source at build time by
+ * {@link TemplateCodeGenerator}.
+ *
+ * <p>
+ * Implementations are generated, registered as services and looked up by
+ * {@link PrecompiledTemplates}. Their render methods are straight-line code
+ * writing constant strings and byte arrays, so no template is parsed at
+ * startup and the compiler can inline the whole page.
+ * </p>
+ */
+public interface PrecompiledTemplate {
+
+    /**
+     * Gets the classpath path of the template source, followed by the locale
+     * for templates compiled per locale.
+     *
+     * @return The template name, e.g. <code>views/index.html</code> or
+     *         <code>views/index.html#de</code>, see
+     *         {@link PrecompiledTemplates#variant(String, java.util.Locale)}.
+     */
+    String name();
+
+    /**
+     * Gets the partials and layouts inlined into the template.
+     *
+     * @return The referenced template names.
+     */
+    Set<String> dependencies();
+
+    /**
+     * Gets the keys the template reads outside of loops, see
+     * {@link Template#keys()}.
+     *
+     * @return The keys in document order.
+     */
+    Set<String> keys();
+
+    /**
+     * Gets the keys the template reads inside loops, see
+     * {@link Template#loopKeys()}.
+     *
+     * @return The keys in document order.
+     */
+    Set<String> loopKeys();
+
+    /**
+     * Gets the number of characters of static text, used to presize buffers.
+     *
+     * @return The literal length.
+     */
+    int literalLength();
+
+    /**
+     * Appends the rendered template to the output.
+     *
+     * @param scope The values to substitute.
+     * @param out   The output to append to.
+     */
+    void render(TemplateScope scope, StringBuilder out);
+
+    /**
+     * Writes the rendered template as UTF-8 to the stream.
+     *
+     * @param scope The values to substitute.
+     * @param out   The stream to write to.
+     * @throws IOException If writing fails.
+     */
+    void renderTo(TemplateScope scope, OutputStream out) throws IOException;
+
+    /**
+     * Checks whether a value satisfies an existence condition.
+     *
+     * @param value The value, may be null.
+     * @return True if the value is not empty.
+     */
+    static boolean present(String value) {
+        return value != null && !value.isEmpty();
+    }
+
+    /**
+     * Encodes a substituted value.
+     *
+     * @param value The value.
+     * @return The UTF-8 bytes.
+     */
+    static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
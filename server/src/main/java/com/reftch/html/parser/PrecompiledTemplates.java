@@ -0,0 +1,80 @@
+package com.reftch.html.parser;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Registry of the {@link PrecompiledTemplate}s on the classpath.
+ *
+ * Generated renderers are listed in
+ * <code>META-INF/services/com.reftch.html.parser.PrecompiledTemplate</code>
+ * and discovered once through {@link ServiceLoader}, which also works in a
+ * GraalVM native image without further configuration.
+ */
+public final class PrecompiledTemplates {
+
+    private static final Logger logger = Logger.getLogger(PrecompiledTemplates.class.getName());
+
+    private static volatile Map<String, PrecompiledTemplate> templates;
+
+    private PrecompiledTemplates() {
+    }
+
+    /**
+     * Looks up a precompiled template.
+     *
+     * @param name The classpath path of the template source.
+     * @return The template, or null if it was not compiled at build time.
+     */
+    public static PrecompiledTemplate get(String name) {
+        return templates().get(name);
+    }
+
+    /**
+     * Looks up the variant of a precompiled template for a locale.
+     *
+     * @param name   The classpath path of the template source.
+     * @param locale The locale its messages were compiled for.
+     * @return The template, or null if no variant was compiled at build time.
+     */
+    public static PrecompiledTemplate get(String name, Locale locale) {
+        return templates().get(variant(name, locale));
+    }
+
+    /**
+     * Gets the name of the variant of a template for a locale.
+     *
+     * @param name   The classpath path of the template source.
+     * @param locale The locale.
+     * @return The variant name, e.g. <code>views/index.html#de</code>.
+     */
+    public static String variant(String name, Locale locale) {
+        return name + "#" + locale.toLanguageTag();
+    }
+
+    private static Map<String, PrecompiledTemplate> templates() {
+        var loaded = templates;
+        if (loaded == null) {
+            synchronized (PrecompiledTemplates.class) {
+                loaded = templates;
+                if (loaded == null) {
+                    Map<String, PrecompiledTemplate> found = new HashMap<>();
+                    for (PrecompiledTemplate template : ServiceLoader.load(PrecompiledTemplate.class,
+                            PrecompiledTemplates.class.getClassLoader())) {
+                        found.put(template.name(), template);
+                    }
+                    if (!found.isEmpty()) {
+                        logger.log(Level.INFO, "Found {0} precompiled templates", found.size());
+                    }
+                    loaded = Map.copyOf(found);
+                    templates = loaded;
+                }
+            }
+        }
+        return loaded;
+    }
+}
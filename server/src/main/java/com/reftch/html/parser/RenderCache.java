@@ -0,0 +1,130 @@
+package com.reftch.html.parser;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * A bounded cache of rendered output, keyed by a fingerprint of the values it
+ * was rendered from.
+ *
+ * <p>
+ * Most pages are rendered from a handful of distinct contexts, so the output
+ * of an equal context is reused instead of rendered again. The least recently
+ * used entry is evicted once the cache is full. Hits, misses and evictions are
+ * counted for {@link #stats()}.
+ * </p>
+ *
+ * <p>
+ * A fingerprint must implement {@link Object#equals(Object) equals} and
+ * {@link Object#hashCode() hashCode} over exactly the values that change the
+ * output. Cached values are shared between callers and must not be modified.
+ * </p>
+ *
+ * @param <V> The type of the rendered output.
+ */
+public final class RenderCache<V> {
+
+    /**
+     * A snapshot of the cache counters.
+     *
+     * @param hits      Lookups served from the cache.
+     * @param misses    Lookups that rendered.
+     * @param evictions Entries dropped because the cache was full.
+     * @param size      The current number of entries.
+     */
+    public record Stats(long hits, long misses, long evictions, int size) {
+
+        /**
+         * Gets the share of lookups served from the cache.
+         *
+         * @return The hit ratio between 0 and 1, or 0 before the first lookup.
+         */
+        public double hitRatio() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+    }
+
+    private final int maximumSize;
+    private final Map<Object, V> entries;
+    private long hits;
+    private long misses;
+    private long evictions;
+    // Bumped by clear(), a render started before is returned but not kept
+    private long generation;
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param maximumSize The maximum number of entries.
+     * @throws IllegalArgumentException If the size is not positive.
+     */
+    public RenderCache(int maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Invalid render cache size: " + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Gets the output for a fingerprint, rendering it on a miss.
+     *
+     * <p>
+     * Rendering happens outside the lock, so two threads missing the same
+     * fingerprint may both render; the last result is kept. Output rendered
+     * while the cache is cleared is returned but not kept, as it may be
+     * stale.
+     * </p>
+     *
+     * @param fingerprint The values the output depends on.
+     * @param render      Renders the output.
+     * @return The cached or newly rendered output.
+     */
+    public V get(Object fingerprint, Supplier<? extends V> render) {
+        long started;
+        synchronized (this) {
+            var value = entries.get(fingerprint);
+            if (value != null) {
+                hits++;
+                return value;
+            }
+            misses++;
+            started = generation;
+        }
+
+        V value = render.get();
+        synchronized (this) {
+            if (generation != started) {
+                return value;
+            }
+            entries.put(fingerprint, value);
+            if (entries.size() > maximumSize) {
+                var eldest = entries.keySet().iterator();
+                eldest.next();
+                eldest.remove();
+                evictions++;
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Drops all entries, e.g. after the configuration was reloaded. The
+     * counters are kept.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        generation++;
+    }
+
+    /**
+     * Gets the current counters.
+     *
+     * @return The statistics.
+     */
+    public synchronized Stats stats() {
+        return new Stats(hits, misses, evictions, entries.size());
+    }
+}
@@ -0,0 +1,339 @@
+package com.reftch.html.parser;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * An immutable, compiled HTML template.
+ *
+ * <p>
+ * A template is compiled once by {@link TemplateCompiler} into a tree of
+ * literal segments, variable slots, conditional blocks and loops. Rendering is a
+ * single linear walk over that tree without any regular expressions, so the
+ * same instance can be rendered concurrently and repeatedly at little cost.
+ * </p>
+ *
+ * <p>
+ * {@link #renderTo(Map, OutputStream)} streams the output as UTF-8 straight
+ * to a response body. Static text is written from bytes encoded at compile
+ * time; only the substituted values are encoded per call. Combined with an
+ * <code>{{#each}}</code> over a stream, a large table is written row by row
+ * without being held in memory.
+ * </p>
+ *
+ * <pre>
+ * Template template = Template.compile("&lt;p&gt;Hello {{ name }}!&lt;/p&gt;");
+ * String html = template.render(Map.of("name", "John"));
+ * </pre>
+ */
+public final class Template {
+
+    private final List<TemplateNode> nodes;
+    private final Set<String> dependencies;
+    private final int literalLength;
+    private final PrecompiledTemplate precompiled;
+    private final List<String> slots;
+    private final Map<Class<?>, BoundTemplate<?>> bindings = new ConcurrentHashMap<>();
+
+    Template(List<TemplateNode> nodes) {
+        this(nodes, Set.of());
+    }
+
+    Template(List<TemplateNode> nodes, Set<String> dependencies) {
+        this.slots = slots(keys(nodes), loopKeys(nodes));
+        Map<String, Integer> indexes = new HashMap<>();
+        for (int i = 0; i < slots.size(); i++) {
+            indexes.put(slots.get(i), i);
+        }
+        this.nodes = withSlots(nodes, indexes);
+        this.dependencies = Set.copyOf(dependencies);
+        this.literalLength = literalLength(this.nodes);
+        this.precompiled = null;
+    }
+
+    private Template(PrecompiledTemplate precompiled) {
+        this.nodes = List.of();
+        this.dependencies = precompiled.dependencies();
+        this.literalLength = precompiled.literalLength();
+        this.precompiled = precompiled;
+        this.slots = slots(precompiled.keys(), precompiled.loopKeys());
+    }
+
+    /**
+     * Wraps a template compiled to Java at build time.
+     *
+     * @param precompiled The generated renderer.
+     * @return The template.
+     */
+    public static Template of(PrecompiledTemplate precompiled) {
+        return new Template(precompiled);
+    }
+
+    /**
+     * Compiles a template source.
+     *
+     * @param source The raw template.
+     * @return The compiled template.
+     * @throws IllegalArgumentException If a block is not closed or closed without
+     *                                  being opened.
+     */
+    public static Template compile(String source) {
+        return TemplateCompiler.compile(source);
+    }
+
+    /**
+     * Compiles a template source, inlining the partials and layouts it
+     * references.
+     *
+     * @param source   The raw template.
+     * @param resolver Loads the source of a referenced template by name.
+     * @return The compiled template.
+     * @throws IllegalArgumentException If the template or any template it
+     *                                  references is malformed or missing.
+     * @see TemplateCompiler
+     */
+    public static Template compile(String source, Function<String, String> resolver) {
+        return TemplateCompiler.compile(source, resolver);
+    }
+
+    /**
+     * Compiles a template source for one locale, inlining the partials,
+     * layouts and messages it references.
+     *
+     * @param source   The raw template.
+     * @param resolver Loads the source of a referenced template by name.
+     * @param messages Looks up the text of a message key, or null if unknown.
+     * @return The compiled template.
+     * @throws IllegalArgumentException If the template or any template it
+     *                                  references is malformed or missing, or
+     *                                  a message is unknown.
+     * @see TemplateCompiler
+     */
+    public static Template compile(String source, Function<String, String> resolver,
+            Function<String, String> messages) {
+        return TemplateCompiler.compile(source, resolver, messages);
+    }
+
+    /**
+     * Renders the template.
+     *
+     * @param values A map of keys to their corresponding values for substitution.
+     *               Values are rendered with {@link Object#toString()};
+     *               <code>{{#each}}</code> blocks expect sequences.
+     * @return The rendered HTML.
+     */
+    public String render(Map<String, ?> values) {
+        return render(TemplateScope.of(values));
+    }
+
+    String render(TemplateScope scope) {
+        var out = new StringBuilder(literalLength + 64);
+        if (precompiled != null) {
+            precompiled.render(scope, out);
+            return out.toString();
+        }
+        for (TemplateNode node : nodes) {
+            node.render(scope, out);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Renders the template as UTF-8 to a stream without building the output in
+     * memory.
+     *
+     * @param values A map of keys to their corresponding values for substitution.
+     * @param out    The stream to write to; it is not closed.
+     * @throws IOException If writing fails.
+     */
+    public void renderTo(Map<String, ?> values, OutputStream out) throws IOException {
+        renderTo(TemplateScope.of(values), out);
+    }
+
+    void renderTo(TemplateScope scope, OutputStream out) throws IOException {
+        if (precompiled != null) {
+            precompiled.renderTo(scope, out);
+            return;
+        }
+        for (TemplateNode node : nodes) {
+            node.renderTo(scope, out);
+        }
+    }
+
+    /**
+     * Gets the top-level nodes of the compiled tree.
+     *
+     * @return The nodes in document order, empty for a precompiled template.
+     */
+    public List<TemplateNode> nodes() {
+        return nodes;
+    }
+
+    /**
+     * Gets the names of all partials and layouts inlined into this template,
+     * directly or transitively.
+     *
+     * @return The referenced template names.
+     */
+    public Set<String> dependencies() {
+        return dependencies;
+    }
+
+    /**
+     * Gets the keys the template reads outside of <code>{{#each}}</code>
+     * blocks, including the keys of the sequences it iterates.
+     *
+     * @return The keys in document order.
+     */
+    public Set<String> keys() {
+        return precompiled != null ? precompiled.keys() : keys(nodes);
+    }
+
+    /**
+     * Gets the keys the template reads inside <code>{{#each}}</code> blocks.
+     * They are resolved against the items first, so they may or may not belong
+     * to the enclosing values.
+     *
+     * @return The keys in document order.
+     */
+    public Set<String> loopKeys() {
+        return precompiled != null ? precompiled.loopKeys() : loopKeys(nodes);
+    }
+
+    /**
+     * Gets the keys by slot: the {@link #keys()} followed by the
+     * {@link #loopKeys()} not read outside of loops. Nodes carry the slot of
+     * their key, so a {@link BoundTemplate} reads a value by index instead of
+     * looking up the key on every render.
+     *
+     * @return The keys, indexed by slot.
+     */
+    public List<String> slots() {
+        return slots;
+    }
+
+    /**
+     * Binds the template to a context type, resolving every key to an
+     * accessor once. Bindings are cached per type.
+     *
+     * @param <R>  The context type.
+     * @param type The record or bean class providing the values.
+     * @return The bound template.
+     * @throws IllegalArgumentException If a key has no accessor on the type.
+     * @see BoundTemplate
+     */
+    @SuppressWarnings("unchecked")
+    public <R> BoundTemplate<R> bind(Class<R> type) {
+        return (BoundTemplate<R>) bindings.computeIfAbsent(type, _ -> BoundTemplate.bind(this, type));
+    }
+
+    private static Set<String> keys(List<TemplateNode> nodes) {
+        Set<String> keys = new LinkedHashSet<>();
+        collectKeys(nodes, keys, null);
+        return keys;
+    }
+
+    private static Set<String> loopKeys(List<TemplateNode> nodes) {
+        Set<String> keys = new LinkedHashSet<>();
+        collectKeys(nodes, new LinkedHashSet<>(), keys);
+        return keys;
+    }
+
+    private static List<String> slots(Set<String> keys, Set<String> loopKeys) {
+        Set<String> slots = new LinkedHashSet<>(keys);
+        slots.addAll(loopKeys);
+        return List.copyOf(slots);
+    }
+
+    private static List<TemplateNode> withSlots(List<TemplateNode> nodes, Map<String, Integer> slots) {
+        List<TemplateNode> result = new ArrayList<>(nodes.size());
+        for (TemplateNode node : nodes) {
+            if (node instanceof TemplateNode.Variable variable) {
+                result.add(new TemplateNode.Variable(variable.key(), variable.placeholder(), variable.context(),
+                        slots.get(variable.key())));
+            } else if (node instanceof TemplateNode.Conditional conditional) {
+                result.add(new TemplateNode.Conditional(withSlots(conditional.condition(), slots),
+                        withSlots(conditional.children(), slots)));
+            } else if (node instanceof TemplateNode.Each each) {
+                result.add(new TemplateNode.Each(each.key(), withSlots(each.children(), slots),
+                        slots.get(each.key())));
+            } else {
+                result.add(node);
+            }
+        }
+        return List.copyOf(result);
+    }
+
+    private static Condition withSlots(Condition condition, Map<String, Integer> slots) {
+        if (condition instanceof Condition.Exists exists) {
+            return new Condition.Exists(exists.key(), slots.get(exists.key()));
+        } else if (condition instanceof Condition.Equals equals) {
+            return new Condition.Equals(equals.key(), equals.expected(), slots.get(equals.key()));
+        } else if (condition instanceof Condition.NotEquals notEquals) {
+            return new Condition.NotEquals(notEquals.key(), notEquals.expected(), slots.get(notEquals.key()));
+        } else if (condition instanceof Condition.Not not) {
+            return new Condition.Not(withSlots(not.operand(), slots));
+        } else if (condition instanceof Condition.And and) {
+            return new Condition.And(withSlots(and.left(), slots), withSlots(and.right(), slots));
+        } else if (condition instanceof Condition.Or or) {
+            return new Condition.Or(withSlots(or.left(), slots), withSlots(or.right(), slots));
+        }
+        return condition;
+    }
+
+    private static void collectKeys(List<TemplateNode> nodes, Set<String> keys, Set<String> loopKeys) {
+        for (TemplateNode node : nodes) {
+            if (node instanceof TemplateNode.Variable variable) {
+                keys.add(variable.key());
+            } else if (node instanceof TemplateNode.Conditional conditional) {
+                collectKeys(conditional.condition(), keys);
+                collectKeys(conditional.children(), keys, loopKeys);
+            } else if (node instanceof TemplateNode.Each each) {
+                keys.add(each.key());
+                if (loopKeys != null) {
+                    collectKeys(each.children(), loopKeys, loopKeys);
+                }
+            }
+        }
+    }
+
+    private static void collectKeys(Condition condition, Set<String> keys) {
+        if (condition instanceof Condition.Exists exists) {
+            keys.add(exists.key());
+        } else if (condition instanceof Condition.Equals equals) {
+            keys.add(equals.key());
+        } else if (condition instanceof Condition.NotEquals notEquals) {
+            keys.add(notEquals.key());
+        } else if (condition instanceof Condition.Not not) {
+            collectKeys(not.operand(), keys);
+        } else if (condition instanceof Condition.And and) {
+            collectKeys(and.left(), keys);
+            collectKeys(and.right(), keys);
+        } else if (condition instanceof Condition.Or or) {
+            collectKeys(or.left(), keys);
+            collectKeys(or.right(), keys);
+        }
+    }
+
+    static int literalLength(List<TemplateNode> nodes) {
+        int length = 0;
+        for (TemplateNode node : nodes) {
+            if (node instanceof TemplateNode.Literal literal) {
+                length += literal.text().length();
+            } else if (node instanceof TemplateNode.Conditional conditional) {
+                length += literalLength(conditional.children());
+            } else if (node instanceof TemplateNode.Each each) {
+                length += literalLength(each.children());
+            }
+        }
+        return length;
+    }
+}
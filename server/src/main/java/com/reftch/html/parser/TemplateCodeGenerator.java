@@ -0,0 +1,403 @@
+package com.reftch.html.parser;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Build-time compiler turning templates into Java renderer classes.
+ *
+ * <p>
+ * Each template is compiled with {@link TemplateCompiler}, partials and
+ * layouts included, and its node tree is emitted as a
+ * {@link PrecompiledTemplate} implementation: static text becomes
+ * <code>String</code> and UTF-8 <code>byte[]</code> constants, variables
+ * become scope lookups escaped for their context, conditions become plain boolean expressions and loops
+ * become {@link TemplateScope#each(String, TemplateScope.ItemRenderer)} calls.
+ * A service file registers all generated classes for
+ * {@link PrecompiledTemplates}.
+ * </p>
+ *
+ * <p>
+ * Templates using <code>{{#msg key}}</code> are generated once per message
+ * bundle found in {@link Messages#DIRECTORY}, with the messages compiled into
+ * their constants, e.g. <code>IndexDeTemplate</code> and
+ * <code>IndexEnTemplate</code> for <code>views/index.html</code>.
+ * </p>
+ *
+ * <p>
+ * Run by the <code>generateTemplates</code> Gradle task of the application:
+ * </p>
+ *
+ * <pre>
+ * TemplateCodeGenerator &lt;resources dir&gt; &lt;templates dir&gt; &lt;package&gt; &lt;java output dir&gt; &lt;resources output dir&gt;
+ * </pre>
+ */
+public final class TemplateCodeGenerator {
+
+    private static final Logger logger = Logger.getLogger(TemplateCodeGenerator.class.getName());
+
+    private static final String SERVICE_FILE = "META-INF/services/" + PrecompiledTemplate.class.getName();
+    private static final String TEMPLATE_EXTENSION = ".html";
+    private static final String INDENT = "    ";
+
+    // Keeps every constant well below the 65535 byte limit of the class file format
+    private static final int MAX_CONSTANT_LENGTH = 16_384;
+
+    private final StringBuilder constants = new StringBuilder();
+    private final Map<TemplateNode.Literal, List<Integer>> literalConstants = new IdentityHashMap<>();
+    private int constantCount;
+    private int localCount;
+
+    private TemplateCodeGenerator() {
+    }
+
+    /**
+     * Generates renderer classes for all templates below a resource directory.
+     *
+     * @param args The resources directory, the templates directory relative to
+     *             it, the package of the generated classes, the Java output
+     *             directory and the resources output directory.
+     * @throws IOException If a template cannot be read or a class cannot be
+     *                     written.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 5) {
+            throw new IllegalArgumentException("Usage: TemplateCodeGenerator <resources dir> <templates dir> "
+                    + "<package> <java output dir> <resources output dir>");
+        }
+        Path resources = Path.of(args[0]);
+        String directory = args[1];
+        String packageName = args[2];
+        Path javaOutput = Path.of(args[3]).resolve(packageName.replace('.', '/'));
+        Path resourcesOutput = Path.of(args[4]);
+
+        List<String> names = new ArrayList<>();
+        try (Stream<Path> paths = Files.walk(resources.resolve(directory))) {
+            paths.filter(Files::isRegularFile)
+                    .map(path -> resources.relativize(path).toString().replace('\\', '/'))
+                    .filter(name -> name.endsWith(TEMPLATE_EXTENSION))
+                    .sorted()
+                    .forEach(names::add);
+        }
+
+        Map<Locale, Map<String, String>> bundles = new TreeMap<>(Comparator.comparing(Locale::toLanguageTag));
+        if (Files.isDirectory(resources.resolve(Messages.DIRECTORY))) {
+            try (Stream<Path> paths = Files.list(resources.resolve(Messages.DIRECTORY))) {
+                for (Path path : paths.toList()) {
+                    var bundle = resources.relativize(path).toString().replace('\\', '/');
+                    var locale = Messages.locale(bundle);
+                    if (locale != null) {
+                        bundles.put(locale, Messages.parse(read(resources, bundle)));
+                    }
+                }
+            }
+        }
+
+        Files.createDirectories(javaOutput);
+        var services = new StringBuilder();
+        int count = 0;
+        for (String name : names) {
+            var source = read(resources, name);
+            Set<String> messages = new HashSet<>();
+            Template template = Template.compile(source, dependency -> read(resources, dependency), key -> {
+                messages.add(key);
+                return key;
+            });
+
+            Map<String, Template> variants = new LinkedHashMap<>();
+            if (messages.isEmpty()) {
+                variants.put(name, template);
+            } else if (bundles.isEmpty()) {
+                throw new IllegalArgumentException("No message bundles in " + Messages.DIRECTORY + " for " + name);
+            } else {
+                for (var bundle : bundles.entrySet()) {
+                    variants.put(PrecompiledTemplates.variant(name, bundle.getKey()),
+                            Template.compile(source, dependency -> read(resources, dependency), bundle.getValue()::get));
+                }
+            }
+            for (var variant : variants.entrySet()) {
+                String className = className(directory, variant.getKey());
+                Files.writeString(javaOutput.resolve(className + ".java"),
+                        generate(variant.getKey(), variant.getValue(), packageName, className));
+                services.append(packageName).append('.').append(className).append('\n');
+                count++;
+            }
+        }
+
+        Path serviceFile = resourcesOutput.resolve(SERVICE_FILE);
+        Files.createDirectories(serviceFile.getParent());
+        Files.writeString(serviceFile, services);
+        logger.log(Level.INFO, "Generated {0} template renderers in {1}", new Object[] { count, javaOutput });
+    }
+
+    /**
+     * Generates the source of a renderer class.
+     *
+     * @param name        The classpath path of the template.
+     * @param template    The compiled template.
+     * @param packageName The package of the generated class.
+     * @param className   The simple name of the generated class.
+     * @return The Java source.
+     */
+    public static String generate(String name, Template template, String packageName, String className) {
+        return new TemplateCodeGenerator().generateClass(name, template, packageName, className);
+    }
+
+    /**
+     * Derives the class name of a template, e.g.
+     * <code>views/layouts/main.html</code> becomes
+     * <code>LayoutsMainTemplate</code> and its German variant
+     * <code>views/layouts/main.html#de</code> becomes
+     * <code>LayoutsMainDeTemplate</code>.
+     *
+     * @param directory The templates directory.
+     * @param name      The classpath path of the template, optionally followed
+     *                  by a locale.
+     * @return The simple class name.
+     */
+    static String className(String directory, String name) {
+        int variant = name.indexOf('#');
+        String relative = name.substring(directory.length() + 1,
+                (variant == -1 ? name.length() : variant) - TEMPLATE_EXTENSION.length());
+        if (variant != -1) {
+            relative += "/" + name.substring(variant + 1);
+        }
+        var className = new StringBuilder();
+        boolean upper = true;
+        for (int i = 0; i < relative.length(); i++) {
+            char c = relative.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                className.append(upper ? Character.toUpperCase(c) : c);
+                upper = false;
+            } else {
+                upper = true;
+            }
+        }
+        if (className.isEmpty() || !Character.isJavaIdentifierStart(className.charAt(0))) {
+            className.insert(0, 'T');
+        }
+        return className.append("Template").toString();
+    }
+
+    private static String read(Path resources, String name) {
+        Path path = resources.resolve(name);
+        if (!Files.isRegularFile(path)) {
+            throw new IllegalArgumentException("File not found: " + name);
+        }
+        try {
+            // Read as is, like ResourceService.getFileContent
+            return Files.readString(path, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read template: " + name, e);
+        }
+    }
+
+    private String generateClass(String name, Template template, String packageName, String className) {
+        var render = new StringBuilder();
+        nodes(template.nodes(), "scope", false, render, 2);
+        var renderTo = new StringBuilder();
+        nodes(template.nodes(), "scope", true, renderTo, 2);
+
+        var dependencies = new ArrayList<>(template.dependencies());
+        dependencies.sort(null);
+        var dependencyList = new StringBuilder();
+        for (String dependency : dependencies) {
+            dependencyList.append(dependencyList.isEmpty() ? "" : ", ").append(literal(dependency));
+        }
+
+        // Set.of does not keep the document order that Template.keys() promises
+        var keys = orderedSet(template.keys());
+        var loopKeys = orderedSet(template.loopKeys());
+
+        return "package " + packageName + ";\n"
+                + "\n"
+                + "import java.io.IOException;\n"
+                + "import java.io.OutputStream;\n"
+                + "import java.nio.charset.StandardCharsets;\n"
+                + "import java.util.Collections;\n"
+                + "import java.util.LinkedHashSet;\n"
+                + "import java.util.List;\n"
+                + "import java.util.Set;\n"
+                + "\n"
+                + "import com.reftch.html.parser.HtmlEscaper;\n"
+                + "import com.reftch.html.parser.PrecompiledTemplate;\n"
+                + "import com.reftch.html.parser.TemplateScope;\n"
+                + "\n"
+                + "/**\n"
+                + " * Renderer for <code>" + name + "</code>.\n"
+                + " *\n"
+                + " * Generated by " + TemplateCodeGenerator.class.getName() + ", do not edit.\n"
+                + " */\n"
+                + "public final class " + className + " implements PrecompiledTemplate {\n"
+                + "\n"
+                + constants
+                + "\n"
+                + INDENT + "@Override\n"
+                + INDENT + "public String name() {\n"
+                + INDENT + INDENT + "return " + literal(name) + ";\n"
+                + INDENT + "}\n"
+                + "\n"
+                + INDENT + "@Override\n"
+                + INDENT + "public Set<String> dependencies() {\n"
+                + INDENT + INDENT + "return Set.of(" + dependencyList + ");\n"
+                + INDENT + "}\n"
+                + "\n"
+                + INDENT + "@Override\n"
+                + INDENT + "public Set<String> keys() {\n"
+                + INDENT + INDENT + "return " + keys + ";\n"
+                + INDENT + "}\n"
+                + "\n"
+                + INDENT + "@Override\n"
+                + INDENT + "public Set<String> loopKeys() {\n"
+                + INDENT + INDENT + "return " + loopKeys + ";\n"
+                + INDENT + "}\n"
+                + "\n"
+                + INDENT + "@Override\n"
+                + INDENT + "public int literalLength() {\n"
+                + INDENT + INDENT + "return " + Template.literalLength(template.nodes()) + ";\n"
+                + INDENT + "}\n"
+                + "\n"
+                + INDENT + "@Override\n"
+                + INDENT + "public void render(TemplateScope scope, StringBuilder out) {\n"
+                + render
+                + INDENT + "}\n"
+                + "\n"
+                + INDENT + "@Override\n"
+                + INDENT + "public void renderTo(TemplateScope scope, OutputStream out) throws IOException {\n"
+                + renderTo
+                + INDENT + "}\n"
+                + "}\n";
+    }
+
+    private static String orderedSet(Set<String> values) {
+        var list = new StringBuilder();
+        for (String value : values) {
+            list.append(list.isEmpty() ? "" : ", ").append(literal(value));
+        }
+        return "Collections.unmodifiableSet(new LinkedHashSet<>(List.of(" + list + ")))";
+    }
+
+    private void nodes(List<TemplateNode> nodes, String scope, boolean stream, StringBuilder out, int depth) {
+        var indent = INDENT.repeat(depth);
+        for (TemplateNode node : nodes) {
+            if (node instanceof TemplateNode.Literal text) {
+                for (int constant : constants(text)) {
+                    out.append(indent).append(stream ? "out.write(BYTES_" : "out.append(TEXT_").append(constant)
+                            .append(");\n");
+                }
+            } else if (node instanceof TemplateNode.Variable variable) {
+                var local = "value" + localCount++;
+                int placeholder = constants(variable.placeholder()).get(0);
+                out.append(indent).append("var ").append(local).append(" = ").append(scope).append(".text(")
+                        .append(variable.slot()).append(", ").append(literal(variable.key())).append(");\n");
+                var escaped = variable.context() == HtmlEscaper.Context.RAW ? local
+                        : "HtmlEscaper.escape(" + local + ", HtmlEscaper.Context." + variable.context().name() + ")";
+                if (stream) {
+                    out.append(indent).append("out.write(").append(local).append(" != null ? PrecompiledTemplate.utf8(")
+                            .append(escaped).append(") : BYTES_").append(placeholder).append(");\n");
+                } else {
+                    out.append(indent).append("out.append(").append(local).append(" != null ? ").append(escaped)
+                            .append(" : TEXT_").append(placeholder).append(");\n");
+                }
+            } else if (node instanceof TemplateNode.Conditional conditional) {
+                out.append(indent).append("if (").append(condition(conditional.condition(), scope)).append(") {\n");
+                nodes(conditional.children(), scope, stream, out, depth + 1);
+                out.append(indent).append("}\n");
+            } else if (node instanceof TemplateNode.Each each) {
+                var item = "item" + localCount++;
+                out.append(indent).append(scope).append(".each(").append(each.slot()).append(", ")
+                        .append(literal(each.key())).append(", ").append(item).append(" -> {\n");
+                nodes(each.children(), item, stream, out, depth + 1);
+                out.append(indent).append("});\n");
+            }
+        }
+    }
+
+    private static String condition(Condition condition, String scope) {
+        if (condition instanceof Condition.Exists exists) {
+            return "PrecompiledTemplate.present(" + text(scope, exists.key(), exists.slot()) + ")";
+        } else if (condition instanceof Condition.Equals equals) {
+            return literal(equals.expected()) + ".equals(" + text(scope, equals.key(), equals.slot()) + ")";
+        } else if (condition instanceof Condition.NotEquals notEquals) {
+            return "!" + literal(notEquals.expected()) + ".equals(" + text(scope, notEquals.key(), notEquals.slot())
+                    + ")";
+        } else if (condition instanceof Condition.Not not) {
+            return "!(" + condition(not.operand(), scope) + ")";
+        } else if (condition instanceof Condition.And and) {
+            return "(" + condition(and.left(), scope) + " && " + condition(and.right(), scope) + ")";
+        } else if (condition instanceof Condition.Or or) {
+            return "(" + condition(or.left(), scope) + " || " + condition(or.right(), scope) + ")";
+        }
+        throw new IllegalArgumentException("Unsupported condition: " + condition);
+    }
+
+    private static String text(String scope, String key, int slot) {
+        return scope + ".text(" + slot + ", " + literal(key) + ")";
+    }
+
+    /**
+     * Declares the constants of a literal once and returns their indexes.
+     */
+    private List<Integer> constants(TemplateNode.Literal text) {
+        var indexes = literalConstants.get(text);
+        if (indexes == null) {
+            indexes = new ArrayList<>();
+            var value = text.text();
+            int start = 0;
+            while (start < value.length()) {
+                int end = Math.min(value.length(), start + MAX_CONSTANT_LENGTH);
+                // Never split a surrogate pair between two constants
+                if (end < value.length() && Character.isHighSurrogate(value.charAt(end - 1))) {
+                    end--;
+                }
+                int index = constantCount++;
+                constants.append(INDENT).append("private static final String TEXT_").append(index).append(" = ")
+                        .append(literal(value.substring(start, end))).append(";\n");
+                constants.append(INDENT).append("private static final byte[] BYTES_").append(index)
+                        .append(" = TEXT_").append(index).append(".getBytes(StandardCharsets.UTF_8);\n");
+                indexes.add(index);
+                start = end;
+            }
+            literalConstants.put(text, indexes);
+        }
+        return indexes;
+    }
+
+    private static String literal(String value) {
+        var out = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20 || c > 0x7e) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        return out.append('"').toString();
+    }
+}
@@ -0,0 +1,400 @@
+package com.reftch.html.parser;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Single-pass compiler turning template source into a {@link Template}.
+ *
+ * <p>
+ * The source is scanned once from left to right. Text between tags becomes a
+ * {@link TemplateNode.Literal}, <code>{{ key }}</code> a
+ * {@link TemplateNode.Variable}, <code>{{#if condition}} ...
+ * {{/if}}</code> a {@link TemplateNode.Conditional} with a precompiled
+ * {@link Condition} and <code>{{#each key}} ... {{/each}}</code> a
+ * {@link TemplateNode.Each}. Open blocks are tracked on a stack, so nesting
+ * costs nothing extra.
+ * </p>
+ *
+ * <p>
+ * While scanning, an {@link HtmlContextTracker} follows the markup so every
+ * variable is tagged with the {@link HtmlEscaper.Context} it is escaped for.
+ * Partials and layouts are compiled from the context they are included in, and
+ * block content is escaped for the position it replaces.
+ * <code>{{{ key }}}</code> inserts a value without escaping.
+ * </p>
+ *
+ * <p>
+ * Partials and layouts are flattened into the tree while compiling:
+ * </p>
+ *
+ * <ul>
+ * <li><code>{{&gt; views/partials/head.html}}</code> inlines the compiled
+ * nodes of another template.</li>
+ * <li><code>{{#extends views/layouts/main.html}}</code> renders the layout
+ * instead of the current template. Each <code>{{#block name}} ...
+ * {{/block}}</code> of the template replaces the block of the same name in the
+ * layout; blocks the template does not define keep the layout's content.
+ * Content outside blocks is ignored. Layouts may extend other layouts.</li>
+ * </ul>
+ *
+ * <p>
+ * Referenced templates are loaded through a resolver and recorded as
+ * {@link Template#dependencies() dependencies}, so rendering never looks
+ * anything up and a cache can drop exactly the templates that use a changed
+ * file. Adjacent literals are merged across partial and block boundaries.
+ * </p>
+ *
+ * <p>
+ * <code>{{#msg key}}</code> is replaced by a message while compiling, escaped
+ * for its context and merged into the surrounding text. Compiling a template
+ * once per locale therefore yields variants that translate nothing at render
+ * time.
+ * </p>
+ */
+public final class TemplateCompiler {
+
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+    private static final String RAW_OPEN = "{{{";
+    private static final String RAW_CLOSE = "}}}";
+    private static final String IF = "#if";
+    private static final String END_IF = "/if";
+    private static final String EACH = "#each";
+    private static final String END_EACH = "/each";
+    private static final String BLOCK = "#block";
+    private static final String END_BLOCK = "/block";
+    private static final String EXTENDS = "#extends";
+    private static final String MESSAGE = "#msg";
+    private static final String PARTIAL = ">";
+
+    private static final Set<String> CLOSING_TAGS = Set.of(END_IF, END_EACH, END_BLOCK);
+
+    /**
+     * An open block and the nodes collected for it so far.
+     *
+     * @param opening The opening keyword, e.g. <code>#if</code>.
+     * @param closing The matching closing tag, e.g. <code>/if</code>.
+     * @param nodes   Builds the nodes replacing the block from its children.
+     * @param rewind  The markup position at the opening if other nodes replace
+     *                the children, else null.
+     */
+    private record Frame(String opening, String closing, Function<List<TemplateNode>, List<TemplateNode>> nodes,
+            List<TemplateNode> children, int offset, HtmlContextTracker rewind) {
+    }
+
+    private final Function<String, String> resolver;
+    private final Function<String, String> messages;
+    private final Deque<String> includes = new ArrayDeque<>();
+    private final Set<String> dependencies = new LinkedHashSet<>();
+
+    private TemplateCompiler(Function<String, String> resolver, Function<String, String> messages) {
+        this.resolver = resolver;
+        this.messages = messages;
+    }
+
+    /**
+     * Compiles a template source without partials or layouts.
+     *
+     * @param source The raw template.
+     * @return The compiled template.
+     * @throws IllegalArgumentException If a block is not closed or closed without
+     *                                  being opened, or the template references
+     *                                  another template.
+     */
+    public static Template compile(String source) {
+        return compile(source, name -> {
+            throw new IllegalArgumentException("No resolver for template " + name);
+        });
+    }
+
+    /**
+     * Compiles a template source, inlining partials and layouts.
+     *
+     * @param source   The raw template.
+     * @param resolver Loads the source of a referenced template by name; throws
+     *                 {@link IllegalArgumentException} if it does not exist.
+     * @return The compiled template.
+     * @throws IllegalArgumentException If the template or any template it
+     *                                  references is malformed, missing or
+     *                                  includes itself.
+     */
+    public static Template compile(String source, Function<String, String> resolver) {
+        return compile(source, resolver, key -> {
+            throw new IllegalArgumentException("No messages for " + key);
+        });
+    }
+
+    /**
+     * Compiles a template source, inlining partials, layouts and messages.
+     *
+     * @param source   The raw template.
+     * @param resolver Loads the source of a referenced template by name; throws
+     *                 {@link IllegalArgumentException} if it does not exist.
+     * @param messages Looks up the text of a message key; returns null if the
+     *                 message does not exist.
+     * @return The compiled template.
+     * @throws IllegalArgumentException If the template or any template it
+     *                                  references is malformed, missing,
+     *                                  includes itself or uses an unknown
+     *                                  message.
+     */
+    public static Template compile(String source, Function<String, String> resolver,
+            Function<String, String> messages) {
+        var compiler = new TemplateCompiler(resolver, messages);
+        var nodes = compiler.compile(null, source, Map.of(), new HtmlContextTracker());
+        return new Template(nodes, compiler.dependencies);
+    }
+
+    private List<TemplateNode> compile(String name, String source, Map<String, List<TemplateNode>> overrides,
+            HtmlContextTracker html) {
+        Deque<Frame> stack = new ArrayDeque<>();
+        List<TemplateNode> root = new ArrayList<>();
+        List<TemplateNode> current = root;
+        var literal = new StringBuilder();
+        var start = html.copy();
+        Map<String, List<TemplateNode>> blocks = new HashMap<>();
+        String layout = null;
+        int layoutOffset = 0;
+
+        int position = 0;
+        while (position < source.length()) {
+            int open = source.indexOf(OPEN, position);
+            int close = open == -1 ? -1 : source.indexOf(CLOSE, open + OPEN.length());
+            if (close == -1) {
+                literal.append(source, position, source.length());
+                html.text(source.subSequence(position, source.length()));
+                break;
+            }
+
+            literal.append(source, position, open);
+            html.text(source.subSequence(position, open));
+
+            int rawClose = source.startsWith(RAW_OPEN, open) ? source.indexOf(RAW_CLOSE, open + RAW_OPEN.length())
+                    : -1;
+            var rawKey = rawClose == -1 ? "" : source.substring(open + RAW_OPEN.length(), rawClose).trim();
+            if (!rawKey.isEmpty() && rawKey.indexOf('}') == -1 && rawKey.indexOf('{') == -1) {
+                flush(literal, current);
+                html.slot();
+                position = rawClose + RAW_CLOSE.length();
+                current.add(new TemplateNode.Variable(rawKey, source.substring(open, position),
+                        HtmlEscaper.Context.RAW));
+                continue;
+            }
+
+            int end = close + CLOSE.length();
+            var tag = source.substring(open + OPEN.length(), close);
+            var trimmed = tag.trim();
+
+            if (isBlock(tag, IF)) {
+                flush(literal, current);
+                var condition = parseCondition(name, source, open, tag.substring(IF.length()).trim());
+                var frame = new Frame(IF, END_IF,
+                        children -> List.of(new TemplateNode.Conditional(condition, children)),
+                        new ArrayList<>(), open, null);
+                stack.push(frame);
+                current = frame.children();
+            } else if (isBlock(tag, EACH)) {
+                flush(literal, current);
+                var key = parseName(name, source, open, tag.substring(EACH.length()).trim(), EACH);
+                var frame = new Frame(EACH, END_EACH, children -> List.of(new TemplateNode.Each(key, children)),
+                        new ArrayList<>(), open, null);
+                stack.push(frame);
+                current = frame.children();
+            } else if (isBlock(tag, BLOCK)) {
+                flush(literal, current);
+                var block = parseName(name, source, open, tag.substring(BLOCK.length()).trim(), BLOCK);
+                if (blocks.containsKey(block)) {
+                    throw error(name, source, open, "Duplicate {{#block " + block + "}}");
+                }
+                var frame = new Frame(BLOCK, END_BLOCK, children -> {
+                    var content = overrides.getOrDefault(block, children);
+                    blocks.put(block, content);
+                    return content;
+                }, new ArrayList<>(), open, overrides.containsKey(block) ? html.copy() : null);
+                blocks.put(block, List.of());
+                stack.push(frame);
+                current = frame.children();
+            } else if (isBlock(tag, EXTENDS)) {
+                if (layout != null || !stack.isEmpty()) {
+                    throw error(name, source, open, "{{#extends}} must appear once at the top level");
+                }
+                layout = parseName(name, source, open, tag.substring(EXTENDS.length()).trim(), EXTENDS);
+                layoutOffset = open;
+            } else if (isBlock(tag, MESSAGE)) {
+                var key = parseName(name, source, open, tag.substring(MESSAGE.length()).trim(), MESSAGE);
+                literal.append(HtmlEscaper.escape(message(name, source, open, key), html.slot()));
+            } else if (trimmed.startsWith(PARTIAL) && tag.indexOf('}') == -1) {
+                var partial = parseName(name, source, open, trimmed.substring(PARTIAL.length()).trim(), PARTIAL);
+                append(include(name, source, open, partial, Map.of(), html), literal, current);
+            } else if (CLOSING_TAGS.contains(tag)) {
+                if (stack.isEmpty() || !stack.peek().closing().equals(tag)) {
+                    var opening = "#" + tag.substring(1);
+                    throw error(name, source, open, "{{" + tag + "}} without matching {{" + opening + "}}");
+                }
+                flush(literal, current);
+                var frame = stack.pop();
+                current = stack.isEmpty() ? root : stack.peek().children();
+                var nodes = frame.nodes().apply(frame.children());
+                if (frame.rewind() != null) {
+                    // The tracker followed the default content, the replacement is emitted instead
+                    html.restore(frame.rewind());
+                    nodes = follow(nodes, html);
+                }
+                append(nodes, literal, current);
+            } else if (!trimmed.isEmpty() && trimmed.indexOf('}') == -1) {
+                flush(literal, current);
+                current.add(new TemplateNode.Variable(trimmed, source.substring(open, end), html.slot()));
+            } else {
+                literal.append(source, open, end);
+                html.text(source.subSequence(open, end));
+            }
+            position = end;
+        }
+
+        if (!stack.isEmpty()) {
+            throw error(name, source, stack.peek().offset(), "Unclosed {{" + stack.peek().opening() + "}}");
+        }
+        flush(literal, current);
+
+        if (layout != null) {
+            // Blocks of this template already prefer the overrides passed down from below
+            Map<String, List<TemplateNode>> merged = new HashMap<>(overrides);
+            merged.putAll(blocks);
+            // Nothing of this template is emitted, the layout starts where it started
+            html.restore(start);
+            return include(name, source, layoutOffset, layout, merged, html);
+        }
+        return root;
+    }
+
+    private List<TemplateNode> include(String name, String source, int offset, String target,
+            Map<String, List<TemplateNode>> overrides, HtmlContextTracker html) {
+        if (includes.contains(target)) {
+            throw error(name, source, offset, "Circular reference to " + target);
+        }
+
+        String targetSource;
+        try {
+            targetSource = resolver.apply(target);
+        } catch (IllegalArgumentException e) {
+            throw error(name, source, offset, "Cannot resolve " + target + ": " + e.getMessage());
+        }
+
+        dependencies.add(target);
+        includes.push(target);
+        try {
+            return compile(target, targetSource, overrides, html);
+        } finally {
+            includes.pop();
+        }
+    }
+
+    private String message(String name, String source, int offset, String key) {
+        String message;
+        try {
+            message = messages.apply(key);
+        } catch (IllegalArgumentException e) {
+            throw error(name, source, offset, e.getMessage());
+        }
+        if (message == null) {
+            throw error(name, source, offset, "Unknown message " + key);
+        }
+        return message;
+    }
+
+    private static boolean isBlock(String tag, String keyword) {
+        return tag.startsWith(keyword) && tag.length() > keyword.length()
+                && Character.isWhitespace(tag.charAt(keyword.length()))
+                && !tag.substring(keyword.length()).isBlank() && tag.indexOf('}') == -1;
+    }
+
+    private static String parseName(String name, String source, int offset, String value, String keyword) {
+        boolean valid = !value.isEmpty();
+        for (int i = 0; i < value.length() && valid; i++) {
+            char c = value.charAt(i);
+            valid = Character.isLetterOrDigit(c) || c == '.' || c == '_' || c == '-' || c == '/';
+        }
+        if (!valid) {
+            throw error(name, source, offset, "Invalid name '" + value + "' in {{" + keyword + "}}");
+        }
+        return value;
+    }
+
+    private static Condition parseCondition(String name, String source, int offset, String condition) {
+        try {
+            return Condition.parse(condition);
+        } catch (IllegalArgumentException e) {
+            throw error(name, source, offset, e.getMessage());
+        }
+    }
+
+    /**
+     * Follows nodes compiled at another position, escaping their variables for
+     * the current one.
+     */
+    private static List<TemplateNode> follow(List<TemplateNode> nodes, HtmlContextTracker html) {
+        List<TemplateNode> followed = new ArrayList<>(nodes.size());
+        for (TemplateNode node : nodes) {
+            if (node instanceof TemplateNode.Literal text) {
+                html.text(text.text());
+            } else if (node instanceof TemplateNode.Variable variable) {
+                var context = html.slot();
+                if (variable.context() != HtmlEscaper.Context.RAW) {
+                    node = new TemplateNode.Variable(variable.key(), variable.placeholder(), context, variable.slot());
+                }
+            } else if (node instanceof TemplateNode.Conditional conditional) {
+                node = new TemplateNode.Conditional(conditional.condition(), follow(conditional.children(), html));
+            } else if (node instanceof TemplateNode.Each each) {
+                node = new TemplateNode.Each(each.key(), follow(each.children(), html), each.slot());
+            }
+            followed.add(node);
+        }
+        return followed;
+    }
+
+    private static void append(List<TemplateNode> nodes, StringBuilder literal, List<TemplateNode> current) {
+        for (TemplateNode node : nodes) {
+            if (node instanceof TemplateNode.Literal text) {
+                literal.append(text.text());
+            } else {
+                flush(literal, current);
+                current.add(node);
+            }
+        }
+    }
+
+    private static void flush(StringBuilder literal, List<TemplateNode> nodes) {
+        if (!literal.isEmpty()) {
+            // A block may end right after text that was flushed when it opened
+            if (!nodes.isEmpty() && nodes.get(nodes.size() - 1) instanceof TemplateNode.Literal previous) {
+                literal.insert(0, previous.text());
+                nodes.remove(nodes.size() - 1);
+            }
+            nodes.add(new TemplateNode.Literal(literal.toString()));
+            literal.setLength(0);
+        }
+    }
+
+    private static IllegalArgumentException error(String name, String source, int offset, String message) {
+        int line = 1;
+        int column = 1;
+        for (int i = 0; i < offset; i++) {
+            if (source.charAt(i) == '\n') {
+                line++;
+                column = 1;
+            } else {
+                column++;
+            }
+        }
+        return new IllegalArgumentException(message + " at line " + line + ", column " + column
+                + (name != null ? " of " + name : ""));
+    }
+}
@@ -0,0 +1,176 @@
+package com.reftch.html.parser;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * A node of a compiled {@link Template}.
+ *
+ * <p>
+ * Nodes are immutable and built once by {@link TemplateCompiler}. Rendering
+ * walks the tree and appends each node to the output, either as characters or
+ * as UTF-8 bytes. Static text is encoded once at compile time, so streaming a
+ * node only encodes the substituted values.
+ * </p>
+ */
+public sealed interface TemplateNode {
+
+    /**
+     * Appends the rendered node to the output.
+     *
+     * @param scope The values to substitute.
+     * @param out   The output to append to.
+     */
+    void render(TemplateScope scope, StringBuilder out);
+
+    /**
+     * Writes the rendered node as UTF-8 to the stream.
+     *
+     * @param scope The values to substitute.
+     * @param out   The stream to write to.
+     * @throws IOException If writing fails.
+     */
+    void renderTo(TemplateScope scope, OutputStream out) throws IOException;
+
+    /**
+     * Static text copied verbatim to the output.
+     *
+     * @param text  The text.
+     * @param bytes The text encoded as UTF-8.
+     */
+    record Literal(String text, byte[] bytes) implements TemplateNode {
+
+        public Literal(String text) {
+            this(text, text.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void render(TemplateScope scope, StringBuilder out) {
+            out.append(text);
+        }
+
+        @Override
+        public void renderTo(TemplateScope scope, OutputStream out) throws IOException {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * A <code>{{ key }}</code> slot. When the key has no value the original
+     * placeholder is kept, matching {@link HtmlTemplateParser}. Values are
+     * escaped for the context the slot appears in; <code>{{{ key }}}</code>
+     * slots are written raw.
+     *
+     * @param key         The trimmed key.
+     * @param placeholder The placeholder as written in the template.
+     * @param context     The escaping context determined at compile time.
+     * @param slot        The index of the key in {@link Template#slots()}, -1
+     *                    until the node belongs to a template.
+     */
+    record Variable(String key, Literal placeholder, HtmlEscaper.Context context, int slot) implements TemplateNode {
+
+        public Variable(String key, String placeholder, HtmlEscaper.Context context) {
+            this(key, new Literal(placeholder), context, -1);
+        }
+
+        public Variable(String key, String placeholder) {
+            this(key, placeholder, HtmlEscaper.Context.TEXT);
+        }
+
+        @Override
+        public void render(TemplateScope scope, StringBuilder out) {
+            var value = scope.text(slot, key);
+            if (value != null) {
+                HtmlEscaper.escape(value, context, out);
+            } else {
+                out.append(placeholder.text());
+            }
+        }
+
+        @Override
+        public void renderTo(TemplateScope scope, OutputStream out) throws IOException {
+            var value = scope.text(slot, key);
+            out.write(value != null ? HtmlEscaper.escape(value, context).getBytes(StandardCharsets.UTF_8)
+                    : placeholder.bytes());
+        }
+    }
+
+    /**
+     * A <code>{{#if condition}} ... {{/if}}</code> block.
+     *
+     * @param condition The precompiled condition.
+     * @param children  The nodes rendered when the condition holds.
+     */
+    record Conditional(Condition condition, List<TemplateNode> children) implements TemplateNode {
+
+        public Conditional {
+            children = List.copyOf(children);
+        }
+
+        @Override
+        public void render(TemplateScope scope, StringBuilder out) {
+            if (condition.test(scope)) {
+                for (TemplateNode child : children) {
+                    child.render(scope, out);
+                }
+            }
+        }
+
+        @Override
+        public void renderTo(TemplateScope scope, OutputStream out) throws IOException {
+            if (condition.test(scope)) {
+                for (TemplateNode child : children) {
+                    child.renderTo(scope, out);
+                }
+            }
+        }
+    }
+
+    /**
+     * A <code>{{#each key}} ... {{/each}}</code> block.
+     *
+     * <p>
+     * The children are compiled once and rendered per item in a scope that
+     * resolves keys against the item first, see
+     * {@link TemplateScope#each(String, TemplateScope.ItemRenderer)}. Items are
+     * pulled one at a time, so streaming a lazily produced sequence keeps only
+     * the current row in memory.
+     * </p>
+     *
+     * @param key      The key of the sequence.
+     * @param children The nodes rendered for each item.
+     * @param slot     The index of the key in {@link Template#slots()}, -1
+     *                 until the node belongs to a template.
+     */
+    record Each(String key, List<TemplateNode> children, int slot) implements TemplateNode {
+
+        public Each {
+            key = key.intern();
+            children = List.copyOf(children);
+        }
+
+        public Each(String key, List<TemplateNode> children) {
+            this(key, children, -1);
+        }
+
+        @Override
+        public void render(TemplateScope scope, StringBuilder out) {
+            scope.each(slot, key, item -> {
+                for (TemplateNode child : children) {
+                    child.render(item, out);
+                }
+            });
+        }
+
+        @Override
+        public void renderTo(TemplateScope scope, OutputStream out) throws IOException {
+            scope.each(slot, key, item -> {
+                for (TemplateNode child : children) {
+                    child.renderTo(item, out);
+                }
+            });
+        }
+    }
+}
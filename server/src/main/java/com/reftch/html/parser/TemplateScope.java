@@ -0,0 +1,287 @@
+package com.reftch.html.parser;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.RecordComponent;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.BaseStream;
+
+/**
+ * The values visible while rendering a {@link Template}.
+ *
+ * <p>
+ * The root scope wraps the map passed to the template. Each iteration of an
+ * <code>{{#each}}</code> block opens a child scope for the current item, so
+ * keys are first resolved against the item and then against the enclosing
+ * scopes. The innermost scope defining a key wins, even if its value is null.
+ * An item can be a record, whose components are read through
+ * accessors looked up once per class, or a map. Inside a loop
+ * <code>{{ this }}</code> refers to the item itself.
+ * </p>
+ *
+ * <p>
+ * Nodes pass the slot of their key, its index in {@link Template#slots()},
+ * along with the key. The root scope of a {@link BoundTemplate} reads the
+ * context through the accessor of that slot without looking up the key.
+ * </p>
+ *
+ * <p>
+ * In a native image, record classes iterated by templates must be registered
+ * for reflection.
+ * </p>
+ */
+public final class TemplateScope {
+
+    private static final String THIS = "this";
+    // Returned by resolve when a scope does not define a key, unlike a null value
+    private static final Object UNDEFINED = new Object();
+
+    /**
+     * Renders one item of an <code>{{#each}}</code> block.
+     *
+     * @param <E> The exception thrown while rendering.
+     */
+    @FunctionalInterface
+    public interface ItemRenderer<E extends Exception> {
+
+        /**
+         * Renders an item.
+         *
+         * @param item The scope of the current item.
+         * @throws E If rendering fails.
+         */
+        void render(TemplateScope item) throws E;
+    }
+
+    /**
+     * Record accessors by component name, computed once per record class.
+     */
+    private static final ClassValue<Map<String, MethodHandle>> ACCESSORS = new ClassValue<>() {
+        @Override
+        protected Map<String, MethodHandle> computeValue(Class<?> type) {
+            Map<String, MethodHandle> accessors = new HashMap<>();
+            for (RecordComponent component : type.getRecordComponents()) {
+                accessors.put(component.getName(), unreflect(component.getAccessor()));
+            }
+            return Map.copyOf(accessors);
+        }
+    };
+
+    private final TemplateScope parent;
+    private final Map<String, ?> values;
+    private final Object item;
+    private final MethodHandle[] accessors;
+
+    private TemplateScope(TemplateScope parent, Map<String, ?> values, Object item, MethodHandle[] accessors) {
+        this.parent = parent;
+        this.values = values;
+        this.item = item;
+        this.accessors = accessors;
+    }
+
+    /**
+     * Creates a root scope.
+     *
+     * @param values The values passed to the template.
+     * @return The scope.
+     */
+    public static TemplateScope of(Map<String, ?> values) {
+        return new TemplateScope(null, values, null, null);
+    }
+
+    /**
+     * Creates a root scope reading a typed context through accessors prepared
+     * by {@link BoundTemplate}.
+     *
+     * @param context   The context object.
+     * @param accessors The accessors by slot, null for keys the context does
+     *                  not provide.
+     * @return The scope.
+     */
+    static TemplateScope bound(Object context, MethodHandle[] accessors) {
+        return new TemplateScope(null, null, context, accessors);
+    }
+
+    /**
+     * Opens a child scope for a loop item.
+     *
+     * @param item The current item.
+     * @return The child scope.
+     */
+    public TemplateScope with(Object item) {
+        return new TemplateScope(this, null, item, null);
+    }
+
+    /**
+     * Resolves a key against this scope and its parents, stopping at the first
+     * scope that defines it.
+     *
+     * @param key The key.
+     * @return The value, or null if it is null or no scope defines the key.
+     */
+    public Object lookup(String key) {
+        return lookup(-1, key);
+    }
+
+    /**
+     * Resolves a key whose slot is known, see {@link #lookup(String)}.
+     *
+     * @param slot The index of the key in {@link Template#slots()}, or -1.
+     * @param key  The key.
+     * @return The value, or null if it is null or no scope defines the key.
+     */
+    public Object lookup(int slot, String key) {
+        for (TemplateScope scope = this; scope != null; scope = scope.parent) {
+            Object value = scope.resolve(slot, key);
+            if (value != UNDEFINED) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Resolves a key to its text.
+     *
+     * @param key The key.
+     * @return The value as a string, or null if no scope defines the key.
+     */
+    public String text(String key) {
+        return text(-1, key);
+    }
+
+    /**
+     * Resolves a key whose slot is known to its text.
+     *
+     * @param slot The index of the key in {@link Template#slots()}, or -1.
+     * @param key  The key.
+     * @return The value as a string, or null if no scope defines the key.
+     */
+    public String text(int slot, String key) {
+        Object value = lookup(slot, key);
+        return value == null ? null : value.toString();
+    }
+
+    /**
+     * Renders each item of a sequence in its own child scope.
+     *
+     * <p>
+     * The value of the key may be an {@link Iterable}, an {@link Iterator}, a
+     * {@link BaseStream stream} or an array; a missing key renders nothing.
+     * Items are pulled one at a time and streams are closed afterwards.
+     * </p>
+     *
+     * @param <E>      The exception thrown by the renderer.
+     * @param key      The key of the sequence.
+     * @param renderer Renders a single item.
+     * @throws E                        If rendering an item fails.
+     * @throws IllegalArgumentException If the value is not a sequence.
+     */
+    public <E extends Exception> void each(String key, ItemRenderer<E> renderer) throws E {
+        each(-1, key, renderer);
+    }
+
+    /**
+     * Renders each item of a sequence whose slot is known, see
+     * {@link #each(String, ItemRenderer)}.
+     *
+     * @param <E>      The exception thrown by the renderer.
+     * @param slot     The index of the key in {@link Template#slots()}, or -1.
+     * @param key      The key of the sequence.
+     * @param renderer Renders a single item.
+     * @throws E                        If rendering an item fails.
+     * @throws IllegalArgumentException If the value is not a sequence.
+     */
+    public <E extends Exception> void each(int slot, String key, ItemRenderer<E> renderer) throws E {
+        var items = lookup(slot, key);
+        try {
+            for (Iterator<?> it = iterator(key, items); it.hasNext();) {
+                renderer.render(with(it.next()));
+            }
+        } finally {
+            if (items instanceof BaseStream<?, ?> stream) {
+                stream.close();
+            }
+        }
+    }
+
+    private static Iterator<?> iterator(String key, Object items) {
+        if (items == null) {
+            return List.of().iterator();
+        } else if (items instanceof Iterable<?> iterable) {
+            return iterable.iterator();
+        } else if (items instanceof Iterator<?> iterator) {
+            return iterator;
+        } else if (items instanceof BaseStream<?, ?> stream) {
+            return stream.iterator();
+        } else if (items instanceof Object[] array) {
+            return Arrays.asList(array).iterator();
+        }
+        throw new IllegalArgumentException("Cannot iterate over " + key + " of type " + items.getClass().getName());
+    }
+
+    private Object resolve(int slot, String key) {
+        if (values != null) {
+            return get(values, key);
+        }
+        if (accessors != null && slot >= 0 && slot < accessors.length) {
+            var accessor = accessors[slot];
+            if (accessor != null) {
+                return invoke(accessor, item, key);
+            }
+        }
+        if (THIS.equals(key)) {
+            return item;
+        }
+        if (item instanceof Map<?, ?> map) {
+            return get(map, key);
+        }
+        if (item instanceof Record) {
+            MethodHandle accessor = ACCESSORS.get(item.getClass()).get(key);
+            return accessor == null ? UNDEFINED : invoke(accessor, item, key);
+        }
+        return UNDEFINED;
+    }
+
+    private static Object get(Map<?, ?> map, String key) {
+        Object value = map.get(key);
+        return value != null || map.containsKey(key) ? value : UNDEFINED;
+    }
+
+    /**
+     * Calls an accessor of type <code>(Object)Object</code>.
+     *
+     * @throws IllegalStateException If the accessor fails.
+     */
+    static Object invoke(MethodHandle accessor, Object target, String key) {
+        try {
+            return (Object) accessor.invokeExact(target);
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Failed to read " + key + " of " + target.getClass().getName(), e);
+        }
+    }
+
+    /**
+     * Converts a no-arg method to an accessor of type
+     * <code>(Object)Object</code>, boxing primitive results.
+     *
+     * @throws IllegalStateException If the method is not accessible.
+     */
+    static MethodHandle unreflect(Method method) {
+        method.trySetAccessible();
+        try {
+            return MethodHandles.lookup().unreflect(method)
+                    .asType(MethodType.methodType(Object.class, Object.class));
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot access " + method, e);
+        }
+    }
+}
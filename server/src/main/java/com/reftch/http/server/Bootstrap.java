@@ -0,0 +1,156 @@
+package com.reftch.http.server;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs the startup tasks of the server as a dependency graph.
+ *
+ * <p>
+ * Each task starts on its own virtual thread as soon as the tasks it depends
+ * on have finished, so independent work such as reading the configuration,
+ * parsing the reflection configuration and compiling templates overlaps.
+ * Dependencies must be declared before the tasks using them, which keeps the
+ * graph free of cycles. When all tasks are done, the start and duration of
+ * each one is logged as a timeline.
+ * </p>
+ *
+ * <pre>
+ * var bootstrap = new Bootstrap();
+ * bootstrap.task("config", ConfigurationService::getInstance);
+ * bootstrap.task("templates", this::preloadTemplates, "config");
+ * bootstrap.run();
+ * </pre>
+ */
+public final class Bootstrap {
+
+    private static final Logger logger = Logger.getLogger(Bootstrap.class.getName());
+
+    /**
+     * A unit of startup work.
+     */
+    @FunctionalInterface
+    public interface Task {
+
+        /**
+         * Runs the task.
+         *
+         * @throws Exception If the task fails, which fails the startup.
+         */
+        void run() throws Exception;
+    }
+
+    /**
+     * The execution of one task, relative to the start of the bootstrap.
+     *
+     * @param name    The task name.
+     * @param startMs When the task started, in milliseconds.
+     * @param endMs   When the task finished, in milliseconds.
+     * @param thread  The thread that ran the task.
+     */
+    public record Phase(String name, double startMs, double endMs, String thread) {
+    }
+
+    private record Node(Task task, List<String> dependencies) {
+    }
+
+    private final Map<String, Node> tasks = new LinkedHashMap<>();
+    private final List<Phase> timeline = new ArrayList<>();
+
+    /**
+     * Adds a task.
+     *
+     * @param name         The unique name of the task.
+     * @param task         The work.
+     * @param dependencies The names of the tasks that must finish first.
+     * @return This bootstrap.
+     * @throws IllegalArgumentException If the name is taken or a dependency
+     *                                  has not been added yet.
+     */
+    public Bootstrap task(String name, Task task, String... dependencies) {
+        if (tasks.containsKey(name)) {
+            throw new IllegalArgumentException("Duplicate bootstrap task: " + name);
+        }
+        for (String dependency : dependencies) {
+            if (!tasks.containsKey(dependency)) {
+                throw new IllegalArgumentException(
+                        "Bootstrap task " + name + " depends on unknown task " + dependency);
+            }
+        }
+        tasks.put(name, new Node(task, List.of(dependencies)));
+        return this;
+    }
+
+    /**
+     * Runs all tasks and waits for them to finish.
+     *
+     * @throws IllegalStateException If a task fails; tasks depending on it are
+     *                               skipped.
+     */
+    public void run() {
+        long start = System.nanoTime();
+        Map<String, CompletableFuture<Void>> futures = new LinkedHashMap<>();
+
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            for (var entry : tasks.entrySet()) {
+                var name = entry.getKey();
+                var node = entry.getValue();
+                var dependencies = node.dependencies().stream().map(futures::get)
+                        .toArray(CompletableFuture[]::new);
+                futures.put(name, CompletableFuture.allOf(dependencies)
+                        .thenRunAsync(() -> execute(name, node.task(), start), executor));
+            }
+
+            CompletableFuture.allOf(futures.values().toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            throw new IllegalStateException("Startup failed", e.getCause());
+        } finally {
+            executor.shutdown();
+        }
+
+        logTimeline((System.nanoTime() - start) / 1e6);
+    }
+
+    /**
+     * Gets the phases run so far, in order of completion.
+     *
+     * @return The timeline.
+     */
+    public synchronized List<Phase> timeline() {
+        return List.copyOf(timeline);
+    }
+
+    private void execute(String name, Task task, long start) {
+        double startMs = (System.nanoTime() - start) / 1e6;
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        }
+        double endMs = (System.nanoTime() - start) / 1e6;
+        synchronized (this) {
+            timeline.add(new Phase(name, startMs, endMs, Thread.currentThread().toString()));
+        }
+    }
+
+    private void logTimeline(double totalMs) {
+        var lines = new StringBuilder();
+        for (Phase phase : timeline()) {
+            lines.append(String.format("%n  %-12s +%7.1f ms %7.1f ms", phase.name(), phase.startMs(),
+                    phase.endMs() - phase.startMs()));
+        }
+        logger.log(Level.INFO, "Bootstrap finished in {0} ms:{1}",
+                new Object[] { String.format("%.1f", totalMs), lines });
+    }
+}
@@ -1,104 +1,475 @@
 package com.reftch.http.server;
 
+import java.io.Closeable;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import com.reftch.annotation.ConfigProperties;
 import com.reftch.annotation.Controller;
 import com.reftch.annotation.Inject;
+import com.reftch.annotation.Lazy;
+import com.reftch.annotation.PostConstruct;
+import com.reftch.annotation.PreDestroy;
 import com.reftch.annotation.Route;
 import com.reftch.annotation.Service;
+import com.reftch.annotation.Warmup;
+import com.reftch.config.ConfigurationService;
 import com.reftch.http.server.handler.HttpMethod;
 import com.reftch.http.server.handler.RequestProcessor;
 import com.reftch.http.server.handler.RouteHandler;
 import com.reftch.utilities.ReflectionConfigParser;
+import com.reftch.utilities.ResourceService;
 
-public class DependencyInjector {
+/**
+ * Creates the {@link Service}s and {@link Controller}s listed in the
+ * reflection configuration and registers the routes of the controllers.
+ *
+ * <p>
+ * A component is created through its constructor annotated with
+ * {@link Inject}, or its only constructor, whose parameters are resolved like
+ * {@link Inject} fields: to services, to the {@link ConfigurationService} and
+ * {@link ResourceService} singletons, or to {@link ConfigProperties} records
+ * bound to the configuration. The constructor parameters form a dependency
+ * graph that is run as a {@link Bootstrap}, so components not depending on
+ * each other are created in parallel. A cycle or a dependency that cannot be
+ * resolved fails the startup before anything is created.
+ * </p>
+ *
+ * <p>
+ * Fields are injected once all components exist, so services may refer to
+ * each other through fields. Then the {@link PostConstruct} methods are
+ * called in the order the components were created. {@link Lazy} services are
+ * left out of the startup and injected as a {@link Provider} creating them on
+ * first use. {@link #warmup()} calls the {@link Warmup} methods and
+ * {@link #close()} the {@link PreDestroy} methods.
+ * </p>
+ */
+public class DependencyInjector implements Closeable {
     private static final Logger logger = Logger.getLogger(DependencyInjector.class.getName());
 
-    private final Map<String, Object> services = new HashMap<>();
+    // Injectable instances by type: services and the framework singletons
+    private final Map<Class<?>, Object> components = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Object> controllers = new ConcurrentHashMap<>();
+    private final Map<Class<?>, LazyHolder> lazyServices = new HashMap<>();
+    // Created components in order of creation, a dependency before its dependents
+    private final List<Object> created = new CopyOnWriteArrayList<>();
     private final RequestProcessor requestProcessor;
     private final List<ReflectionEntry> reflectionEntries;
 
     public DependencyInjector(RequestProcessor requestProcessor) {
+        this(requestProcessor, new ReflectionConfigParser().getReflectionEntries());
+    }
+
+    /**
+     * Creates the components listed in an already parsed reflection
+     * configuration and registers the routes of the controllers.
+     * 
+     * @param requestProcessor  the processor receiving the routes
+     * @param reflectionEntries the classes to consider
+     * @throws IllegalArgumentException if a dependency cannot be resolved or
+     *                                  the constructors depend on each other
+     *                                  in a cycle
+     * @throws IllegalStateException    if a component fails to be created
+     */
+    public DependencyInjector(RequestProcessor requestProcessor, List<ReflectionEntry> reflectionEntries) {
         this.requestProcessor = requestProcessor;
-        ReflectionConfigParser parser = new ReflectionConfigParser();
-        this.reflectionEntries = parser.getReflectionEntries();
+        this.reflectionEntries = reflectionEntries;
+
+        components.put(ConfigurationService.class, ConfigurationService.getInstance());
+        components.put(ResourceService.class, ResourceService.getInstance());
 
         registerServices();
     }
 
     public void registerServices() {
         try {
-            // Phase 1: Instantiate Services
-            instantiateServices();
+            var services = new LinkedHashSet<Class<?>>();
+            var controllerClasses = new LinkedHashSet<Class<?>>();
+            loadComponentClasses(services, controllerClasses);
 
-            // Phase 2: Inject dependencies into Services
-            injectServiceDependencies();
+            // Phase 1: Create services and controllers along their constructor dependencies
+            instantiate(services, controllerClasses);
 
-            // Phase 3: Register Controllers
-            registerControllers();
-        } catch (Exception e) {
+            // Phase 2: Inject dependencies into fields
+            for (var instance : created) {
+                injectDependencies(instance, instance.getClass());
+            }
+
+            // Phase 3: Initialize, each component after the ones it was created from
+            for (var instance : created) {
+                invokeHooks(instance, PostConstruct.class);
+            }
+
+            // Phase 4: Register routes in the order of the reflection configuration
+            for (var clazz : controllerClasses) {
+                registerRoutes(controllers.get(clazz));
+            }
+        } catch (RuntimeException e) {
             logger.log(Level.SEVERE, "Error during registering services", e);
+            throw e;
+        }
+    }
+
+    /**
+     * Calls the {@link Warmup} methods of all components created so far.
+     * 
+     * @throws IllegalStateException if a method fails
+     */
+    public void warmup() {
+        for (var instance : created) {
+            invokeHooks(instance, Warmup.class);
         }
     }
 
-    private void instantiateServices() {
+    /**
+     * Calls the {@link PreDestroy} methods of all created components, in the
+     * reverse order of their creation. A failing method is logged and does not
+     * keep the other components from being destroyed.
+     */
+    @Override
+    public void close() {
+        var instances = new ArrayList<>(created);
+        created.clear();
+        for (int i = instances.size() - 1; i >= 0; i--) {
+            var instance = instances.get(i);
+            try {
+                invokeHooks(instance, PreDestroy.class);
+            } catch (RuntimeException e) {
+                logger.log(Level.WARNING, "Failed to destroy " + instance.getClass().getName(), e);
+            }
+        }
+    }
+
+    private void loadComponentClasses(Set<Class<?>> services, Set<Class<?>> controllerClasses) {
         for (var entry : reflectionEntries) {
             try {
                 Class<?> clazz = Class.forName(entry.name());
                 if (clazz.isAnnotationPresent(Service.class)) {
-                    logger.log(Level.INFO, "Registering service: {0}", clazz.getName());
-                    services.put(clazz.getName(), clazz.getDeclaredConstructor().newInstance());
+                    services.add(clazz);
+                } else if (clazz.isAnnotationPresent(Controller.class)) {
+                    controllerClasses.add(clazz);
                 }
-            } catch (Exception e) {
-                logger.log(Level.WARNING, "Failed to instantiate service: " + entry.name(), e);
+            } catch (ClassNotFoundException e) {
+                logger.log(Level.WARNING, "Failed to load component: " + entry.name(), e);
             }
         }
     }
 
-    private void injectServiceDependencies() {
-        for (Object service : services.values()) {
-            try {
-                injectDependencies(service, service.getClass());
-            } catch (Exception e) {
-                logger.log(Level.WARNING, "Failed to inject dependencies for service: " + service.getClass().getName(),
-                        e);
+    /**
+     * Creates all components but the lazy services, each as soon as the
+     * services its constructor takes exist.
+     */
+    private void instantiate(Set<Class<?>> services, Set<Class<?>> controllerClasses) {
+        var constructors = new LinkedHashMap<Class<?>, Constructor<?>>();
+        for (var clazz : services) {
+            var constructor = resolveConstructor(clazz, services);
+            if (clazz.isAnnotationPresent(Lazy.class)) {
+                lazyServices.put(clazz, new LazyHolder(constructor));
+            } else {
+                constructors.put(clazz, constructor);
+            }
+        }
+        for (var clazz : controllerClasses) {
+            constructors.put(clazz, resolveConstructor(clazz, services));
+        }
+
+        // Bootstrap tasks are added after their dependencies
+        var bootstrap = new Bootstrap();
+        for (var clazz : sortByDependencies(constructors)) {
+            var constructor = constructors.get(clazz);
+            var dependencies = new LinkedHashSet<String>();
+            for (var parameter : dependencies(constructor, constructors)) {
+                dependencies.add(parameter.getName());
             }
+            var target = services.contains(clazz) ? components : controllers;
+            bootstrap.task(clazz.getName(), () -> {
+                var instance = create(constructor);
+                target.put(clazz, instance);
+                created.add(instance);
+            }, dependencies.toArray(String[]::new));
         }
+        bootstrap.run();
     }
 
-    private void registerControllers() {
-        for (var entry : reflectionEntries) {
-            try {
-                Class<?> clazz = Class.forName(entry.name());
-                if (clazz.isAnnotationPresent(Controller.class)) {
-                    logger.log(Level.INFO, "Registering controller: {0}", clazz.getName());
-                    Object controller = clazz.getDeclaredConstructor().newInstance();
-                    injectDependencies(controller, clazz);
-                    registerRoutes(controller);
+    /**
+     * Chooses the constructor of a component and checks that its parameters,
+     * {@link Inject} fields and lifecycle methods are valid.
+     */
+    private Constructor<?> resolveConstructor(Class<?> clazz, Set<Class<?>> services) {
+        Constructor<?> selected = null;
+        Constructor<?>[] declared = clazz.getDeclaredConstructors();
+        for (var constructor : declared) {
+            if (constructor.isAnnotationPresent(Inject.class)) {
+                if (selected != null) {
+                    throw new IllegalArgumentException(
+                            "Multiple constructors annotated with @Inject in " + clazz.getName());
+                }
+                selected = constructor;
+            }
+        }
+        if (selected == null) {
+            if (declared.length == 1) {
+                selected = declared[0];
+            } else {
+                try {
+                    selected = clazz.getDeclaredConstructor();
+                } catch (NoSuchMethodException e) {
+                    throw new IllegalArgumentException(clazz.getName()
+                            + " has several constructors, but none without parameters or annotated with @Inject");
                 }
-            } catch (Exception e) {
-                logger.log(Level.WARNING, "Failed to instantiate controller: " + entry.name(), e);
             }
         }
+
+        var parameters = selected.getParameterTypes();
+        var genericParameters = selected.getGenericParameterTypes();
+        for (int i = 0; i < parameters.length; i++) {
+            // Inner class constructors report the enclosing instance as a parameter without generic type
+            var genericType = genericParameters.length == parameters.length ? genericParameters[i] : parameters[i];
+            checkResolvable(injectedType(genericType, parameters[i]), parameters[i] == Provider.class, services,
+                    clazz);
+        }
+        for (Field field : clazz.getDeclaredFields()) {
+            if (field.isAnnotationPresent(Inject.class)) {
+                checkResolvable(injectedType(field.getGenericType(), field.getType()), field.getType() == Provider.class,
+                        services, clazz);
+            }
+        }
+        for (Method method : clazz.getDeclaredMethods()) {
+            if ((method.isAnnotationPresent(PostConstruct.class) || method.isAnnotationPresent(Warmup.class)
+                    || method.isAnnotationPresent(PreDestroy.class)) && method.getParameterCount() > 0) {
+                throw new IllegalArgumentException(
+                        "Lifecycle method " + clazz.getName() + "." + method.getName() + " must not take parameters");
+            }
+        }
+        return selected;
+    }
+
+    private void checkResolvable(Class<?> type, boolean provided, Set<Class<?>> services, Class<?> owner) {
+        if (!isConfigProperties(type) && !components.containsKey(type) && !services.contains(type)) {
+            throw new IllegalArgumentException(
+                    "Unresolved dependency " + type.getName() + " of " + owner.getName()
+                            + ": not a registered @Service or @ConfigProperties record");
+        }
+        if (!provided && type.isAnnotationPresent(Lazy.class)) {
+            throw new IllegalArgumentException("Lazy service " + type.getName() + " must be injected into "
+                    + owner.getName() + " as Provider<" + type.getSimpleName() + ">");
+        }
     }
 
-    private void injectDependencies(Object instance, Class<?> clazz) throws IllegalAccessException {
+    /**
+     * Gets the type of component an injection point receives, unwrapping a
+     * {@link Provider}.
+     * 
+     * @throws IllegalArgumentException if a provider does not name a class
+     */
+    private static Class<?> injectedType(Type genericType, Class<?> type) {
+        if (type != Provider.class) {
+            return type;
+        }
+        if (genericType instanceof ParameterizedType parameterized
+                && parameterized.getActualTypeArguments()[0] instanceof Class<?> provided) {
+            return provided;
+        }
+        throw new IllegalArgumentException("Provider without a component class: " + genericType);
+    }
+
+    /**
+     * Gets the components among the constructor parameters that must be
+     * created first.
+     */
+    private static List<Class<?>> dependencies(Constructor<?> constructor, Map<Class<?>, Constructor<?>> constructors) {
+        var dependencies = new ArrayList<Class<?>>();
+        var parameters = constructor.getParameterTypes();
+        var genericParameters = constructor.getGenericParameterTypes();
+        for (int i = 0; i < parameters.length; i++) {
+            var genericType = genericParameters.length == parameters.length ? genericParameters[i] : parameters[i];
+            var type = injectedType(genericType, parameters[i]);
+            if (constructors.containsKey(type)) {
+                dependencies.add(type);
+            }
+        }
+        return dependencies;
+    }
+
+    /**
+     * Orders the components so that each comes after the services its
+     * constructor takes.
+     * 
+     * @throws IllegalArgumentException if the constructors depend on each other
+     *                                  in a cycle
+     */
+    private static List<Class<?>> sortByDependencies(Map<Class<?>, Constructor<?>> constructors) {
+        var sorted = new ArrayList<Class<?>>();
+        // Classes being visited map to false, finished ones to true
+        var visited = new HashMap<Class<?>, Boolean>();
+        for (var clazz : constructors.keySet()) {
+            visit(clazz, constructors, visited, new ArrayList<>(), sorted);
+        }
+        return sorted;
+    }
+
+    private static void visit(Class<?> clazz, Map<Class<?>, Constructor<?>> constructors,
+            Map<Class<?>, Boolean> visited, List<Class<?>> path, List<Class<?>> sorted) {
+        var state = visited.get(clazz);
+        if (Boolean.TRUE.equals(state)) {
+            return;
+        }
+        path.add(clazz);
+        if (Boolean.FALSE.equals(state)) {
+            var cycle = new StringBuilder();
+            for (var member : path.subList(path.indexOf(clazz), path.size())) {
+                cycle.append(cycle.isEmpty() ? "" : " -> ").append(member.getSimpleName());
+            }
+            throw new IllegalArgumentException("Circular constructor dependency: " + cycle);
+        }
+
+        visited.put(clazz, false);
+        for (var dependency : dependencies(constructors.get(clazz), constructors)) {
+            visit(dependency, constructors, visited, path, sorted);
+        }
+        visited.put(clazz, true);
+        path.remove(path.size() - 1);
+        sorted.add(clazz);
+    }
+
+    private Object create(Constructor<?> constructor) throws ReflectiveOperationException {
+        var clazz = constructor.getDeclaringClass();
+        logger.log(Level.INFO, "Registering {0}: {1}",
+                new Object[] { clazz.isAnnotationPresent(Service.class) ? "service" : "controller", clazz.getName() });
+
+        var parameters = constructor.getParameterTypes();
+        var genericParameters = constructor.getGenericParameterTypes();
+        var arguments = new Object[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            var genericType = genericParameters.length == parameters.length ? genericParameters[i] : parameters[i];
+            arguments[i] = resolve(genericType, parameters[i]);
+        }
+        constructor.setAccessible(true);
+        try {
+            return constructor.newInstance(arguments);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException("Failed to create " + clazz.getName(), e.getCause());
+        }
+    }
+
+    /**
+     * Sets the {@link Inject} fields of a component to the registered services
+     * and to {@link ConfigProperties} records bound to the configuration.
+     * 
+     * @throws IllegalArgumentException if a configuration record cannot be bound
+     */
+    private void injectDependencies(Object instance, Class<?> clazz) {
         for (Field field : clazz.getDeclaredFields()) {
             if (field.isAnnotationPresent(Inject.class)) {
-                field.setAccessible(true);
-                var fieldName = field.getType().getName();
-                Object serviceInstance = services.get(fieldName);
-                if (serviceInstance != null) {
-                    field.set(instance, serviceInstance);
-                    logger.info(() -> "Injected service: " + fieldName);
+                try {
+                    field.setAccessible(true);
+                    field.set(instance, resolve(field.getGenericType(), field.getType()));
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException("Failed to inject " + clazz.getName() + "." + field.getName(), e);
+                }
+                logger.fine(() -> "Injected " + field.getType().getName() + " into " + clazz.getName());
+            }
+        }
+    }
+
+    private Object resolve(Type genericType, Class<?> type) {
+        if (type == Provider.class) {
+            var provided = injectedType(genericType, type);
+            var holder = lazyServices.get(provided);
+            if (holder != null) {
+                return holder;
+            }
+            var instance = resolve(provided, provided);
+            return (Provider<Object>) () -> instance;
+        }
+        if (isConfigProperties(type)) {
+            return ConfigurationService.getInstance().bind(type.asSubclass(Record.class));
+        }
+        return components.get(type);
+    }
+
+    private static boolean isConfigProperties(Class<?> type) {
+        return type.isRecord() && type.isAnnotationPresent(ConfigProperties.class);
+    }
+
+    /**
+     * Calls the methods of a component annotated with a lifecycle annotation.
+     * 
+     * @throws IllegalStateException if a method fails
+     */
+    private static void invokeHooks(Object instance, Class<? extends Annotation> annotation) {
+        for (Method method : instance.getClass().getDeclaredMethods()) {
+            if (method.isAnnotationPresent(annotation)) {
+                try {
+                    method.setAccessible(true);
+                    method.invoke(instance);
+                } catch (InvocationTargetException e) {
+                    throw new IllegalStateException("@" + annotation.getSimpleName() + " method "
+                            + instance.getClass().getName() + "." + method.getName() + " failed", e.getCause());
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException("Failed to call " + method, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Holds a {@link Lazy} service, creating it on the first call.
+     */
+    private final class LazyHolder implements Provider<Object> {
+        private final Constructor<?> constructor;
+        private volatile Object instance;
+        // Set while the service is created, to detect it asking for itself
+        private boolean creating;
+
+        LazyHolder(Constructor<?> constructor) {
+            this.constructor = constructor;
+        }
+
+        @Override
+        public Object get() {
+            var result = instance;
+            if (result == null) {
+                synchronized (this) {
+                    result = instance;
+                    if (result == null) {
+                        var clazz = constructor.getDeclaringClass();
+                        if (creating) {
+                            throw new IllegalStateException("Lazy service " + clazz.getName()
+                                    + " is needed while it is being created");
+                        }
+                        creating = true;
+                        try {
+                            result = create(constructor);
+                            injectDependencies(result, clazz);
+                            invokeHooks(result, PostConstruct.class);
+                        } catch (ReflectiveOperationException e) {
+                            throw new IllegalStateException("Failed to create " + clazz.getName(), e);
+                        } finally {
+                            creating = false;
+                        }
+                        created.add(result);
+                        instance = result;
+                    }
                 }
             }
+            return result;
         }
     }
 
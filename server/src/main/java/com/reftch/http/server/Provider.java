@@ -0,0 +1,20 @@
+package com.reftch.http.server;
+
+/**
+ * Holds a component that is looked up or created on first use. Inject a
+ * <code>Provider&lt;T&gt;</code> instead of <code>T</code> to depend on a
+ * {@link com.reftch.annotation.Lazy} service.
+ *
+ * @param <T> The component type.
+ */
+@FunctionalInterface
+public interface Provider<T> {
+
+    /**
+     * Gets the component, creating it on the first call.
+     *
+     * @return The component.
+     * @throws IllegalStateException If the component fails to be created.
+     */
+    T get();
+}
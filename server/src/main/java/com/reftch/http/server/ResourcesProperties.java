@@ -0,0 +1,37 @@
+package com.reftch.http.server;
+
+import java.nio.file.Path;
+import java.util.Optional;
+
+import com.reftch.annotation.ConfigProperties;
+import com.reftch.annotation.DefaultValue;
+
+/**
+ * The <code>resources</code> section of the configuration.
+ *
+ * @param cacheSize the total bytes of classpath files kept in memory, 0
+ *                  disables the cache
+ * @param overlay   the directory read before the classpath and reloaded on
+ *                  change, empty for none
+ */
+@ConfigProperties("resources")
+public record ResourcesProperties(@DefaultValue("33554432") long cacheSize, String overlay) {
+
+    public ResourcesProperties {
+        if (cacheSize < 0) {
+            throw new IllegalArgumentException("Negative cache size: " + cacheSize);
+        }
+        overlay = overlay.strip();
+        if (!overlay.isEmpty()) {
+            // Rejects characters that are not allowed in a path
+            Path.of(overlay);
+        }
+    }
+
+    /**
+     * @return the overlay directory, empty if none is configured
+     */
+    public Optional<Path> overlayDirectory() {
+        return overlay.isEmpty() ? Optional.empty() : Optional.of(Path.of(overlay));
+    }
+}
@@ -1,56 +1,120 @@
 package com.reftch.http.server;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.Executors;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import com.reftch.annotation.WebApplication;
 import com.reftch.config.ConfigurationService;
 import com.reftch.http.server.handler.RequestProcessor;
+import com.reftch.http.server.handler.StaticProperties;
+import com.reftch.http.server.handler.StaticResourceHandler;
+import com.reftch.utilities.ClassFinder;
+import com.reftch.utilities.ReflectionConfigParser;
+import com.reftch.utilities.ResourceService;
 import com.sun.net.httpserver.HttpServer;
 
 public class Server {
     private static final Logger logger = Logger.getLogger(Server.class.getName());
 
+    // Classpath directory of the templates compiled before the server accepts requests
+    private static final String TEMPLATES_DIRECTORY = "views";
+    // Quiet time after the last change to the overlay before files are reloaded
+    private static final Duration OVERLAY_DEBOUNCE = Duration.ofMillis(50);
+    // Quiet time after the last change to ~/.application.yaml before it is reloaded
+    private static final Duration CONFIG_DEBOUNCE = Duration.ofMillis(200);
+    // Seconds to wait for running exchanges when the server stops
+    private static final int STOP_DELAY = 1;
+
     private HttpServer httpServer;
-    private final ConfigurationService config;
-    private final RequestProcessor requestProcessor;
+    private ConfigurationService config;
+    private RequestProcessor requestProcessor;
+    private List<ReflectionEntry> reflectionEntries;
+    private DependencyInjector injector;
 
     long start = System.nanoTime();
 
     /**
      * Private constructor
      *
-     * @throws IOException if the configuration file cannot be found or read
+     * Startup runs as a {@link Bootstrap} graph: the configuration and the
+     * reflection configuration load in parallel, then the socket is bound while
+     * the resource overlay is set up, static assets are indexed, templates are
+     * compiled and components are created. Finally synthetic requests warm up
+     * the hot paths. The server accepts requests once everything is ready.
+     *
+     * @param mainClass the application class, next to which the reflection
+     *                  configuration is read
+     * @throws IllegalStateException if a startup task fails
      */
-    private Server() {
-        this.config = ConfigurationService.getInstance();
-        this.requestProcessor = new RequestProcessor(); 
-        new DependencyInjector(requestProcessor);
+    private Server(Class<?> mainClass) {
+        new Bootstrap()
+                .task("config", this::loadConfig)
+                .task("reflection", () -> reflectionEntries = new ReflectionConfigParser().getReflectionEntries(mainClass))
+                .task("socket", this::bind, "config")
+                .task("overlay", this::overlayResources, "config")
+                .task("assets", () -> requestProcessor = new RequestProcessor(new StaticResourceHandler()), "overlay")
+                .task("templates", this::preloadTemplates, "overlay")
+                .task("components", () -> injector = new DependencyInjector(requestProcessor, reflectionEntries),
+                        "reflection", "assets")
+                .task("warmup", this::warmup, "templates", "components")
+                .run();
 
         start();
     }
 
+    /**
+     * Starts the application whose class annotated with {@link WebApplication}
+     * is found on the stack of the calling thread. Prefer
+     * {@link #run(Class)}, which needs no stack walk.
+     *
+     * @return the started server
+     * @throws IllegalStateException if no annotated class calls this method or
+     *                               a startup task fails
+     */
     public static Server run() {
-        return new Server();
+        Class<?> mainClass = ClassFinder.findClassByAnnotation(WebApplication.class);
+        if (mainClass == null) {
+            throw new IllegalStateException(
+                    "No class annotated with @WebApplication on the stack, pass it to Server.run(Class)");
+        }
+        return new Server(mainClass);
     }
 
-    public HttpServer start() {
-        int port = config.getInt("server.port");
+    /**
+     * Starts an application.
+     *
+     * @param mainClass the application class, usually the one with the main
+     *                  method
+     * @return the started server
+     * @throws IllegalStateException if a startup task fails
+     */
+    public static Server run(Class<?> mainClass) {
+        if (mainClass == null) {
+            throw new IllegalArgumentException("The application class is required");
+        }
+        return new Server(mainClass);
+    }
 
-        try {
-            httpServer = HttpServer.create(new InetSocketAddress(port), 0);
-            logger.log(Level.INFO, "HttpServer created on port {0}", port);
-        } catch (IOException e) {
-            logger.log(Level.SEVERE, "Error during start server", e);
+    public HttpServer start() {
+        if (httpServer == null) {
+            bind();
         }
+        int port = httpServer.getAddress().getPort();
 
         // Create a single handler for all routes
         httpServer.createContext("/", exchange -> requestProcessor.handleRequest(exchange));
         // httpServer.setExecutor(Executors.newCachedThreadPool());
         httpServer.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
         httpServer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::stop, "shutdown"));
 
         long end = System.nanoTime();
         long elapsedMs = (end - start) / 1_000_000;
@@ -59,4 +123,83 @@ public class Server {
 
         return httpServer;
     }
+
+    /**
+     * Stops accepting requests, waits a moment for running exchanges and
+     * destroys the components.
+     */
+    public void stop() {
+        logger.info("Stopping server");
+        if (httpServer != null) {
+            httpServer.stop(STOP_DELAY);
+        }
+        if (injector != null) {
+            injector.close();
+        }
+    }
+
+    /**
+     * Binds the socket without accepting requests yet.
+     */
+    private void bind() {
+        int port = config.bind(ServerProperties.class).port();
+
+        try {
+            httpServer = HttpServer.create(new InetSocketAddress(port), 0);
+            logger.log(Level.INFO, "HttpServer created on port {0}", port);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error during start server on port " + port, e);
+        }
+    }
+
+    /**
+     * Loads the configuration and keeps it current: edits of the user
+     * configuration are applied without a restart.
+     */
+    private void loadConfig() throws IOException {
+        config = ConfigurationService.getInstance();
+        // Fails the startup if a section is malformed, and rejects reloads that break it
+        config.bind(ServerProperties.class);
+        config.bind(StaticProperties.class);
+        // The configuration itself is read through the cache, so its size is applied afterwards
+        applyCacheSize(config.bind(ResourcesProperties.class));
+        config.addListener((_, current, changedKeys) -> {
+            if (changedKeys.contains("resources.cacheSize")) {
+                applyCacheSize(current.bind(ResourcesProperties.class));
+            }
+        });
+        config.watchUserConfig(CONFIG_DEBOUNCE);
+    }
+
+    private static void applyCacheSize(ResourcesProperties properties) {
+        ResourceService.setCacheCapacity(properties.cacheSize());
+    }
+
+    /**
+     * Reads resources from the directory configured as
+     * <code>resources.overlay</code> before the classpath, reloading files as
+     * they change.
+     */
+    private void overlayResources() throws IOException {
+        Optional<Path> directory = config.bind(ResourcesProperties.class).overlayDirectory();
+        if (directory.isEmpty()) {
+            return;
+        }
+        var resourceService = ResourceService.getInstance();
+        resourceService.setOverlay(directory.get());
+        resourceService.watchOverlay(OVERLAY_DEBOUNCE);
+    }
+
+    /**
+     * Sends the synthetic requests of the <code>warmup</code> section while the
+     * socket is bound but not accepting yet.
+     */
+    private void warmup() {
+        new WarmupRunner(requestProcessor, injector).run(config.bind(WarmupProperties.class));
+    }
+
+    private void preloadTemplates() throws IOException {
+        int count = ResourceService.getInstance().preloadTemplates(TEMPLATES_DIRECTORY);
+        logger.log(Level.INFO, "Compiled {0} templates", count);
+    }
 }
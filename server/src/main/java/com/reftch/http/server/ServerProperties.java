@@ -0,0 +1,21 @@
+package com.reftch.http.server;
+
+import com.reftch.annotation.ConfigProperties;
+import com.reftch.annotation.DefaultValue;
+
+/**
+ * The <code>server</code> section of the configuration.
+ *
+ * @param port         the port to listen on, 0 for any free port
+ * @param isProduction whether bundled assets are served instead of the dev
+ *                     server's
+ */
+@ConfigProperties("server")
+public record ServerProperties(@DefaultValue("8080") int port, @DefaultValue("true") boolean isProduction) {
+
+    public ServerProperties {
+        if (port < 0 || port > 65535) {
+            throw new IllegalArgumentException("Port out of range: " + port);
+        }
+    }
+}
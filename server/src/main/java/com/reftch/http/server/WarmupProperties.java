@@ -0,0 +1,33 @@
+package com.reftch.http.server;
+
+import java.net.URI;
+import java.util.List;
+
+import com.reftch.annotation.ConfigProperties;
+import com.reftch.annotation.DefaultValue;
+
+/**
+ * The <code>warmup</code> section of the configuration.
+ *
+ * @param iterations how often each path is requested and each
+ *                   {@link com.reftch.annotation.Warmup} method is called
+ *                   before the server accepts requests, 0 disables the warmup
+ * @param paths      the paths requested with <code>GET</code>, each starting
+ *                   with a slash and optionally with a query
+ */
+@ConfigProperties("warmup")
+public record WarmupProperties(@DefaultValue("0") int iterations, List<String> paths) {
+
+    public WarmupProperties {
+        if (iterations < 0) {
+            throw new IllegalArgumentException("Negative warmup iterations: " + iterations);
+        }
+        for (var path : paths) {
+            if (!path.startsWith("/")) {
+                throw new IllegalArgumentException("Warmup path does not start with a slash: " + path);
+            }
+            // Rejects characters that are not allowed in a request target
+            URI.create(path);
+        }
+    }
+}
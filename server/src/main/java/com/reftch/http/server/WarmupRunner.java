@@ -0,0 +1,95 @@
+package com.reftch.http.server;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.reftch.http.server.handler.RequestProcessor;
+
+/**
+ * Exercises the hot paths before the server accepts requests, so the first
+ * real requests after a deploy do not pay for class loading, template
+ * compilation, render caches and the JIT compiler.
+ *
+ * <p>
+ * Each iteration sends a synthetic <code>GET</code> request for every
+ * configured path through the {@link RequestProcessor} and calls the
+ * {@link com.reftch.annotation.Warmup} methods of the components. A path
+ * answered with an error status, or a failing warmup method, is logged and
+ * left out of the remaining iterations; the warmup never fails the startup.
+ * </p>
+ */
+final class WarmupRunner {
+
+    private static final Logger logger = Logger.getLogger(WarmupRunner.class.getName());
+
+    private final RequestProcessor requestProcessor;
+    private final DependencyInjector injector;
+
+    WarmupRunner(RequestProcessor requestProcessor, DependencyInjector injector) {
+        this.requestProcessor = requestProcessor;
+        this.injector = injector;
+    }
+
+    /**
+     * Runs the warmup.
+     *
+     * @param properties The number of iterations and the paths to request.
+     * @return The number of requests sent.
+     */
+    int run(WarmupProperties properties) {
+        if (properties.iterations() == 0) {
+            return 0;
+        }
+
+        long start = System.nanoTime();
+        var paths = new ArrayList<>(properties.paths());
+        boolean hooks = true;
+        int requests = 0;
+
+        for (int i = 0; i < properties.iterations(); i++) {
+            for (var iterator = paths.iterator(); iterator.hasNext();) {
+                var path = iterator.next();
+                requests++;
+                if (!request(path)) {
+                    iterator.remove();
+                }
+            }
+            if (hooks) {
+                try {
+                    injector.warmup();
+                } catch (RuntimeException e) {
+                    logger.log(Level.WARNING, "Warmup method failed, skipping warmup methods", e);
+                    hooks = false;
+                }
+            }
+        }
+
+        logger.log(Level.INFO, "Warmed up with {0} requests and {1} iterations in {2} ms", new Object[] {
+                requests, properties.iterations(), (System.nanoTime() - start) / 1_000_000 });
+        return requests;
+    }
+
+    /**
+     * Sends one synthetic request.
+     *
+     * @return False if the request failed.
+     */
+    private boolean request(String path) {
+        var exchange = new SyntheticExchange("GET", URI.create(path));
+        try {
+            requestProcessor.handleRequest(exchange);
+        } catch (IOException | RuntimeException e) {
+            logger.log(Level.WARNING, "Warmup request GET " + path + " failed, skipping it", e);
+            return false;
+        }
+        if (exchange.getResponseCode() >= 400) {
+            logger.log(Level.WARNING, "Warmup request GET {0} answered {1}, skipping it",
+                    new Object[] { path, exchange.getResponseCode() });
+            return false;
+        }
+        return true;
+    }
+}
@@ -13,9 +13,22 @@ import com.sun.net.httpserver.HttpExchange;
 
 public class RequestProcessor {
 
-    private StaticResourceHandler staticHandler = new StaticResourceHandler();
+    private final StaticResourceHandler staticHandler;
     private List<RouteHandler> routeHandlers = new ArrayList<>();
 
+    public RequestProcessor() {
+        this(new StaticResourceHandler());
+    }
+
+    /**
+     * Creates a processor serving static resources through the given handler.
+     * 
+     * @param staticHandler the handler for <code>/static</code> paths
+     */
+    public RequestProcessor(StaticResourceHandler staticHandler) {
+        this.staticHandler = staticHandler;
+    }
+
     public List<RouteHandler> getRouteHandlers() {
         return routeHandlers;
     }
@@ -38,6 +51,7 @@ public class RequestProcessor {
         // Find matching route
         RouteHandler handler = findMatchingRoute(method, path);
         if (handler != null) {
+            Object body;
             try {
                 // Prepare parameters for method call
                 Map<String, Object> pathParams = new HashMap<>();
@@ -53,14 +67,17 @@ public class RequestProcessor {
                 }
 
                 // Call controller method
-                Object result = callControllerMethod(handler, pathParams, exchange);
-
-                // Send response
-                sendResponse(exchange, result);
+                body = toBody(callControllerMethod(handler, pathParams, exchange));
             } catch (Exception e) {
                 exchange.sendResponseHeaders(500, 0);
-                exchange.getResponseBody().write(("Internal Server Error: " + e.getMessage()).getBytes());
+                try (OutputStream os = exchange.getResponseBody()) {
+                    os.write(("Internal Server Error: " + e.getMessage()).getBytes());
+                }
+                return;
             }
+
+            // Send response; once the headers are sent a failure can no longer become a 500
+            sendResponse(exchange, body);
         } else {
             // Handle 404
             String response = "<html><body><h1>404 - Not Found</h1></body></html>";
@@ -107,22 +124,45 @@ public class RequestProcessor {
         return handler.method.invoke(handler.controller, params);
     }
 
-    // Send response to client
-    private void sendResponse(HttpExchange exchange, Object result) throws IOException {
-        String response;
-
+    // Convert the result of a controller method to a streaming body or bytes
+    private Object toBody(Object result) {
         if (result == null) {
-            response = "";
+            return new byte[0];
+        } else if (result instanceof StreamingBody || result instanceof byte[]) {
+            // Streamed, or pre-encoded and written as is
+            return result;
         } else if (result instanceof String) {
-            response = (String) result;
+            return ((String) result).getBytes();
         } else {
             // Convert to JSON or other format
-            response = result.toString();
+            return result.toString().getBytes();
+        }
+    }
+
+    /**
+     * Sends the response to the client. A failure after the headers are sent is
+     * thrown without closing the body stream, which would end a chunked
+     * response like a complete one; the server then drops the connection, so
+     * the client sees a failed response instead of a truncated successful one.
+     */
+    private void sendResponse(HttpExchange exchange, Object body) throws IOException {
+        if (body instanceof StreamingBody streamingBody) {
+            // Length unknown up front, send chunked
+            exchange.sendResponseHeaders(200, 0);
+            OutputStream os = exchange.getResponseBody();
+            try {
+                streamingBody.writeTo(os);
+            } catch (RuntimeException e) {
+                throw new IOException("Failed to stream the response body", e);
+            }
+            os.close();
+            return;
         }
 
-        exchange.sendResponseHeaders(200, response.getBytes().length);
+        byte[] response = (byte[]) body;
+        exchange.sendResponseHeaders(200, response.length);
         try (OutputStream os = exchange.getResponseBody()) {
-            os.write(response.getBytes());
+            os.write(response);
         }
     }
 
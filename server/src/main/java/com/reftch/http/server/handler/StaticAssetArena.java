@@ -0,0 +1,194 @@
+package com.reftch.http.server.handler;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.reftch.utilities.ResourceService;
+
+/**
+ * Off-heap storage for the static assets packaged with the application.
+ *
+ * All files below the classpath directory <code>static/</code> are packed
+ * back to back into a single {@link MemorySegment} allocated from a shared
+ * {@link Arena}. The index is a sorted array of paths with a parallel array of
+ * offsets, so the heap footprint stays the same no matter how large the
+ * assets are, and the garbage collector never scans their content.
+ *
+ * Enabled with <code>static.storage: offheap</code>.
+ */
+public final class StaticAssetArena implements AutoCloseable {
+
+    private static final Logger logger = Logger.getLogger(StaticAssetArena.class.getName());
+
+    private static final String STATIC_DIRECTORY = "static";
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private final Arena arena;
+    private final MemorySegment segment;
+
+    // Sorted resource paths relative to static/, offsets[i + 1] ends entry i
+    private final String[] paths;
+    private final long[] offsets;
+
+    private StaticAssetArena(Arena arena, MemorySegment segment, String[] paths, long[] offsets) {
+        this.arena = arena;
+        this.segment = segment;
+        this.paths = paths;
+        this.offsets = offsets;
+    }
+
+    /**
+     * Packs all static assets from the classpath into a new arena.
+     *
+     * @param resourceService the service used to enumerate classpath resources
+     * @return the loaded arena
+     * @throws IOException if the assets cannot be listed or read
+     */
+    public static StaticAssetArena load(ResourceService resourceService) throws IOException {
+        return load(resourceService.listResources(STATIC_DIRECTORY));
+    }
+
+    /**
+     * Packs the given static assets into a new arena.
+     *
+     * @param resources the classpath locations of the assets, all below
+     *                  <code>static/</code> and sorted
+     * @return the loaded arena
+     * @throws IOException if an asset cannot be read or changes while it is
+     *                     packed
+     */
+    public static StaticAssetArena load(List<String> resources) throws IOException {
+        return load(resources, StaticAssetArena.class.getClassLoader());
+    }
+
+    static StaticAssetArena load(List<String> resources, ClassLoader classLoader) throws IOException {
+        // Phase 1: collect sizes to allocate the segment once
+        String[] paths = new String[resources.size()];
+        long[] offsets = new long[resources.size() + 1];
+        for (int i = 0; i < resources.size(); i++) {
+            String resource = resources.get(i);
+            paths[i] = resource.substring(STATIC_DIRECTORY.length() + 1);
+            offsets[i + 1] = offsets[i] + sizeOf(classLoader, resource);
+        }
+
+        // Phase 2: stream every file into its slot through a small reusable buffer
+        Arena arena = Arena.ofShared();
+        try {
+            MemorySegment segment = arena.allocate(Math.max(1, offsets[paths.length]), 8);
+            byte[] buffer = new byte[COPY_BUFFER_SIZE];
+            for (int i = 0; i < paths.length; i++) {
+                String resource = resources.get(i);
+                try (InputStream is = classLoader.getResourceAsStream(resource)) {
+                    if (is == null) {
+                        throw new IOException("Static asset disappeared: " + resource);
+                    }
+                    // Never read past the slot, it ends where the next asset starts
+                    long position = offsets[i];
+                    int read;
+                    while (position < offsets[i + 1] && (read = is.read(buffer, 0,
+                            (int) Math.min(buffer.length, offsets[i + 1] - position))) != -1) {
+                        MemorySegment.copy(buffer, 0, segment, ValueLayout.JAVA_BYTE, position, read);
+                        position += read;
+                    }
+                    if (position < offsets[i + 1] || is.read() != -1) {
+                        throw new IOException("Static asset changed while loading: " + resource + " is no longer "
+                                + (offsets[i + 1] - offsets[i]) + " bytes");
+                    }
+                }
+            }
+
+            logger.log(Level.INFO, "Packed {0} static assets into {1} bytes off-heap",
+                    new Object[] { paths.length, offsets[paths.length] });
+            return new StaticAssetArena(arena, segment, paths, offsets);
+        } catch (IOException | RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+    }
+
+    private static long sizeOf(ClassLoader classLoader, String resource) throws IOException {
+        URL url = classLoader.getResource(resource);
+        if (url == null) {
+            throw new IOException("Static asset disappeared: " + resource);
+        }
+
+        // File and jar connections know the size without reading the content
+        long size = url.openConnection().getContentLengthLong();
+        if (size >= 0) {
+            return size;
+        }
+        try (InputStream is = url.openStream()) {
+            return is.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+
+    /**
+     * Checks whether an asset is stored in the arena.
+     *
+     * @param resourcePath the path relative to <code>static/</code>
+     * @return true if the asset exists
+     */
+    public boolean contains(String resourcePath) {
+        return Arrays.binarySearch(paths, resourcePath) >= 0;
+    }
+
+    /**
+     * Returns the size of an asset.
+     *
+     * @param resourcePath the path relative to <code>static/</code>
+     * @return the size in bytes, or -1 if the asset does not exist
+     */
+    public long size(String resourcePath) {
+        int index = Arrays.binarySearch(paths, resourcePath);
+        return index < 0 ? -1 : offsets[index + 1] - offsets[index];
+    }
+
+    /**
+     * Writes an asset straight from the off-heap segment to the stream.
+     *
+     * @param resourcePath the path relative to <code>static/</code>
+     * @param os           the target stream
+     * @throws IOException if the asset does not exist or the write fails
+     */
+    public void writeTo(String resourcePath, OutputStream os) throws IOException {
+        int index = Arrays.binarySearch(paths, resourcePath);
+        if (index < 0) {
+            throw new IOException("Static asset not found: " + resourcePath);
+        }
+
+        ByteBuffer buffer = segment.asSlice(offsets[index], offsets[index + 1] - offsets[index]).asByteBuffer();
+        WritableByteChannel channel = Channels.newChannel(os);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Gets the number of stored assets.
+     *
+     * @return the asset count
+     */
+    public int assetCount() {
+        return paths.length;
+    }
+
+    /**
+     * Releases the off-heap memory.
+     */
+    @Override
+    public void close() {
+        arena.close();
+    }
+}
@@ -0,0 +1,245 @@
+package com.reftch.http.server.handler;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Build-time index of the static assets packaged with the application.
+ *
+ * The manifest is written by the <code>generateStaticManifest</code> Gradle
+ * task to <code>META-INF/static-manifest.bin</code>. It lists every file below
+ * <code>static/</code> with its size, content type, SHA-256 hash and
+ * pre-compressed variants, so {@link StaticResourceHandler} can answer unknown
+ * paths without probing the classpath.
+ *
+ * <p>
+ * Binary layout (big endian, strings in modified UTF-8):
+ * </p>
+ *
+ * <pre>
+ * int    magic 'STMF'
+ * short  version
+ * int    entry count
+ * entry: utf path, long size, utf content type, byte[32] sha-256,
+ *        byte variant count, utf encoding...
+ * </pre>
+ */
+public final class StaticAssetManifest {
+
+    private static final Logger logger = Logger.getLogger(StaticAssetManifest.class.getName());
+
+    public static final String LOCATION = "META-INF/static-manifest.bin";
+
+    static final int MAGIC = 0x53544d46;
+    static final int VERSION = 1;
+
+    private static final int HASH_LENGTH = 32;
+    private static final Map<String, String> ENCODING_SUFFIXES = Map.of("br", ".br", "gzip", ".gz");
+
+    /**
+     * A packaged asset.
+     *
+     * @param path        the path relative to <code>static/</code>
+     * @param size        the size in bytes
+     * @param contentType the content type header value
+     * @param sha256      the SHA-256 hash of the content
+     * @param encodings   the content codings of pre-compressed variants, stored
+     *                    next to the asset with the suffix of the coding
+     */
+    public record Entry(String path, long size, String contentType, byte[] sha256, List<String> encodings) {
+
+        /**
+         * Returns a strong entity tag derived from the content hash.
+         *
+         * @return the quoted entity tag of the identity variant
+         */
+        public String etag() {
+            return etag(null);
+        }
+
+        /**
+         * Returns the strong entity tag of a variant. Each content coding is a
+         * representation of its own, so its tag carries the coding.
+         *
+         * @param encoding the content coding, or null for the identity variant
+         * @return the quoted entity tag
+         */
+        public String etag(String encoding) {
+            var hash = HexFormat.of().formatHex(sha256, 0, 16);
+            return "\"" + (encoding == null ? hash : hash + "-" + encoding) + "\"";
+        }
+
+        /**
+         * Picks the variant with the highest quality the client accepts. Codings
+         * with <code>q=0</code> are refused; on equal qualities the order of the
+         * variants decides.
+         *
+         * @param acceptEncoding the <code>Accept-Encoding</code> request header, may
+         *                       be null
+         * @return the content coding to serve, or null for the identity variant
+         */
+        public String preferredEncoding(String acceptEncoding) {
+            if (acceptEncoding == null || encodings.isEmpty()) {
+                return null;
+            }
+            Map<String, Double> qualities = parseQualities(acceptEncoding);
+            double wildcard = qualities.getOrDefault("*", 0.0);
+            String preferred = null;
+            double best = 0;
+            for (String encoding : encodings) {
+                double quality = qualities.getOrDefault(encoding, wildcard);
+                if (quality > best) {
+                    preferred = encoding;
+                    best = quality;
+                }
+            }
+            return preferred;
+        }
+    }
+
+    /**
+     * Parses the codings of an <code>Accept-Encoding</code> header with their
+     * qualities. A malformed quality counts as 0.
+     */
+    private static Map<String, Double> parseQualities(String acceptEncoding) {
+        Map<String, Double> qualities = new HashMap<>();
+        for (String part : acceptEncoding.split(",")) {
+            var fields = part.split(";");
+            var coding = fields[0].trim().toLowerCase(Locale.ROOT);
+            double quality = 1;
+            for (int i = 1; i < fields.length; i++) {
+                var parameter = fields[i].trim();
+                if (parameter.startsWith("q=")) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2));
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            if (!coding.isEmpty()) {
+                qualities.put(coding, quality);
+            }
+        }
+        return qualities;
+    }
+
+    private final Map<String, Entry> entries;
+
+    private StaticAssetManifest(Map<String, Entry> entries) {
+        this.entries = entries;
+    }
+
+    /**
+     * Loads the manifest from the classpath.
+     *
+     * @param classLoader the class loader to read the manifest with
+     * @return the manifest, or null if the application was built without one or
+     *         it cannot be read
+     */
+    public static StaticAssetManifest load(ClassLoader classLoader) {
+        try (InputStream is = classLoader.getResourceAsStream(LOCATION)) {
+            if (is == null) {
+                return null;
+            }
+            long start = System.nanoTime();
+            StaticAssetManifest manifest = read(is);
+            logger.log(Level.INFO, "Indexed {0} static assets in {1} us",
+                    new Object[] { manifest.entries.size(), (System.nanoTime() - start) / 1_000 });
+            return manifest;
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Failed to read " + LOCATION + ", probing the classpath instead", e);
+            return null;
+        }
+    }
+
+    /**
+     * Reads a manifest from a stream.
+     *
+     * @param is the stream positioned at the start of the manifest
+     * @return the manifest
+     * @throws IOException if the stream is not a valid manifest
+     */
+    static StaticAssetManifest read(InputStream is) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(is));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a static asset manifest");
+        }
+        int version = in.readUnsignedShort();
+        if (version != VERSION) {
+            throw new IOException("Unsupported static asset manifest version: " + version);
+        }
+
+        int count = in.readInt();
+        Map<String, Entry> entries = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            String path = in.readUTF();
+            long size = in.readLong();
+            String contentType = in.readUTF();
+            byte[] sha256 = in.readNBytes(HASH_LENGTH);
+            int variantCount = in.readUnsignedByte();
+            List<String> encodings = new ArrayList<>(variantCount);
+            for (int v = 0; v < variantCount; v++) {
+                encodings.add(in.readUTF());
+            }
+            entries.put(path, new Entry(path, size, contentType, sha256, List.copyOf(encodings)));
+        }
+        return new StaticAssetManifest(entries);
+    }
+
+    /**
+     * Looks up an asset.
+     *
+     * @param resourcePath the path relative to <code>static/</code>
+     * @return the entry, or null if no such asset was packaged
+     */
+    public Entry get(String resourcePath) {
+        return entries.get(resourcePath);
+    }
+
+    /**
+     * Lists the classpath locations of all assets and their variants.
+     *
+     * @return the classpath-relative paths, sorted
+     */
+    public List<String> resources() {
+        List<String> resources = new ArrayList<>();
+        for (Entry entry : entries.values()) {
+            resources.add("static/" + entry.path());
+            for (String encoding : entry.encodings()) {
+                resources.add("static/" + entry.path() + suffix(encoding));
+            }
+        }
+        resources.sort(null);
+        return resources;
+    }
+
+    /**
+     * Returns the file suffix of a pre-compressed variant.
+     *
+     * @param encoding the content coding, e.g. <code>gzip</code>
+     * @return the suffix, e.g. <code>.gz</code>
+     */
+    public static String suffix(String encoding) {
+        return ENCODING_SUFFIXES.getOrDefault(encoding, "." + encoding);
+    }
+
+    /**
+     * Gets the number of indexed assets.
+     *
+     * @return the asset count
+     */
+    public int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,118 @@
+package com.reftch.http.server.handler;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.reftch.config.ConfigurationService;
+
+/**
+ * Maps a URL prefix below <code>/static</code> to a directory on the
+ * filesystem.
+ *
+ * Mounts are configured in <code>application.yaml</code>:
+ *
+ * <pre>
+ * static:
+ *   mounts:
+ *     media: /srv/mortgage/media
+ * </pre>
+ *
+ * With the configuration above a request for
+ * <code>/static/media/video.mp4</code> is served from
+ * <code>/srv/mortgage/media/video.mp4</code>.
+ *
+ * @param prefix the first path segment after <code>/static/</code>
+ * @param root   the normalized, absolute root directory of the mount
+ */
+public record StaticMount(String prefix, Path root) {
+
+    private static final Logger logger = Logger.getLogger(StaticMount.class.getName());
+
+    public StaticMount {
+        prefix = prefix.replaceAll("^/+|/+$", "");
+        root = realPath(root.toAbsolutePath().normalize());
+    }
+
+    /**
+     * Reads all mounts from the configuration. Entries with an empty directory
+     * are skipped so that a mount can be disabled through an unset environment
+     * variable.
+     *
+     * @param config the configuration service
+     * @return the configured mounts, longest prefix first
+     */
+    public static List<StaticMount> fromConfig(ConfigurationService config) {
+        var mounts = new ArrayList<StaticMount>();
+        for (Map.Entry<String, String> entry : config.bind(StaticProperties.class).mounts().entrySet()) {
+            if (entry.getValue().isBlank()) {
+                continue;
+            }
+            var mount = new StaticMount(entry.getKey(), Paths.get(entry.getValue()));
+            logger.log(Level.INFO, "Mounting /static/{0} -> {1}", new Object[] { mount.prefix(), mount.root() });
+            mounts.add(mount);
+        }
+        mounts.sort(Comparator.comparingInt((StaticMount m) -> m.prefix().length()).reversed());
+        return mounts;
+    }
+
+    /**
+     * Checks whether the resource path (relative to <code>/static/</code>)
+     * belongs to this mount.
+     *
+     * @param resourcePath the resource path without the <code>/static/</code>
+     *                     prefix
+     * @return true if the path is handled by this mount
+     */
+    public boolean matches(String resourcePath) {
+        return resourcePath.equals(prefix) || resourcePath.startsWith(prefix + "/");
+    }
+
+    /**
+     * Resolves the resource path to a regular, readable file inside the mount
+     * root.
+     *
+     * The relative part is normalized before it is resolved and the result, as
+     * well as its real path (following symbolic links), must stay inside the
+     * root directory. Any attempt to escape the root yields an empty result.
+     *
+     * @param resourcePath the resource path without the <code>/static/</code>
+     *                     prefix
+     * @return the file to serve, or empty if it does not exist or lies outside
+     *         the mount
+     */
+    public Optional<Path> resolve(String resourcePath) {
+        if (!matches(resourcePath) || resourcePath.indexOf('\0') != -1 || resourcePath.indexOf('\\') != -1) {
+            return Optional.empty();
+        }
+
+        var relative = resourcePath.substring(prefix.length()).replaceAll("^/+", "");
+        var file = root.resolve(relative).normalize();
+        if (!file.startsWith(root) || !Files.isRegularFile(file) || !Files.isReadable(file)) {
+            return Optional.empty();
+        }
+
+        try {
+            return file.toRealPath().startsWith(root) ? Optional.of(file) : Optional.empty();
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static Path realPath(Path path) {
+        try {
+            return path.toRealPath();
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Static mount directory does not exist: {0}", path);
+            return path;
+        }
+    }
+}
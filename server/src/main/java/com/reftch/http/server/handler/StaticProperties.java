@@ -0,0 +1,27 @@
+package com.reftch.http.server.handler;
+
+import java.util.Map;
+
+import com.reftch.annotation.ConfigProperties;
+import com.reftch.annotation.DefaultValue;
+
+/**
+ * The <code>static</code> section of the configuration.
+ *
+ * @param storage where packaged assets are read from
+ * @param mounts  the directories of {@link StaticMount}s by URL prefix, an
+ *                empty directory disables the mount
+ */
+@ConfigProperties("static")
+public record StaticProperties(@DefaultValue("classpath") Storage storage, Map<String, String> mounts) {
+
+    /**
+     * Storage of the packaged assets.
+     */
+    public enum Storage {
+        /** Assets are read from the classpath per request */
+        CLASSPATH,
+        /** Assets are packed into a {@link StaticAssetArena} at startup */
+        OFFHEAP
+    }
+}
@@ -1,25 +1,95 @@
 package com.reftch.http.server.handler;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
-import java.net.URISyntaxException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
+import com.reftch.config.ConfigurationService;
+import com.reftch.utilities.Resource;
+import com.reftch.utilities.ResourceService;
 import com.sun.net.httpserver.HttpExchange;
 
 /**
  * Handles static resource serving for HTTP requests.
  * Provides functionality to serve files from classpath resources with proper
  * content type detection, caching headers, and error handling.
+ * 
+ * Prefixes configured as {@link StaticMount}s are served from the filesystem
+ * instead, streaming the file straight from a {@link FileChannel} without
+ * copying it onto the heap. With <code>static.storage: offheap</code> the
+ * packaged assets are served from a {@link StaticAssetArena}. Files in the
+ * overlay directory of the {@link ResourceService} take precedence over all
+ * packaged assets.
+ * 
+ * When the application ships a {@link StaticAssetManifest}, it is the index of
+ * all packaged assets: unknown paths are rejected without touching the
+ * classpath, and known ones get an entity tag and their pre-compressed
+ * variants.
  */
 public class StaticResourceHandler {
 
+    private static final Logger logger = Logger.getLogger(StaticResourceHandler.class.getName());
+
     private static final Map<String, String> contentTypeMap = initializeContentTypeMap();
 
+    private final List<StaticMount> mounts;
+    private final StaticAssetManifest manifest;
+    private final StaticAssetArena assetArena;
+    private final ResourceService resourceService = ResourceService.getInstance();
+
+    public StaticResourceHandler() {
+        this(ConfigurationService.getInstance(), StaticAssetManifest.load(StaticResourceHandler.class.getClassLoader()));
+    }
+
+    private StaticResourceHandler(ConfigurationService config, StaticAssetManifest manifest) {
+        this(StaticMount.fromConfig(config), manifest, loadAssetArena(config, manifest));
+    }
+
+    public StaticResourceHandler(List<StaticMount> mounts) {
+        this(mounts, null, null);
+    }
+
+    /**
+     * Creates a handler with explicit storage backends.
+     * 
+     * @param mounts     the filesystem mounts, checked first
+     * @param manifest   the index of packaged assets, or null to probe the
+     *                   classpath for every request
+     * @param assetArena the off-heap asset storage, or null to read assets from
+     *                   the classpath on every request
+     */
+    public StaticResourceHandler(List<StaticMount> mounts, StaticAssetManifest manifest,
+            StaticAssetArena assetArena) {
+        this.mounts = List.copyOf(mounts);
+        this.manifest = manifest;
+        this.assetArena = assetArena;
+    }
+
+    private static StaticAssetArena loadAssetArena(ConfigurationService config, StaticAssetManifest manifest) {
+        if (config.bind(StaticProperties.class).storage() != StaticProperties.Storage.OFFHEAP) {
+            return null;
+        }
+        try {
+            return manifest != null
+                    ? StaticAssetArena.load(manifest.resources())
+                    : StaticAssetArena.load(ResourceService.getInstance());
+        } catch (IOException | RuntimeException e) {
+            logger.log(Level.WARNING, "Failed to pack static assets off-heap, serving from classpath", e);
+            return null;
+        }
+    }
+
     /**
      * Handles requests for static resources by serving files from the classpath.
      * 
@@ -38,26 +108,116 @@ public class StaticResourceHandler {
 
         String contentType = determineContentType(resourcePath);
 
-        // Try to load the file from classpath (e.g., resources/static/)
-        String resourceLocation = "/static/" + resourcePath;
-        InputStream inputStream = getResourceStream(resourceLocation);
+        // Mounted prefixes are served from the filesystem only
+        for (StaticMount mount : mounts) {
+            if (mount.matches(resourcePath)) {
+                Optional<Path> file = mount.resolve(resourcePath);
+                if (file.isPresent()) {
+                    sendFileResponse(exchange, file.get(), contentType);
+                } else {
+                    sendNotFoundResponse(exchange);
+                }
+                return;
+            }
+        }
+
+        // Files of the overlay replace packaged assets as they are edited
+        Optional<Path> overlaid = resourceService.getOverlayFile("static/" + resourcePath);
+        if (overlaid.isPresent()) {
+            sendFileResponse(exchange, overlaid.get(), contentType);
+            return;
+        }
 
-        try {
-            if (inputStream == null) {
-                // File not found
+        // The manifest lists every packaged asset, so a miss is a 404
+        if (manifest != null) {
+            StaticAssetManifest.Entry asset = manifest.get(resourcePath);
+            if (asset == null) {
                 sendNotFoundResponse(exchange);
                 return;
             }
 
-            byte[] response = readResourceContent(inputStream);
-            sendSuccessfulResponse(exchange, response, contentType, resourcePath);
+            contentType = asset.contentType();
+            // The variant is chosen first, so its tag and Vary are part of a 304 as well
+            String encoding = null;
+            if (!asset.encodings().isEmpty()) {
+                exchange.getResponseHeaders().set("Vary", "Accept-Encoding");
+                encoding = asset.preferredEncoding(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+            }
+            String etag = asset.etag(encoding);
+            exchange.getResponseHeaders().set("ETag", etag);
+            if (matchesEntityTag(exchange.getRequestHeaders().getFirst("If-None-Match"), etag)) {
+                sendNotModifiedResponse(exchange);
+                return;
+            }
 
-        } catch (IOException | URISyntaxException e) {
+            if (encoding != null) {
+                exchange.getResponseHeaders().set("Content-Encoding", encoding);
+                resourcePath = resourcePath + StaticAssetManifest.suffix(encoding);
+            }
+        }
 
-            throw new IOException("Error reading resource: " + resourcePath, e);
-        } finally {
-            closeInputStream(inputStream);
+        // The arena holds every packaged asset, so a miss is a 404
+        if (assetArena != null) {
+            if (assetArena.contains(resourcePath)) {
+                sendArenaResponse(exchange, resourcePath, contentType);
+            } else {
+                sendNotFoundResponse(exchange);
+            }
+            return;
+        }
+
+        // Load the file from classpath (e.g., resources/static/), read once and cached as bytes
+        Resource resource;
+        try {
+            resource = resourceService.getResource("static/" + resourcePath);
+        } catch (IllegalArgumentException e) {
+            sendNotFoundResponse(exchange);
+            return;
+        } catch (UncheckedIOException e) {
+            throw new IOException("Error reading resource: " + resourcePath, e.getCause());
+        }
+        sendSuccessfulResponse(exchange, resource.bytes(), contentType);
+    }
+
+    /**
+     * Checks an <code>If-None-Match</code> header against an entity tag. The
+     * header is a list of entity tags or <code>*</code>; tags are compared
+     * weakly, ignoring a <code>W/</code> prefix.
+     * 
+     * @param ifNoneMatch the header value, may be null
+     * @param etag        the quoted strong entity tag of the response
+     * @return true if the header lists the tag or is <code>*</code>
+     */
+    static boolean matchesEntityTag(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        int position = 0;
+        int length = ifNoneMatch.length();
+        while (position < length) {
+            char c = ifNoneMatch.charAt(position);
+            if (c == ',' || Character.isWhitespace(c)) {
+                position++;
+            } else if (c == '*') {
+                return true;
+            } else {
+                if (ifNoneMatch.startsWith("W/", position)) {
+                    position += 2;
+                }
+                // Commas are allowed inside the quotes of a tag
+                int end = position < length && ifNoneMatch.charAt(position) == '"'
+                        ? ifNoneMatch.indexOf('"', position + 1)
+                        : -1;
+                if (end == -1) {
+                    return false;
+                }
+                if (ifNoneMatch.substring(position, end + 1).equals(etag)) {
+                    return true;
+                }
+                position = end + 1;
+            }
         }
+        return false;
     }
 
     /**
@@ -81,35 +241,6 @@ public class StaticResourceHandler {
         return contentType != null ? contentType : "application/octet-stream";
     }
 
-    /**
-     * Retrieves an input stream for the specified resource location.
-     * 
-     * @param resourceLocation the full resource path including leading slash
-     * @return InputStream for the resource, or null if not found
-     */
-    private InputStream getResourceStream(String resourceLocation) {
-        return getClass().getResourceAsStream(resourceLocation);
-    }
-
-    /**
-     * Reads the complete content of a resource into a byte array.
-     * 
-     * @param inputStream the input stream to read from
-     * @return byte array containing the complete resource content
-     * @throws IOException if there's an error reading the stream
-     */
-    private byte[] readResourceContent(InputStream inputStream) throws IOException {
-        byte[] buffer = new byte[1024];
-        int bytesRead;
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-
-        while ((bytesRead = inputStream.read(buffer)) != -1) {
-            outputStream.write(buffer, 0, bytesRead);
-        }
-
-        return outputStream.toByteArray();
-    }
-
     /**
      * Sends a 404 Not Found response to the client.
      * 
@@ -126,43 +257,97 @@ public class StaticResourceHandler {
     }
 
     /**
-     * Sends a successful response with the resource content.
+     * Sends a 304 Not Modified response without a body.
      * 
-     * @param exchange     the HTTP exchange object
-     * @param response     the byte array containing the resource content
-     * @param contentType  the content type header value
-     * @param resourcePath the path of the resource for metadata retrieval
-     * @throws IOException        if there's an error sending the response
-     * @throws URISyntaxException if there's an issue with the resource URI
+     * @param exchange the HTTP exchange object
+     * @throws IOException if there's an error sending the response
      */
-    private void sendSuccessfulResponse(HttpExchange exchange, byte[] response, String contentType, String resourcePath)
-            throws IOException, URISyntaxException {
+    private void sendNotModifiedResponse(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().set("Cache-Control", "public, max-age=3600");
+        exchange.sendResponseHeaders(304, -1);
+        exchange.close();
+    }
+
+    /**
+     * Sends a successful response with the resource content, writing the cached
+     * array without copying it.
+     * 
+     * @param exchange    the HTTP exchange object
+     * @param response    the byte array containing the resource content
+     * @param contentType the content type header value
+     * @throws IOException if there's an error sending the response
+     */
+    private void sendSuccessfulResponse(HttpExchange exchange, byte[] response, String contentType)
+            throws IOException {
         exchange.getResponseHeaders().set("Content-Type", contentType);
 
         // Set cache control header
         exchange.getResponseHeaders().set("Cache-Control", "public, max-age=3600");
 
-        // Send response
-        exchange.sendResponseHeaders(200, response.length);
-        exchange.getResponseBody().write(response);
-        exchange.getResponseBody().close();
+        // Send response; a length of 0 would switch the exchange to chunked encoding
+        exchange.sendResponseHeaders(200, response.length == 0 ? -1 : response.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(response);
+        }
     }
 
     /**
-     * Closes the input stream safely, logging any errors.
+     * Sends a file from a static mount, transferring it from the file channel to
+     * the response body in chunks instead of reading it into a byte array.
      * 
-     * @param inputStream the input stream to close
+     * @param exchange    the HTTP exchange object
+     * @param file        the resolved file inside the mount root
+     * @param contentType the content type header value
+     * @throws IOException if there's an error reading the file or sending the
+     *                     response, or the file is truncated while it is sent
      */
-    private void closeInputStream(InputStream inputStream) {
-        if (inputStream != null) {
-            try {
-                inputStream.close();
-            } catch (IOException e) {
-                System.err.println("Error closing resource stream for: " + inputStream);
+    private void sendFileResponse(HttpExchange exchange, Path file, String contentType) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+
+            exchange.getResponseHeaders().set("Content-Type", contentType);
+            exchange.getResponseHeaders().set("Cache-Control", "public, max-age=3600");
+
+            // A length of 0 would switch the exchange to chunked encoding
+            exchange.sendResponseHeaders(200, size == 0 ? -1 : size);
+
+            try (OutputStream os = exchange.getResponseBody();
+                    WritableByteChannel target = Channels.newChannel(os)) {
+                long position = 0;
+                while (position < size) {
+                    long transferred = channel.transferTo(position, size - position, target);
+                    // A file truncated after its length was sent would return 0 forever
+                    if (transferred == 0 && position >= channel.size()) {
+                        throw new IOException("File truncated while sending at " + position + " of " + size
+                                + " bytes: " + file);
+                    }
+                    position += transferred;
+                }
             }
         }
     }
 
+    /**
+     * Sends an asset from the off-heap arena.
+     * 
+     * @param exchange     the HTTP exchange object
+     * @param resourcePath the path of the asset relative to <code>static/</code>
+     * @param contentType  the content type header value
+     * @throws IOException if there's an error sending the response
+     */
+    private void sendArenaResponse(HttpExchange exchange, String resourcePath, String contentType)
+            throws IOException {
+        long size = assetArena.size(resourcePath);
+
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.getResponseHeaders().set("Cache-Control", "public, max-age=3600");
+        exchange.sendResponseHeaders(200, size == 0 ? -1 : size);
+
+        try (OutputStream os = exchange.getResponseBody()) {
+            assetArena.writeTo(resourcePath, os);
+        }
+    }
+
     /**
      * Gets the content type for a given file extension.
      * 
@@ -0,0 +1,31 @@
+package com.reftch.http.server.handler;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A response body written directly to the client.
+ *
+ * Controller methods return a streaming body when the response should not be
+ * built in memory first, e.g. a rendered template:
+ *
+ * <pre>
+ * &#64;Route(path = "/report")
+ * public StreamingBody report() {
+ *     return out -&gt; template.renderTo(values, out);
+ * }
+ * </pre>
+ *
+ * The response is sent with chunked transfer encoding.
+ */
+@FunctionalInterface
+public interface StreamingBody {
+
+    /**
+     * Writes the body.
+     *
+     * @param out the response body stream; it is closed by the caller
+     * @throws IOException if writing fails
+     */
+    void writeTo(OutputStream out) throws IOException;
+}
@@ -1,83 +1,58 @@
 package com.reftch.utilities;
 
+import java.lang.StackWalker.StackFrame;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Optional;
 
 /**
  * Utility class for finding and analyzing Java classes.
  * Provides functionality to detect main classes from the calling context
  * and analyze class information.
+ * 
+ * The stack is read with a {@link StackWalker} retaining the class of each
+ * frame, so no class is loaded by name and frames are only materialized as far
+ * as the search goes.
  */
 public class ClassFinder {
-    
+
+    private static final StackWalker walker = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+
     /**
-     * Attempts to find the main class by analyzing the current thread's stack trace.
-     * This method searches through the call stack to identify a class that contains
-     * a main method, which is typically the entry point of the application.
+     * Attempts to find the main class by analyzing the current thread's stack.
+     * This method searches through the call stack to identify the outermost class
+     * that contains a main method, which is typically the entry point of the
+     * application.
      *
      * @return the Class object representing the main class, or null if no main class
-     *         can be determined from the current stack trace
-     * @throws SecurityException if security manager denies access to class loading
+     *         can be determined from the current stack
      */
     public static Class<?> findMainClass() {
-        // Try to detect main class based on calling context stack trace
-        StackTraceElement[] stack = Thread.currentThread().getStackTrace();
-        
-        // Iterate through the stack trace from newest to oldest
-        for (int i = stack.length - 1; i >= 0; i--) {
-            try {
-                String className = stack[i].getClassName();
-                Class<?> clazz = Class.forName(className);
-                
-                // Check if this class has a main method
-                Method mainMethod = findMainMethod(clazz);
-                if (mainMethod != null) {
-                    return clazz;
-                }
-            } catch (ClassNotFoundException e) {
-                // Ignore classes that cannot be loaded and continue searching
-                // This is expected for system classes in the stack trace
-            } catch (SecurityException e) {
-                // Security restrictions prevent class loading - continue searching
-                // This can happen in restricted environments
-            }
-        }
-        
-        // If no main class found in the stack trace, return null
-        return null;
+        // The entry point is the outermost frame, so the whole stack is walked
+        return walker.walk(frames -> frames
+                .map(StackFrame::getDeclaringClass)
+                .filter(clazz -> findMainMethod(clazz) != null)
+                .reduce((inner, outer) -> outer))
+                .orElse(null);
     }
 
+    /**
+     * Finds the innermost class on the current thread's stack carrying an
+     * annotation, stopping at the first match.
+     *
+     * @param annotationClass the annotation to look for, retained at runtime
+     * @return the annotated class, or null if no frame of the stack belongs to
+     *         one
+     */
     public static Class<?> findClassByAnnotation(Class<? extends Annotation> annotationClass) {
-        // Try to detect main class based on calling context stack trace
-        StackTraceElement[] stack = Thread.currentThread().getStackTrace();
-
-        // Iterate through the stack trace from newest to oldest
-        for (int i = stack.length - 1; i >= 0; i--) {
-            try {
-                String className = stack[i].getClassName();
-                // System.out.println("Class name :" + className);
-                // System.out.println("Clazz name :" + stack[i]);
-                Class<?> clazz = Class.forName(className);
-                // System.out.println("Clazz :" + clazz.getCanonicalName());
-                // System.out.println("Is annotated: " + clazz.isAnnotationPresent(annotationClass));
-
-                if (clazz.isAnnotationPresent(annotationClass)) {
-                    return clazz;
-                }
-
-            } catch (ClassNotFoundException e) {
-                // Ignore classes that cannot be loaded and continue searching
-                // This is expected for system classes in the stack trace
-            } catch (SecurityException e) {
-                // Security restrictions prevent class loading - continue searching
-                // This can happen in restricted environments
-            }
-        }
-
-        // If no main class found in the stack trace, return null
-        return null;
+        Optional<Class<?>> found = walker.walk(frames -> frames
+                .<Class<?>>map(StackFrame::getDeclaringClass)
+                .filter(clazz -> clazz.isAnnotationPresent(annotationClass))
+                .findFirst());
+        return found.orElse(null);
     }
-    
+
     /**
      * Helper method to find the main method in a given class.
      * The main method must have the signature: public static void main(String[] args)
@@ -96,7 +71,7 @@ public class ClassFinder {
             return null;
         }
     }
-        
+
     /**
      * Gets detailed information about the main class detection process.
      * This method can be useful for debugging or logging purposes to understand
@@ -107,18 +82,19 @@ public class ClassFinder {
     public static String getMainClassSearchInfo() {
         StringBuilder info = new StringBuilder();
         info.append("Main class search initiated at: ").append(System.currentTimeMillis()).append("\n");
-        
-        StackTraceElement[] stack = Thread.currentThread().getStackTrace();
-        info.append("Stack trace contains ").append(stack.length).append(" elements\n");
-        
+
+        // Skips the frame of this method
+        List<StackFrame> stack = walker.walk(frames -> frames.skip(1).toList());
+        info.append("Stack trace contains ").append(stack.size()).append(" elements\n");
+
         // Log the first few elements for debugging
-        int logCount = Math.min(5, stack.length);
+        int logCount = Math.min(5, stack.size());
         info.append("First ").append(logCount).append(" stack elements:\n");
-        
+
         for (int i = 0; i < logCount; i++) {
-            info.append("  ").append(i).append(": ").append(stack[i].toString()).append("\n");
+            info.append("  ").append(i).append(": ").append(stack.get(i)).append("\n");
         }
-        
+
         return info.toString();
     }
 }
@@ -0,0 +1,211 @@
+package com.reftch.utilities;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Watches a directory and reports changed files in batches.
+ *
+ * <p>
+ * Editors and build tools touch a file several times when saving it, and often
+ * many files at once. Events are therefore collected until the directory has
+ * been quiet for the debounce interval and then passed to the listener as one
+ * set of paths relative to the watched directory. Directories created below a
+ * recursively watched directory are watched as well.
+ * </p>
+ *
+ * <p>
+ * When the platform drops events because too many arrived at once, the batch
+ * contains {@link #ALL}: anything below the directory may have changed.
+ * </p>
+ *
+ * <pre>
+ * var watcher = new FileWatcher(Path.of("src/main/resources"), true, Duration.ofMillis(50),
+ *         paths -> paths.forEach(path -> ResourceService.removeFromCache(path.toString())));
+ * watcher.start();
+ * </pre>
+ */
+public final class FileWatcher implements Closeable {
+
+    private static final Logger logger = Logger.getLogger(FileWatcher.class.getName());
+
+    /**
+     * The empty path, i.e. the watched directory itself, reported when events
+     * were lost and listeners have to rescan everything.
+     */
+    public static final Path ALL = Path.of("");
+
+    // How many debounce intervals a batch may collect for at most
+    private static final int MAX_DELAY_FACTOR = 10;
+
+    private final Path directory;
+    private final boolean recursive;
+    private final Duration debounce;
+    private final Consumer<Set<Path>> listener;
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> directories = new HashMap<>();
+    private final Thread thread;
+
+    /**
+     * Creates a watcher without starting it.
+     *
+     * @param directory The directory to watch.
+     * @param recursive Whether to watch all directories below it as well.
+     * @param debounce  How long the directory must be quiet before changes are
+     *                  reported. Changes are reported after ten times this
+     *                  at the latest, even if the directory never gets quiet.
+     * @param listener  Receives the changed paths, relative to the directory.
+     * @throws IOException              If the directory cannot be watched.
+     * @throws IllegalArgumentException If the path is not a directory.
+     */
+    public FileWatcher(Path directory, boolean recursive, Duration debounce, Consumer<Set<Path>> listener)
+            throws IOException {
+        if (!Files.isDirectory(directory)) {
+            throw new IllegalArgumentException("Not a directory: " + directory);
+        }
+        this.directory = directory.toAbsolutePath().normalize();
+        this.recursive = recursive;
+        this.debounce = debounce;
+        this.listener = listener;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        register(this.directory);
+
+        this.thread = new Thread(this::watch, "file-watcher-" + this.directory.getFileName());
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * Starts reporting changes on a daemon thread.
+     *
+     * @return This watcher.
+     */
+    public FileWatcher start() {
+        thread.start();
+        logger.log(Level.INFO, "Watching {0}", directory);
+        return this;
+    }
+
+    /**
+     * Gets the watched directory.
+     *
+     * @return The absolute, normalized directory.
+     */
+    public Path directory() {
+        return directory;
+    }
+
+    /**
+     * Stops watching. Changes not yet reported are dropped.
+     */
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+        thread.interrupt();
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                var changed = new LinkedHashSet<Path>();
+                collect(watchService.take(), changed);
+
+                // Keep collecting until nothing happened for a whole interval, or the
+                // batch is due
+                long deadline = System.nanoTime() + debounce.toNanos() * MAX_DELAY_FACTOR;
+                long remaining;
+                WatchKey key;
+                while ((remaining = deadline - System.nanoTime()) > 0
+                        && (key = watchService.poll(Math.min(debounce.toNanos(), remaining),
+                                TimeUnit.NANOSECONDS)) != null) {
+                    collect(key, changed);
+                }
+
+                if (!changed.isEmpty()) {
+                    try {
+                        listener.accept(Set.copyOf(changed));
+                    } catch (RuntimeException e) {
+                        logger.log(Level.WARNING, "Failed to handle changes in " + directory, e);
+                    }
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Closed
+        }
+    }
+
+    private void collect(WatchKey key, Set<Path> changed) {
+        var parent = directories.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                logger.log(Level.WARNING, "Lost change events in {0}, reporting all files", directory);
+                changed.add(ALL);
+                if (recursive && parent != null) {
+                    // Directories created meanwhile may be among the lost events
+                    try {
+                        register(parent);
+                    } catch (IOException e) {
+                        logger.log(Level.WARNING, "Failed to watch " + parent, e);
+                    }
+                }
+                continue;
+            }
+            if (parent == null) {
+                continue;
+            }
+            var path = parent.resolve((Path) event.context());
+            if (recursive && event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+                // Files copied in with the directory raise no events of their own. Watching
+                // before walking reports files created meanwhile at least once, the set
+                // drops those seen both ways
+                try {
+                    register(path);
+                    try (Stream<Path> files = Files.walk(path)) {
+                        files.forEach(file -> changed.add(directory.relativize(file)));
+                    }
+                } catch (IOException e) {
+                    logger.log(Level.WARNING, "Failed to watch " + path, e);
+                }
+            }
+            changed.add(directory.relativize(path));
+        }
+        if (!key.reset()) {
+            directories.remove(key);
+        }
+    }
+
+    private void register(Path root) throws IOException {
+        if (!recursive) {
+            watch(root);
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : (Iterable<Path>) paths.filter(Files::isDirectory)::iterator) {
+                watch(path);
+            }
+        }
+    }
+
+    private void watch(Path path) throws IOException {
+        var key = path.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        directories.put(key, path);
+    }
+}
@@ -0,0 +1,140 @@
+package com.reftch.utilities;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Chooses the locale of a response from the <code>Accept-Language</code>
+ * request header.
+ *
+ * <p>
+ * The language ranges that select each supported locale are computed once: a
+ * locale <code>de-CH</code> is chosen for <code>de-CH</code> and, unless a
+ * plain <code>de</code> is supported, for any other <code>de</code> range.
+ * Negotiating a header is then a few map lookups in order of preference, and
+ * the result for each distinct header, of which browsers send only a handful,
+ * is remembered.
+ * </p>
+ */
+public class LocaleNegotiator {
+
+    // Bounds the remembered headers, which are client controlled
+    private static final int MAX_CACHED_HEADERS = 256;
+
+    private final List<Locale> supported;
+    private final Locale defaultLocale;
+    private final Map<String, Locale> ranges = new HashMap<>();
+    private final Map<String, Locale> headers = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a negotiator.
+     *
+     * @param supported     The locales responses are available in
+     * @param defaultLocale The locale used if none of the accepted languages is
+     *                      supported
+     * @throws IllegalArgumentException If the default locale is not supported
+     */
+    public LocaleNegotiator(List<Locale> supported, Locale defaultLocale) {
+        if (!supported.contains(defaultLocale)) {
+            throw new IllegalArgumentException(
+                    "Default locale " + defaultLocale.toLanguageTag() + " is not one of " + supported);
+        }
+        this.supported = List.copyOf(supported);
+        this.defaultLocale = defaultLocale;
+
+        for (Locale locale : supported) {
+            ranges.put(locale.toLanguageTag().toLowerCase(Locale.ROOT), locale);
+        }
+        for (Locale locale : supported) {
+            // The first supported variant of a language serves all its ranges
+            ranges.putIfAbsent(locale.getLanguage(), locale);
+        }
+    }
+
+    /**
+     * Chooses the supported locale best matching an <code>Accept-Language</code>
+     * header.
+     *
+     * @param acceptLanguage The header value, may be null
+     * @return The negotiated locale, or the default locale
+     */
+    public Locale negotiate(String acceptLanguage) {
+        if (acceptLanguage == null || acceptLanguage.isBlank()) {
+            return defaultLocale;
+        }
+        var locale = headers.get(acceptLanguage);
+        if (locale == null) {
+            locale = match(acceptLanguage);
+            if (headers.size() < MAX_CACHED_HEADERS) {
+                headers.put(acceptLanguage, locale);
+            }
+        }
+        return locale;
+    }
+
+    /**
+     * Gets the supported locales.
+     *
+     * @return The locales
+     */
+    public List<Locale> getSupported() {
+        return supported;
+    }
+
+    /**
+     * Gets the default locale.
+     *
+     * @return The locale used if no accepted language is supported
+     */
+    public Locale getDefault() {
+        return defaultLocale;
+    }
+
+    private Locale match(String acceptLanguage) {
+        record Range(String tag, double quality, int index) {
+        }
+
+        var accepted = new ArrayList<Range>();
+        var parts = acceptLanguage.split(",");
+        for (int i = 0; i < parts.length; i++) {
+            var fields = parts[i].split(";");
+            var tag = fields[0].trim().toLowerCase(Locale.ROOT);
+            double quality = 1;
+            for (int j = 1; j < fields.length; j++) {
+                var parameter = fields[j].trim();
+                if (parameter.startsWith("q=")) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2));
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            if (!tag.isEmpty() && quality > 0) {
+                accepted.add(new Range(tag, quality, i));
+            }
+        }
+        // Stable for equal qualities, keeping the order of the header
+        accepted.sort((a, b) -> a.quality() != b.quality() ? Double.compare(b.quality(), a.quality())
+                : Integer.compare(a.index(), b.index()));
+
+        for (Range range : accepted) {
+            if (range.tag().equals("*")) {
+                return defaultLocale;
+            }
+            var locale = ranges.get(range.tag());
+            if (locale == null) {
+                int dash = range.tag().indexOf('-');
+                locale = dash == -1 ? null : ranges.get(range.tag().substring(0, dash));
+            }
+            if (locale != null) {
+                return locale;
+            }
+        }
+        return defaultLocale;
+    }
+}
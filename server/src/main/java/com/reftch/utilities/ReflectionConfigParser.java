@@ -16,9 +16,19 @@ public class ReflectionConfigParser {
     private static final Logger logger = Logger.getLogger(ReflectionConfigParser.class.getName());
      
     public List<ReflectionEntry> getReflectionEntries() {
+        return getReflectionEntries(ClassFinder.findClassByAnnotation(WebApplication.class));
+    }
+
+    /**
+     * Reads the reflection configuration next to the application class. Used
+     * off the main thread, where the application class is not on the stack.
+     * 
+     * @param mainClass the class annotated with {@link WebApplication}
+     * @return the entries, empty if the configuration is missing or invalid
+     */
+    public List<ReflectionEntry> getReflectionEntries(Class<?> mainClass) {
         var entries = new ArrayList<ReflectionEntry>();
 
-        Class<?> mainClass = ClassFinder.findClassByAnnotation(WebApplication.class);
         String json = readJsonFile(mainClass);
 
         if (json == null || !isValidJsonArray(json)) {
@@ -0,0 +1,79 @@
+package com.reftch.utilities;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A resource file held by {@link ResourceService}.
+ * 
+ * The content is kept as its UTF-8 bytes, which can be written to a response
+ * as is. The text view is decoded on demand. Only {@link ResourceCache#getText}
+ * keeps it, counting it in the weight of the cache entry, so callers reading a
+ * cached resource as text share one string.
+ */
+public final class Resource {
+
+    private final String path;
+    private final byte[] bytes;
+    private volatile String text;
+
+    /**
+     * Creates a resource from its bytes.
+     * 
+     * @param path  The path relative to the classpath
+     * @param bytes The UTF-8 content; not copied, so it must not be modified
+     */
+    public Resource(String path, byte[] bytes) {
+        this.path = path;
+        this.bytes = bytes;
+    }
+
+    /**
+     * Gets the path of the resource.
+     * 
+     * @return The path relative to the classpath
+     */
+    public String path() {
+        return path;
+    }
+
+    /**
+     * Gets the content as bytes.
+     * 
+     * @return The UTF-8 content; shared, so it must not be modified
+     */
+    public byte[] bytes() {
+        return bytes;
+    }
+
+    /**
+     * Gets the content as text.
+     * 
+     * @return The kept text, or a newly decoded one if none is kept
+     */
+    public String text() {
+        var decoded = text;
+        return decoded != null ? decoded : new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decodes the text and keeps it.
+     * 
+     * @return True if this call decoded it, false if it was already kept
+     */
+    synchronized boolean keepText() {
+        if (text != null) {
+            return false;
+        }
+        text = new String(bytes, StandardCharsets.UTF_8);
+        return true;
+    }
+
+    /**
+     * Gets the size of the content.
+     * 
+     * @return The number of bytes
+     */
+    public int size() {
+        return bytes.length;
+    }
+}
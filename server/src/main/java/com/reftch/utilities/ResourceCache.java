@@ -0,0 +1,212 @@
+package com.reftch.utilities;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A cache of {@link Resource}s by path, bounded by the total size of their
+ * content.
+ * 
+ * Entries are weighted by their number of bytes, plus as much again once their
+ * text is kept by {@link #getText}. When a new entry pushes the
+ * total over the capacity, the least recently used entries are evicted until
+ * it fits again; a resource larger than the whole capacity is returned but not
+ * kept. Hits, misses and evictions are counted for {@link #stats()}.
+ * 
+ * A resource is loaded outside the lock. Removing its path while it loads
+ * cancels the load, so a removal is never undone by bytes read before it.
+ */
+public final class ResourceCache {
+
+    /**
+     * A snapshot of the cache counters.
+     * 
+     * @param hits      Lookups served from the cache
+     * @param misses    Lookups that loaded the resource
+     * @param evictions Entries dropped to stay within the capacity
+     * @param size      The current number of entries
+     * @param weight    The current total size of the entries in bytes
+     * @param capacity  The maximum total size in bytes
+     */
+    public record Stats(long hits, long misses, long evictions, int size, long weight, long capacity) {
+
+        /**
+         * Gets the share of lookups served from the cache.
+         * 
+         * @return The hit ratio between 0 and 1, or 0 before the first lookup
+         */
+        public double hitRatio() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+    }
+
+    // A cached resource and the weight it was charged
+    private static final class Entry {
+        final Resource resource;
+        long weight;
+
+        Entry(Resource resource) {
+            this.resource = resource;
+            this.weight = resource.size();
+        }
+    }
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    // Loads in flight by path, a load is kept only while its token is still there
+    private final Map<String, Object> loading = new HashMap<>();
+    private long capacity;
+    private long weight;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Creates an empty cache.
+     * 
+     * @param capacity The maximum total size in bytes
+     * @throws IllegalArgumentException If the capacity is negative
+     */
+    public ResourceCache(long capacity) {
+        setCapacity(capacity);
+    }
+
+    /**
+     * Gets a resource, loading it on a miss.
+     * 
+     * The resource is loaded outside the lock, so concurrent misses for the same
+     * path may both load it; only the last one started is kept. A load that
+     * overlapped a {@link #remove(String)} of the path is returned but not kept.
+     * 
+     * @param path   The path of the resource
+     * @param loader Loads the resource
+     * @return The cached or newly loaded resource
+     */
+    public Resource get(String path, Function<String, Resource> loader) {
+        var token = new Object();
+        synchronized (this) {
+            var entry = entries.get(path);
+            if (entry != null) {
+                hits++;
+                return entry.resource;
+            }
+            misses++;
+            loading.put(path, token);
+        }
+
+        Resource resource;
+        try {
+            resource = loader.apply(path);
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                loading.remove(path, token);
+            }
+            throw e;
+        }
+        put(path, resource, token);
+        return resource;
+    }
+
+    /**
+     * Gets a resource as text, loading it on a miss. The text of a cached
+     * resource is decoded once and kept, weighing as much as its bytes.
+     * 
+     * @param path   The path of the resource
+     * @param loader Loads the resource
+     * @return The text of the cached or newly loaded resource
+     */
+    public String getText(String path, Function<String, Resource> loader) {
+        var resource = get(path, loader);
+        if (resource.keepText()) {
+            synchronized (this) {
+                var entry = entries.get(path);
+                if (entry != null && entry.resource == resource) {
+                    entry.weight += resource.size();
+                    weight += resource.size();
+                    evict();
+                }
+            }
+        }
+        return resource.text();
+    }
+
+    private synchronized void put(String path, Resource resource, Object token) {
+        if (!loading.remove(path, token) || resource.size() > capacity) {
+            return;
+        }
+        var previous = entries.put(path, new Entry(resource));
+        if (previous != null) {
+            weight -= previous.weight;
+        }
+        weight += resource.size();
+        evict();
+    }
+
+    /**
+     * Removes a resource.
+     * 
+     * @param path The path of the resource
+     * @return True if the resource was cached
+     */
+    public synchronized boolean remove(String path) {
+        loading.remove(path);
+        var removed = entries.remove(path);
+        if (removed != null) {
+            weight -= removed.weight;
+        }
+        return removed != null;
+    }
+
+    /**
+     * Removes all resources. The counters are kept.
+     */
+    public synchronized void clear() {
+        loading.clear();
+        entries.clear();
+        weight = 0;
+    }
+
+    /**
+     * Changes the capacity, evicting entries if it shrinks.
+     * 
+     * @param capacity The maximum total size in bytes
+     * @throws IllegalArgumentException If the capacity is negative
+     */
+    public synchronized void setCapacity(long capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Invalid resource cache capacity: " + capacity);
+        }
+        this.capacity = capacity;
+        evict();
+    }
+
+    /**
+     * Gets the number of cached resources.
+     * 
+     * @return The number of entries
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Gets the current counters.
+     * 
+     * @return The statistics
+     */
+    public synchronized Stats stats() {
+        return new Stats(hits, misses, evictions, entries.size(), weight, capacity);
+    }
+
+    private void evict() {
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (weight > capacity && eldest.hasNext()) {
+            weight -= eldest.next().weight;
+            eldest.remove();
+            evictions++;
+        }
+    }
+}
@@ -1,24 +1,67 @@
 package com.reftch.utilities;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystemAlreadyExistsException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
 
-import com.reftch.html.parser.HtmlTemplateParser;
+import com.reftch.html.parser.Messages;
+import com.reftch.html.parser.PrecompiledTemplates;
+import com.reftch.html.parser.Template;
 
 /**
  * Utility class for reading resource files from the classpath.
  * This service provides methods to load and read file contents that are
  * packaged within the application.
+ * 
+ * <p>
+ * A filesystem directory can be overlaid on the classpath with
+ * {@link #setOverlay(Path)}: files in it replace the packaged files of the
+ * same path, and with {@link #watchOverlay(Duration)} edits take effect
+ * without a restart.
+ * </p>
  */
 public class ResourceService {
 
-    // Cache to store previously loaded file contents
-    private static final ConcurrentHashMap<String, String> fileCache = new ConcurrentHashMap<>();
-    private final String fileCachePrefix = getClass().getName();
+    private static final Logger logger = Logger.getLogger(ResourceService.class.getName());
+
+    // Default for resources.cacheSize, the total bytes of cached file contents
+    static final long DEFAULT_CACHE_CAPACITY = 32L * 1024 * 1024;
+
+    // Cache of loaded file contents by path, bounded by their size
+    private static final ResourceCache fileCache = new ResourceCache(DEFAULT_CACHE_CAPACITY);
+    // Cache of compiled templates by file path
+    private static final ConcurrentHashMap<String, Template> templateCache = new ConcurrentHashMap<>();
+    // Notified with the paths of reloaded files
+    private static final List<Consumer<Set<String>>> changeListeners = new CopyOnWriteArrayList<>();
+
+    // Directory whose files take precedence over the classpath, or null
+    private static volatile Path overlay;
+    private static FileWatcher overlayWatcher;
 
     private static volatile ResourceService instance;
 
@@ -59,46 +102,420 @@ public class ResourceService {
      * 
      * @note The file must be located in the classpath (e.g., src/main/resources)
      * @note The method automatically handles UTF-8 encoding
-     * @note The returned string includes newlines at the end of each line
+     * @note The content is returned exactly as stored, line endings included
      */
     public String getFileContent(String filePath) {
-        // Create a cache key based on class and file path
-        var cacheKey = fileCachePrefix + "::" + filePath;
+        return fileCache.getText(filePath, this::loadResource);
+    }
+
+    /**
+     * Gets a file from the classpath with both its bytes and its text, loading
+     * and caching it on first use. The file is read once into a single array,
+     * which responses can write as is; the text is decoded only when asked for.
+     * 
+     * @param filePath The path to the resource file relative to the classpath
+     * @return The resource
+     * @throws IllegalArgumentException If the specified file is not found in the
+     *                                  classpath
+     */
+    public Resource getResource(String filePath) {
+        return fileCache.get(filePath, this::loadResource);
+    }
+
+    private Resource loadResource(String filePath) {
+        var file = getOverlayFile(filePath);
+        if (file.isPresent()) {
+            try {
+                return new Resource(filePath, Files.readAllBytes(file.get()));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read file: " + file.get(), e);
+            }
+        }
+
+        try (var inputStream = getClass().getClassLoader().getResourceAsStream(filePath)) {
+            if (inputStream == null) {
+                throw new IllegalArgumentException("File not found: " + filePath);
+            }
+            // The bytes are kept as read; text is only decoded for callers asking for it
+            return new Resource(filePath, inputStream.readAllBytes());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read file: " + filePath, e);
+        }
+    }
 
-        // Check if content is already cached
-        var cachedContent = fileCache.get(cacheKey);
-        if (cachedContent != null) {
-            return cachedContent;
+    /**
+     * Renders a template file from the classpath.
+     * 
+     * @param filePath The path to the template relative to the classpath
+     * @param values   The values to substitute, null for none
+     * @return The rendered template
+     * @throws IllegalArgumentException If the file is not found or is not a
+     *                                  valid template
+     */
+    public String getFileContent(String filePath, Map<String, ?> values) {
+        return getTemplate(filePath).render(values != null ? values : Map.of());
+    }
+
+    /**
+     * Renders a template file from the classpath as UTF-8 straight to a stream.
+     * Returned from a handler as a {@code StreamingBody}, an
+     * <code>{{#each}}</code> over a stream reaches the client row by row.
+     * 
+     * @param filePath The path to the template relative to the classpath
+     * @param values   The values to substitute, null for none
+     * @param out      The stream to write to; it is not closed
+     * @throws IOException              If writing fails
+     * @throws IllegalArgumentException If the file is not found or is not a
+     *                                  valid template
+     */
+    public void renderTo(String filePath, Map<String, ?> values, OutputStream out) throws IOException {
+        getTemplate(filePath).renderTo(values != null ? values : Map.of(), out);
+    }
+
+    /**
+     * Gets the compiled template for a file from the classpath, compiling it on
+     * first use. Partials and layouts are resolved as classpath paths, e.g.
+     * <code>{{> views/partials/head.html}}</code>. Templates compiled to Java at
+     * build time are used as is, without reading or parsing the source, unless
+     * an overlay is set, in which case every template is compiled from its
+     * current source.
+     * 
+     * @param filePath The path to the template relative to the classpath
+     * @return The compiled template
+     * @throws IllegalArgumentException If the file is not found or is not a
+     *                                  valid template
+     */
+    public Template getTemplate(String filePath) {
+        var template = templateCache.get(filePath);
+        if (template == null) {
+            template = templateCache.computeIfAbsent(filePath, path -> {
+                var precompiled = overlay == null ? PrecompiledTemplates.get(path) : null;
+                return precompiled != null ? Template.of(precompiled)
+                        : Template.compile(getFileContent(path), this::getFileContent);
+            });
         }
+        return template;
+    }
 
-        // Load file content if not cached
-        var inputStream = getClass().getClassLoader().getResourceAsStream(filePath);
-        if (inputStream == null) {
-            throw new IllegalArgumentException("File not found: " + filePath);
+    /**
+     * Gets the variant of a template for a locale, with its
+     * <code>{{#msg key}}</code> messages taken from the bundle of that locale,
+     * e.g. <code>i18n/messages_de.properties</code>. Variants are compiled and
+     * cached like templates, so a localized page costs nothing extra per
+     * render.
+     * 
+     * @param filePath The path to the template relative to the classpath
+     * @param locale   The locale of the messages
+     * @return The compiled template
+     * @throws IllegalArgumentException If the file or the bundle is not found,
+     *                                  or the template is not valid
+     */
+    public Template getTemplate(String filePath, Locale locale) {
+        var variant = PrecompiledTemplates.variant(filePath, locale);
+        var template = templateCache.get(variant);
+        if (template == null) {
+            template = templateCache.computeIfAbsent(variant, _ -> {
+                if (overlay != null) {
+                    return Template.compile(getFileContent(filePath), this::getFileContent,
+                            getMessages(locale)::get);
+                }
+                var precompiled = PrecompiledTemplates.get(filePath, locale);
+                if (precompiled == null) {
+                    // Templates without messages are precompiled once for all locales
+                    precompiled = PrecompiledTemplates.get(filePath);
+                }
+                return precompiled != null ? Template.of(precompiled)
+                        : Template.compile(getFileContent(filePath), this::getFileContent, getMessages(locale)::get);
+            });
         }
+        return template;
+    }
 
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
-            var stringBuilder = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                stringBuilder.append(line).append("\n");
+    /**
+     * Compiles all templates below a classpath directory ahead of the first
+     * request, in every locale that has a message bundle. A template that
+     * fails to compile is logged and left to fail when it is used.
+     * 
+     * @param directory The classpath directory, e.g. <code>views</code>
+     * @return The number of compiled template variants
+     * @throws IOException If the directory cannot be walked
+     */
+    public int preloadTemplates(String directory) throws IOException {
+        var locales = getLocales();
+        int count = 0;
+        for (String path : listResources(directory)) {
+            if (!path.endsWith(".html")) {
+                continue;
+            }
+            try {
+                if (locales.isEmpty()) {
+                    getTemplate(path);
+                    count++;
+                }
+                for (Locale locale : locales) {
+                    getTemplate(path, locale);
+                    count++;
+                }
+            } catch (IllegalArgumentException e) {
+                logger.log(Level.WARNING, "Failed to preload template " + path, e);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Reads the message bundle of a locale.
+     * 
+     * @param locale The locale
+     * @return The messages by key
+     * @throws IllegalArgumentException If there is no bundle for the locale
+     */
+    public Map<String, String> getMessages(Locale locale) {
+        return Messages.parse(getFileContent(Messages.path(locale)));
+    }
+
+    /**
+     * Lists the locales that have a message bundle on the classpath.
+     * 
+     * @return The locales, sorted by language tag
+     * @throws IOException If the bundle directory cannot be walked
+     */
+    public List<Locale> getLocales() throws IOException {
+        var locales = new ArrayList<Locale>();
+        for (String path : listResources(Messages.DIRECTORY)) {
+            var locale = Messages.locale(path);
+            if (locale != null) {
+                locales.add(locale);
             }
+        }
+        locales.sort(Comparator.comparing(Locale::toLanguageTag));
+        return locales;
+    }
 
-            var content = stringBuilder.toString();
-            
-            // Cache the loaded content
-            fileCache.put(cacheKey, content);
-            return content;
+    /**
+     * Lists all files below a classpath directory.
+     * 
+     * Works for exploded directories, jar files and the <code>resource:</code>
+     * file system of a GraalVM native image. Files of the overlay are listed as
+     * well.
+     * 
+     * @param directory The classpath directory, e.g. <code>static</code>
+     * @return The classpath-relative paths of all regular files, sorted, or an
+     *         empty list if the directory does not exist
+     * @throws IOException If the directory cannot be walked
+     */
+    public List<String> listResources(String directory) throws IOException {
+        var files = new TreeSet<String>();
+        var overlayRoot = overlay;
+        if (overlayRoot != null && Files.isDirectory(overlayRoot.resolve(directory))) {
+            walk(overlayRoot.resolve(directory), directory, files);
+        }
+
+        URL url = getClass().getClassLoader().getResource(directory);
+        if (url == null) {
+            return List.copyOf(files);
+        }
+
+        try {
+            URI uri = url.toURI();
+            Path root = switch (uri.getScheme()) {
+                case "file" -> Paths.get(uri);
+                case "jar" -> getFileSystem(uri).getPath(directory);
+                default -> getFileSystem(URI.create(uri.getScheme() + ":/")).getPath(directory);
+            };
+            walk(root, directory, files);
+            return List.copyOf(files);
+        } catch (URISyntaxException e) {
+            throw new IOException("Invalid resource location: " + url, e);
+        }
+    }
+
+    private static void walk(Path root, String directory, Set<String> files) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            paths.filter(Files::isRegularFile)
+                    .map(path -> directory + "/" + root.relativize(path).toString().replace('\\', '/'))
+                    .forEach(files::add);
+        }
+    }
+
+    private static FileSystem getFileSystem(URI uri) throws IOException {
+        try {
+            return FileSystems.newFileSystem(uri, Map.of());
+        } catch (FileSystemAlreadyExistsException e) {
+            return FileSystems.getFileSystem(uri);
+        }
+    }
+
+    /**
+     * Overlays a filesystem directory on the classpath. A file below it, e.g.
+     * <code>views/index.html</code>, is read instead of the packaged file of
+     * the same path; all other files still come from the classpath. Templates
+     * are compiled from source while an overlay is set, so precompiled
+     * templates never hide an edited file. The caches are cleared.
+     * 
+     * @param directory The directory, or null to read from the classpath only
+     * @throws IllegalArgumentException If the path is not a directory
+     */
+    public synchronized void setOverlay(Path directory) {
+        if (directory != null && !Files.isDirectory(directory)) {
+            throw new IllegalArgumentException("Overlay is not a directory: " + directory);
+        }
+        closeOverlayWatcher();
+        overlay = directory == null ? null : realPath(directory);
+        clearCache();
+        if (overlay != null) {
+            logger.log(Level.INFO, "Overlaying classpath resources with {0}", overlay);
+        }
+    }
+
+    /**
+     * Gets the overlay directory.
+     * 
+     * @return The directory, or empty if resources are read from the classpath
+     *         only
+     */
+    public Optional<Path> getOverlay() {
+        return Optional.ofNullable(overlay);
+    }
+
+    /**
+     * Watches the overlay directory and reloads changed files, see
+     * {@link #reload(Collection)}. A burst of changes, like saving several
+     * files at once, is reloaded together once the directory was quiet for the
+     * debounce interval.
+     * 
+     * @param debounce How long to wait for further changes
+     * @throws IOException           If the directory cannot be watched
+     * @throws IllegalStateException If no overlay is set
+     */
+    public synchronized void watchOverlay(Duration debounce) throws IOException {
+        if (overlay == null) {
+            throw new IllegalStateException("No overlay set");
+        }
+        closeOverlayWatcher();
+        overlayWatcher = new FileWatcher(overlay, true, debounce, this::reloadOverlay).start();
+    }
+
+    private void reloadOverlay(Set<Path> paths) {
+        if (paths.contains(FileWatcher.ALL)) {
+            reloadAll();
+            logger.info("Reloaded all files after lost change events");
+            return;
+        }
+        var changed = new ArrayList<String>();
+        for (Path path : paths) {
+            changed.add(path.toString().replace('\\', '/'));
+        }
+        int count = reload(changed);
+        logger.log(Level.INFO, "Reloaded {0}, recompiled {1} templates", new Object[] { changed, count });
+    }
+
+    private void closeOverlayWatcher() {
+        if (overlayWatcher != null) {
+            try {
+                overlayWatcher.close();
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Failed to stop watching " + overlayWatcher.directory(), e);
+            }
+            overlayWatcher = null;
+        }
+    }
+
+    /**
+     * Resolves a path in the overlay directory.
+     * 
+     * The path must stay inside the overlay, also after following symbolic
+     * links; anything else is treated as not overlaid.
+     * 
+     * @param filePath The classpath-relative path, e.g.
+     *                 <code>static/styles.css</code>
+     * @return The readable file, or empty if no overlay is set or it has no
+     *         such file
+     */
+    public Optional<Path> getOverlayFile(String filePath) {
+        var root = overlay;
+        if (root == null || filePath.indexOf('\0') != -1 || filePath.indexOf('\\') != -1) {
+            return Optional.empty();
+        }
+        var file = root.resolve(filePath).normalize();
+        if (!file.startsWith(root) || !Files.isRegularFile(file) || !Files.isReadable(file)) {
+            return Optional.empty();
+        }
+        try {
+            return file.toRealPath().startsWith(root) ? Optional.of(file) : Optional.empty();
         } catch (IOException e) {
-            e.printStackTrace();
-            throw new RuntimeException("Failed to read file: " + filePath, e);
+            return Optional.empty();
+        }
+    }
+
+    private static Path realPath(Path path) {
+        try {
+            return path.toRealPath();
+        } catch (IOException e) {
+            return path.toAbsolutePath().normalize();
+        }
+    }
+
+    /**
+     * Reloads changed files: drops them from the caches together with the
+     * templates depending on them, see {@link #removeFromCache(String)}, and
+     * compiles exactly those templates again. Templates that no longer
+     * compile are logged and fail when they are used. Change listeners are
+     * notified afterwards.
+     * 
+     * @param filePaths The classpath-relative paths of the changed files
+     * @return The number of recompiled templates
+     */
+    public int reload(Collection<String> filePaths) {
+        var stale = new TreeSet<String>();
+        for (String filePath : filePaths) {
+            stale.addAll(invalidate(filePath));
+        }
+
+        int count = 0;
+        for (String key : stale) {
+            int separator = key.indexOf('#');
+            try {
+                if (separator == -1) {
+                    getTemplate(key);
+                } else {
+                    getTemplate(key.substring(0, separator), Locale.forLanguageTag(key.substring(separator + 1)));
+                }
+                count++;
+            } catch (IllegalArgumentException | UncheckedIOException e) {
+                logger.log(Level.WARNING, "Failed to recompile template " + key, e);
+            }
+        }
+
+        notifyChangeListeners(Set.copyOf(filePaths));
+        return count;
+    }
+
+    /**
+     * Drops all cached files and templates, e.g. after changes were missed.
+     * Templates are recompiled when they are used next. The change listeners
+     * are notified with an empty path, which stands for all files.
+     */
+    public void reloadAll() {
+        clearCache();
+        notifyChangeListeners(Set.of(""));
+    }
+
+    private static void notifyChangeListeners(Set<String> changed) {
+        for (Consumer<Set<String>> listener : changeListeners) {
+            listener.accept(changed);
         }
     }
 
-    public String getFileContent(String filePath, Map<String, String> values) {
-        var htmlTemplate = getFileContent(filePath);
-        String result = HtmlTemplateParser.parseHtmlTemplate(htmlTemplate, values);
-        return result;
+    /**
+     * Registers a listener notified with the paths of reloaded files, e.g. to
+     * drop output derived from them. An empty path stands for all files, see
+     * {@link #reloadAll()}.
+     * 
+     * @param listener The listener
+     */
+    public void addChangeListener(Consumer<Set<String>> listener) {
+        changeListeners.add(listener);
     }
 
     /**
@@ -107,17 +524,54 @@ public class ResourceService {
      */
     public static void clearCache() {
         fileCache.clear();
+        templateCache.clear();
+    }
+
+    /**
+     * Removes a specific file from the cache, together with every compiled
+     * template that inlines it as a partial or layout. Removing a template also
+     * removes its locale variants, and removing a message bundle removes all
+     * variants of its locale.
+     * 
+     * @param filePath The path to the resource file relative to the classpath
+     */
+    public static void removeFromCache(String filePath) {
+        invalidate(filePath);
+    }
+
+    /**
+     * Removes a file from the caches.
+     * 
+     * @return The keys of the removed templates
+     */
+    private static List<String> invalidate(String filePath) {
+        fileCache.remove(filePath);
+        var locale = Messages.locale(filePath);
+        var variantSuffix = locale == null ? null : PrecompiledTemplates.variant("", locale);
+        var removed = new ArrayList<String>();
+        for (var entry : templateCache.entrySet()) {
+            var key = entry.getKey();
+            if ((key.equals(filePath)
+                    || key.startsWith(filePath + "#")
+                    || (variantSuffix != null && key.endsWith(variantSuffix))
+                    || entry.getValue().dependencies().contains(filePath))
+                    && templateCache.remove(key, entry.getValue())) {
+                removed.add(key);
+            }
+        }
+        return removed;
     }
 
     /**
      * Removes a specific file from the cache.
      * 
-     * @param clazz    The class whose class loader was used to locate the resource
+     * @param clazz    Ignored; files are cached by path only
      * @param filePath The path to the resource file relative to the classpath
+     * @deprecated Use {@link #removeFromCache(String)}
      */
+    @Deprecated
     public static void removeFromCache(Class<?> clazz, String filePath) {
-        String cacheKey = clazz.getName() + "::" + filePath;
-        fileCache.remove(cacheKey);
+        removeFromCache(filePath);
     }
 
     /**
@@ -128,4 +582,24 @@ public class ResourceService {
     public static int getCacheSize() {
         return fileCache.size();
     }
+
+    /**
+     * Gets the statistics of the file cache.
+     * 
+     * @return The hits, misses, evictions and current size of the cache
+     */
+    public static ResourceCache.Stats getCacheStats() {
+        return fileCache.stats();
+    }
+
+    /**
+     * Sets the maximum total size of the cached file contents, evicting the
+     * least recently used files if the cache is larger.
+     * 
+     * @param bytes The capacity in bytes, 0 disables caching
+     * @throws IllegalArgumentException If the capacity is negative
+     */
+    public static void setCacheCapacity(long bytes) {
+        fileCache.setCapacity(bytes);
+    }
 }
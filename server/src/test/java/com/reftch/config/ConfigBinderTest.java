@@ -0,0 +1,117 @@
+package com.reftch.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.reftch.annotation.ConfigProperties;
+import com.reftch.annotation.DefaultValue;
+
+class ConfigBinderTest {
+
+    enum Storage {
+        CLASSPATH, OFFHEAP
+    }
+
+    record Limits(@DefaultValue("7") int depth, @DefaultValue("PT1S") Duration timeout) {
+    }
+
+    @ConfigProperties("app")
+    record AppProperties(int port, boolean enabled, long size, double ratio, Storage storage, Path dir,
+            Locale locale, Duration interval, String name, Limits limits, Map<String, String> mounts,
+            List<String> hosts) {
+    }
+
+    @ConfigProperties("app")
+    record Defaults(@DefaultValue("8080") int port, @DefaultValue("offheap") Storage storage, String name) {
+    }
+
+    @ConfigProperties("app")
+    record Validated(int port) {
+
+        Validated {
+            if (port > 65535) {
+                throw new IllegalArgumentException("Port out of range: " + port);
+            }
+        }
+    }
+
+    record NotAnnotated(int port) {
+    }
+
+    private static ConfigSnapshot snapshot(Map<String, String> values) {
+        return new ConfigSnapshot(values, 1);
+    }
+
+    @Test
+    void testBind_ParsesAllTypes() {
+        var values = Map.ofEntries(
+                Map.entry("app.port", "8080"),
+                Map.entry("app.enabled", "TRUE"),
+                Map.entry("app.size", "33554432"),
+                Map.entry("app.ratio", "0.75"),
+                Map.entry("app.storage", "offheap"),
+                Map.entry("app.dir", "/srv/media"),
+                Map.entry("app.locale", "de-CH"),
+                Map.entry("app.interval", "250"),
+                Map.entry("app.name", "mortgage"),
+                Map.entry("app.limits.depth", "3"),
+                Map.entry("app.mounts.media", "/srv/media"),
+                Map.entry("app.hosts.0", "a.example"),
+                Map.entry("app.hosts.1", "b.example"));
+
+        AppProperties bound = ConfigBinder.bind(AppProperties.class, snapshot(values));
+
+        assertEquals(new AppProperties(8080, true, 33554432L, 0.75, Storage.OFFHEAP, Path.of("/srv/media"),
+                Locale.forLanguageTag("de-CH"), Duration.ofMillis(250), "mortgage",
+                new Limits(3, Duration.ofSeconds(1)), Map.of("media", "/srv/media"),
+                List.of("a.example", "b.example")), bound);
+    }
+
+    @Test
+    void testBind_UsesDefaultsForMissingAndEmptyKeys() {
+        Defaults bound = ConfigBinder.bind(Defaults.class, snapshot(Map.of("app.port", "")));
+
+        assertEquals(new Defaults(8080, Storage.OFFHEAP, ""), bound);
+    }
+
+    @Test
+    void testBind_ReportsAllErrors() {
+        var values = Map.of(
+                "app.port", "80a",
+                "app.enabled", "yes",
+                "app.storage", "disk",
+                "app.limits.timeout", "soon");
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> ConfigBinder.bind(AppProperties.class, snapshot(values)));
+
+        assertTrue(e.getMessage().contains("app.port: '80a' is not a valid int"), e.getMessage());
+        assertTrue(e.getMessage().contains("app.enabled: 'yes' is not a valid boolean"), e.getMessage());
+        assertTrue(e.getMessage().contains("app.storage: 'disk' is not a valid Storage"), e.getMessage());
+        assertTrue(e.getMessage().contains("app.limits.timeout: 'soon' is not a valid Duration"), e.getMessage());
+        assertTrue(e.getMessage().contains("app.size is missing"), e.getMessage());
+    }
+
+    @Test
+    void testBind_RunsRecordValidation() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> ConfigBinder.bind(Validated.class, snapshot(Map.of("app.port", "70000"))));
+
+        assertTrue(e.getMessage().contains("app: Port out of range: 70000"), e.getMessage());
+    }
+
+    @Test
+    void testBind_RequiresAnnotation() {
+        assertThrows(IllegalArgumentException.class,
+                () -> ConfigBinder.bind(NotAnnotated.class, snapshot(Map.of("app.port", "1"))));
+    }
+}
@@ -0,0 +1,75 @@
+package com.reftch.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.reftch.annotation.ConfigProperties;
+
+class ConfigSnapshotTest {
+
+    @ConfigProperties("server")
+    record Server(int port) {
+    }
+
+    private final ConfigSnapshot snapshot = new ConfigSnapshot(Map.of(
+            "server.port", "8080",
+            "server.isProduction", "TRUE",
+            "server.host", "localhost",
+            "static.mounts.media", "/srv/media"), 1);
+
+    @Test
+    void testGetters() {
+        assertEquals("localhost", snapshot.getValue("server.host"));
+        assertEquals("", snapshot.getValue("missing"));
+        assertEquals(8080, snapshot.getInt("server.port"));
+        assertEquals(0, snapshot.getInt("server.host"));
+        assertEquals(0, snapshot.getInt("missing"));
+        assertTrue(snapshot.getBoolean("server.isProduction"));
+        assertFalse(snapshot.getBoolean("missing"));
+        assertEquals(Map.of("media", "/srv/media"), snapshot.getValues("static.mounts"));
+    }
+
+    @Test
+    void testImmutable() {
+        var values = new HashMap<>(Map.of("server.port", "8080"));
+        ConfigSnapshot copy = new ConfigSnapshot(values, 1);
+
+        values.put("server.port", "9090");
+
+        assertEquals("8080", copy.getValue("server.port"));
+        assertThrows(UnsupportedOperationException.class, () -> copy.getAll().put("server.port", "9090"));
+    }
+
+    @Test
+    void testChangedKeys() {
+        ConfigSnapshot next = new ConfigSnapshot(Map.of(
+                "server.port", "9090",
+                "server.isProduction", "TRUE",
+                "server.host", "localhost",
+                "template.inlineThreshold", "0"), 2);
+
+        assertEquals(Set.of("server.port", "static.mounts.media", "template.inlineThreshold"),
+                next.changedKeys(snapshot));
+        assertEquals(next.changedKeys(snapshot), snapshot.changedKeys(next));
+        assertTrue(snapshot.changedKeys(snapshot).isEmpty());
+    }
+
+    @Test
+    void testBind_OncePerSnapshot() {
+        Server server = snapshot.bind(Server.class);
+
+        assertEquals(8080, server.port());
+        assertSame(server, snapshot.bind(Server.class));
+        assertNotSame(server, new ConfigSnapshot(snapshot.getAll(), 2).bind(Server.class));
+    }
+}
@@ -3,17 +3,29 @@ package com.reftch.config;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
+import com.reftch.annotation.ConfigProperties;
+
 class ConfigurationServiceTest {
 
+    @ConfigProperties("server")
+    record ServerSection(int port, String host) {
+    }
+
     @TempDir
     Path tempDir;
 
@@ -71,4 +83,81 @@ class ConfigurationServiceTest {
         assertEquals("8080", service.getValue("server.port"));
         assertEquals("jdbc:h2:mem:testdb", service.getValue("database.url"));
     }
+
+    @Test
+    void testLoadConfig_SwapsSnapshot() throws IOException {
+        ConfigurationService service = ConfigurationService.getInstance();
+        ConfigSnapshot before = service.snapshot();
+        List<Set<String>> changes = new ArrayList<>();
+        ConfigurationService.Listener listener = (_, _, changedKeys) -> changes.add(changedKeys);
+        String userHome = System.getProperty("user.home");
+
+        Files.writeString(tempDir.resolve(".application.yaml"), "server:\n  port: 9090\n");
+        System.setProperty("user.home", tempDir.toString());
+        service.addListener(listener);
+        try {
+            service.loadConfig();
+
+            assertEquals(9090, service.getInt("server.port"));
+            assertEquals("localhost", service.getValue("server.host"));
+            // Readers holding the previous snapshot are not affected
+            assertEquals(8080, before.getInt("server.port"));
+            assertEquals(before.version() + 1, service.snapshot().version());
+            assertEquals(List.of(Set.of("server.port")), changes);
+        } finally {
+            System.setProperty("user.home", userHome);
+            service.removeListener(listener);
+            service.loadConfig();
+        }
+    }
+
+    @Test
+    void testLoadConfig_UnchangedNotifiesNobody() {
+        ConfigurationService service = ConfigurationService.getInstance();
+        List<Set<String>> changes = new ArrayList<>();
+        ConfigurationService.Listener listener = (_, _, changedKeys) -> changes.add(changedKeys);
+
+        service.addListener(listener);
+        try {
+            service.loadConfig();
+        } finally {
+            service.removeListener(listener);
+        }
+
+        assertTrue(changes.isEmpty());
+    }
+
+    @Test
+    void testParse_LeavesConfigUnchanged() {
+        ConfigurationService service = ConfigurationService.getInstance();
+        ConfigSnapshot before = service.snapshot();
+
+        assertEquals(Map.of("server.port", "1"), service.parse("server:\n  port: 1\n"));
+        assertSame(before, service.snapshot());
+    }
+
+    @Test
+    void testBind() {
+        ConfigurationService service = ConfigurationService.getInstance();
+
+        assertEquals(new ServerSection(8080, "localhost"), service.bind(ServerSection.class));
+        assertSame(service.bind(ServerSection.class), service.snapshot().bind(ServerSection.class));
+    }
+
+    @Test
+    void testLoadConfig_RejectsInvalidBoundValues() throws IOException {
+        ConfigurationService service = ConfigurationService.getInstance();
+        service.bind(ServerSection.class);
+        ConfigSnapshot before = service.snapshot();
+        String userHome = System.getProperty("user.home");
+
+        Files.writeString(tempDir.resolve(".application.yaml"), "server:\n  port: eighty\n");
+        System.setProperty("user.home", tempDir.toString());
+        try {
+            assertThrows(IllegalArgumentException.class, service::loadConfig);
+            assertSame(before, service.snapshot());
+        } finally {
+            System.setProperty("user.home", userHome);
+        }
+    }
 }
@@ -0,0 +1,150 @@
+package com.reftch.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class YamlParserTest {
+
+    private static Map<String, String> parse(String yaml) {
+        return YamlParser.parse(yaml, value -> value);
+    }
+
+    private static String error(String yaml) {
+        return assertThrows(IllegalArgumentException.class, () -> parse(yaml)).getMessage();
+    }
+
+    @Test
+    void testParse_NestedMappings() {
+        var values = parse("""
+                ---
+                server:
+                    port: 8080
+                    tls:
+                        enabled: false
+                # comment
+                template:
+                    inlineThreshold: 4096
+                """);
+
+        assertEquals(Map.of("server.port", "8080", "server.tls.enabled", "false",
+                "template.inlineThreshold", "4096"), values);
+        assertEquals(List.of("server.port", "server.tls.enabled", "template.inlineThreshold"),
+                List.copyOf(values.keySet()));
+    }
+
+    @Test
+    void testParse_Sequences() {
+        var values = parse("""
+                hosts:
+                  - a.example
+                  - b.example
+                ports:
+                - 80
+                - 443
+                mounts:
+                  - name: media
+                    dir: /srv/media
+                  - name: docs
+                """);
+
+        assertEquals(Map.of("hosts.0", "a.example", "hosts.1", "b.example", "ports.0", "80", "ports.1", "443",
+                "mounts.0.name", "media", "mounts.0.dir", "/srv/media", "mounts.1.name", "docs"), values);
+    }
+
+    @Test
+    void testParse_FlowCollections() {
+        var values = parse("""
+                limits: {depth: 3, sizes: [1, 2], nested: {key: 'a, b'}}
+                empty: []
+                """);
+
+        assertEquals(Map.of("limits.depth", "3", "limits.sizes.0", "1", "limits.sizes.1", "2",
+                "limits.nested.key", "a, b"), values);
+    }
+
+    @Test
+    void testParse_KeepsPlaceholdersAsScalars() {
+        var values = parse("""
+                port: {SERVER_PORT:8080}
+                overlay: {RESOURCES_OVERLAY:}
+                url: {BASE_URL:http://localhost:8080/app}
+                """);
+
+        assertEquals(Map.of("port", "{SERVER_PORT:8080}", "overlay", "{RESOURCES_OVERLAY:}",
+                "url", "{BASE_URL:http://localhost:8080/app}"), values);
+    }
+
+    @Test
+    void testParse_QuotedStrings() {
+        var values = parse("""
+                double: "tab\\there \\"quoted\\" \\u00e9 # kept"
+                single: 'it''s # kept'
+                "quoted key": value
+                """);
+
+        assertEquals(Map.of("double", "tab\there \"quoted\" \u00e9 # kept", "single", "it's # kept",
+                "quoted key", "value"), values);
+    }
+
+    @Test
+    void testParse_TrailingComments() {
+        var values = parse("""
+                color: "#fff" # quoted
+                anchor: page#top
+                size: 12 # pixels
+                empty: # nothing
+                """);
+
+        assertEquals(Map.of("color", "#fff", "anchor", "page#top", "size", "12"), values);
+    }
+
+    @Test
+    void testParse_BlockScalars() {
+        var values = parse("""
+                literal: |
+                  first
+                  second
+
+                  fourth
+                folded: >-
+                  one
+                  two
+
+                  three
+                after: value
+                """);
+
+        assertEquals(Map.of("literal", "first\nsecond\n\nfourth\n", "folded", "one two\nthree", "after", "value"),
+                values);
+    }
+
+    @Test
+    void testParse_LineEndings() {
+        assertEquals(Map.of("a", "1", "b.c", "x"), parse("a: 1\r\nb:\r\n  c: 'x'\r\n"));
+    }
+
+    @Test
+    void testParse_ReportsPositions() {
+        assertEquals("Unexpected indentation at line 3, column 4", error("a:\n  b: 1\n   c: 2\n"));
+        assertEquals("Expected ':' after key at line 2, column 10", error("a: 1\nkey value\n"));
+        assertEquals("Unterminated string at line 1, column 4", error("a: \"open\n"));
+        assertEquals("Invalid escape '\\q' at line 1, column 10", error("a: \"bad \\q\"\n"));
+        assertEquals("Tabs are not allowed for indentation at line 2, column 1", error("a:\n\tb: 1\n"));
+        assertEquals("Unexpected characters after value at line 1, column 8", error("a: 'x' y\n"));
+    }
+
+    @Test
+    void testParse_RejectsAnchors() {
+        assertEquals("Anchors and aliases are not supported at line 1, column 4", error("a: &x 1\n"));
+    }
+
+    @Test
+    void testParse_AppliesScalarFunction() {
+        assertEquals(Map.of("a", "A", "b.0", "B"), YamlParser.parse("a: a\nb: [b]\n", String::toUpperCase));
+    }
+}
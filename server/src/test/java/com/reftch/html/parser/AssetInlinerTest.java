@@ -0,0 +1,73 @@
+package com.reftch.html.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class AssetInlinerTest {
+
+    private final Map<String, String> assets = Map.of(
+            "/static/reset.css", "body { margin: 0; }\n",
+            "/static/js/process.js", "window.process = {};",
+            "/static/fonts.css", "src: url('fonts/Regular.woff2');",
+            "/static/large.css", "x".repeat(100));
+
+    private final AssetInliner inliner = new AssetInliner(assets::get, 64);
+
+    @Test
+    void testInline_Stylesheet() {
+        String html = "<link href=\"/static/reset.css\" rel=\"stylesheet\" media=\"screen\" />";
+
+        assertEquals("<style media=\"screen\">body { margin: 0; }</style>", inliner.inline(html));
+    }
+
+    @Test
+    void testInline_Script() {
+        String html = "<script type=\"text/javascript\" src=\"/static/js/process.js\"></script>";
+
+        assertEquals("<script type=\"text/javascript\">window.process = {};</script>", inliner.inline(html));
+    }
+
+    @Test
+    void testInline_SkipsLargeMissingAndExternalAssets() {
+        String html = "<link href=\"/static/large.css\" rel=\"stylesheet\" />"
+                + "<link href=\"/static/missing.css\" rel=\"stylesheet\" />"
+                + "<link rel=\"icon\" href=\"/static/reset.css\" />"
+                + "<script type=\"module\" src=\"http://localhost:5173/src/main.tsx\"></script>";
+
+        assertEquals(html, inliner.inline(html));
+    }
+
+    @Test
+    void testInline_SkipsModuleAndDeferredScripts() {
+        String html = "<script type=\"module\" src=\"/static/js/process.js\"></script>"
+                + "<script defer src=\"/static/js/process.js\"></script>"
+                + "<script src=\"/static/js/process.js\" ASYNC></script>"
+                + "<script async=\"\" src=\"/static/js/process.js\"></script>";
+
+        assertEquals(html, inliner.inline(html));
+    }
+
+    @Test
+    void testInline_ScriptWithDeferInAttributeValue() {
+        String html = "<script data-defer=\"async\" src=\"/static/js/process.js\"></script>";
+
+        assertEquals("<script>window.process = {};</script>", inliner.inline(html));
+    }
+
+    @Test
+    void testInline_SkipsStylesheetWithRelativeUrls() {
+        String html = "<link href=\"/static/fonts.css\" rel=\"stylesheet\" />";
+
+        assertEquals(html, inliner.inline(html));
+    }
+
+    @Test
+    void testInline_Disabled() {
+        String html = "<link href=\"/static/reset.css\" rel=\"stylesheet\" />";
+
+        assertEquals(html, new AssetInliner(assets::get, 0).inline(html));
+    }
+}
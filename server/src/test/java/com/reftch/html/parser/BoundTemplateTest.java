@@ -0,0 +1,133 @@
+package com.reftch.html.parser;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+class BoundTemplateTest {
+
+    record Mode(boolean isProduction) {
+    }
+
+    record Row(int month, String payment) {
+    }
+
+    record Page(String title, Mode mode, List<Row> rows, Map<String, String> labels) {
+    }
+
+    public static class Bean {
+
+        public String getTitle() {
+            return "Bean";
+        }
+
+        public boolean isVisible() {
+            return true;
+        }
+    }
+
+    private static final String TEMPLATE_SOURCE = "<h1>{{ title }}</h1>"
+            + "{{#if mode.isProduction == false}}dev{{/if}}"
+            + "{{#each rows}}<p>{{ month }}: {{ payment }} {{ labels.currency }} {{ title }}</p>{{/each}}";
+    private static final Template TEMPLATE = Template.compile(TEMPLATE_SOURCE);
+
+    @Test
+    void testKeys() {
+        assertEquals(List.of("title", "mode.isProduction", "rows"), List.copyOf(TEMPLATE.keys()));
+        assertEquals(List.of("month", "payment", "labels.currency", "title"), List.copyOf(TEMPLATE.loopKeys()));
+    }
+
+    @Test
+    void testSlots() {
+        assertEquals(List.of("title", "mode.isProduction", "rows", "month", "payment", "labels.currency"),
+                TEMPLATE.slots());
+        TemplateNode.Each each = assertInstanceOf(TemplateNode.Each.class, TEMPLATE.nodes().get(4));
+        assertEquals(2, each.slot());
+        // A loop key also read outside of loops shares its slot
+        assertEquals(0, assertInstanceOf(TemplateNode.Variable.class, each.children().get(7)).slot());
+    }
+
+    @Test
+    void testRender_Record() throws IOException {
+        Page page = new Page("Plan", new Mode(false), List.of(new Row(1, "100.00")), Map.of("currency", "EUR"));
+        BoundTemplate<Page> bound = TEMPLATE.bind(Page.class);
+
+        String html = bound.render(page);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        bound.renderTo(page, out);
+
+        // Keys missing on the rows fall back to the page
+        assertEquals("<h1>Plan</h1>dev<p>1: 100.00 EUR Plan</p>", html);
+        assertEquals(html, out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testRender_NestedAndMapKeys() {
+        Template template = Template.compile("{{ labels.currency }} {{#if mode.isProduction}}prod{{/if}}");
+
+        String html = template.bind(Page.class).render(new Page("Plan", new Mode(true), List.of(), Map.of("currency", "EUR")));
+
+        assertEquals("EUR prod", html);
+    }
+
+    @Test
+    void testRender_Bean() {
+        Template template = Template.compile("{{ title }}{{#if visible}}!{{/if}}");
+
+        assertEquals("Bean!", template.bind(Bean.class).render(new Bean()));
+    }
+
+    @Test
+    void testBind_CachedPerType() {
+        assertSame(TEMPLATE.bind(Page.class), TEMPLATE.bind(Page.class));
+    }
+
+    @Test
+    void testBind_UnknownKeys() {
+        Template template = Template.compile("{{ titel }}{{#if mode.prod}}{{/if}}");
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> template.bind(Page.class));
+        assertTrue(e.getMessage().contains("[mode.prod, titel]"));
+    }
+
+    @Test
+    void testRenderCached_ReusesOutputOfEqualContexts() {
+        BoundTemplate<Page> bound = Template.compile(TEMPLATE_SOURCE).bind(Page.class);
+        Page page = new Page("Plan", new Mode(false), List.of(new Row(1, "100.00")), Map.of("currency", "EUR"));
+
+        byte[] first = bound.renderCached(page);
+        byte[] second = bound.renderCached(
+                new Page("Plan", new Mode(false), List.of(new Row(1, "100.00")), Map.of("currency", "EUR")));
+        byte[] production = bound.renderCached(new Page("Plan", new Mode(true), List.of(), Map.of()));
+
+        assertArrayEquals(bound.render(page).getBytes(StandardCharsets.UTF_8), first);
+        assertSame(first, second);
+        assertNotSame(first, production);
+        assertEquals(new RenderCache.Stats(1, 2, 0, 2), bound.cacheStats());
+    }
+
+    record Feed(Stream<String> items) {
+    }
+
+    @Test
+    void testRenderCached_RendersStreamsEveryTime() {
+        BoundTemplate<Feed> bound = Template.compile("{{#each items}}{{ this }};{{/each}}").bind(Feed.class);
+
+        assertEquals("a;b;", new String(bound.renderCached(new Feed(Stream.of("a", "b"))), StandardCharsets.UTF_8));
+        assertEquals("c;", new String(bound.renderCached(new Feed(Stream.of("c"))), StandardCharsets.UTF_8));
+        assertEquals(0, bound.cacheStats().size());
+    }
+}
@@ -0,0 +1,65 @@
+package com.reftch.html.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class ConditionTest {
+
+    private final Map<String, String> values = Map.of(
+            "mode.isProduction", "false",
+            "user.role", "admin role",
+            "name", "John",
+            "empty", "");
+
+    @Test
+    void testParse_Equality() {
+        Condition condition = Condition.parse("mode.isProduction == false");
+
+        assertEquals(new Condition.Equals("mode.isProduction", "false"), condition);
+        assertTrue(condition.test(values));
+    }
+
+    @Test
+    void testParse_QuotedLiterals() {
+        assertTrue(Condition.parse("user.role == \"admin role\"").test(values));
+        assertTrue(Condition.parse("user.role != 'admin'").test(values));
+    }
+
+    @Test
+    void testParse_Existence() {
+        assertTrue(Condition.parse("name").test(values));
+        assertFalse(Condition.parse("empty").test(values));
+        assertFalse(Condition.parse("missing").test(values));
+    }
+
+    @Test
+    void testParse_BooleanOperators() {
+        assertTrue(Condition.parse("name && !empty").test(values));
+        assertTrue(Condition.parse("missing || name == John").test(values));
+        assertFalse(Condition.parse("!(name || missing)").test(values));
+        // && binds tighter than ||
+        assertTrue(Condition.parse("missing && name || name").test(values));
+    }
+
+    @Test
+    void testParse_InternsKeys() {
+        Condition.Exists condition = (Condition.Exists) Condition.parse(new String("name"));
+
+        assertSame("name", condition.key());
+    }
+
+    @Test
+    void testParse_Invalid() {
+        assertThrows(IllegalArgumentException.class, () -> Condition.parse("user.role == \"admin\" extra"));
+        assertThrows(IllegalArgumentException.class, () -> Condition.parse("== admin"));
+        assertThrows(IllegalArgumentException.class, () -> Condition.parse("(name"));
+        assertThrows(IllegalArgumentException.class, () -> Condition.parse("name == \"open"));
+    }
+}
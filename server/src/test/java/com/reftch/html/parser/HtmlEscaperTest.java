@@ -0,0 +1,57 @@
+package com.reftch.html.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+class HtmlEscaperTest {
+
+    @Test
+    void testEscape_CleanValueIsNotCopied() {
+        // Without whitespace, which unquoted attribute values escape
+        String value = new String("Hypothekenrechner-2024");
+
+        for (HtmlEscaper.Context context : HtmlEscaper.Context.values()) {
+            assertSame(value, HtmlEscaper.escape(value, context));
+        }
+    }
+
+    @Test
+    void testEscape_Text() {
+        assertEquals("&lt;b&gt;Tom &amp; &quot;Jerry&quot; &#39;s&lt;/b&gt;",
+                HtmlEscaper.escape("<b>Tom & \"Jerry\" 's</b>", HtmlEscaper.Context.TEXT));
+        assertEquals("a=b c", HtmlEscaper.escape("a=b c", HtmlEscaper.Context.ATTRIBUTE));
+    }
+
+    @Test
+    void testEscape_UnquotedAttribute() {
+        assertEquals("a&#61;b&#32;c&#96;&gt;",
+                HtmlEscaper.escape("a=b c`>", HtmlEscaper.Context.UNQUOTED_ATTRIBUTE));
+    }
+
+    @Test
+    void testEscape_Raw() {
+        assertEquals("<b>bold</b>", HtmlEscaper.escape("<b>bold</b>", HtmlEscaper.Context.RAW));
+    }
+
+    @Test
+    void testEscape_Url() {
+        assertEquals("/path?a=1&amp;b=2", HtmlEscaper.escape("/path?a=1&b=2", HtmlEscaper.Context.URL));
+        assertEquals("https://example.com", HtmlEscaper.escape("https://example.com", HtmlEscaper.Context.URL));
+        assertEquals("mailto:a@b.de", HtmlEscaper.escape("mailto:a@b.de", HtmlEscaper.Context.UNQUOTED_URL));
+        assertEquals("/s/javascript:x", HtmlEscaper.escape("/s/javascript:x", HtmlEscaper.Context.URL));
+        assertEquals(HtmlEscaper.BLOCKED_URL, HtmlEscaper.escape(" JavaScript:alert(1)", HtmlEscaper.Context.URL));
+        assertEquals(HtmlEscaper.BLOCKED_URL, HtmlEscaper.escape("data:text/html,x", HtmlEscaper.Context.UNQUOTED_URL));
+    }
+
+    @Test
+    void testEscape_AppendsToBuilder() {
+        StringBuilder out = new StringBuilder("<p>");
+
+        HtmlEscaper.escape("1 < 2", HtmlEscaper.Context.TEXT, out);
+        HtmlEscaper.escape(" ok", HtmlEscaper.Context.TEXT, out);
+
+        assertEquals("<p>1 &lt; 2 ok", out.toString());
+    }
+}
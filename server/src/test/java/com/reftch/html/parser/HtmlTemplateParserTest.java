@@ -6,6 +6,7 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -497,4 +498,48 @@ class HtmlTemplateParserTest {
         // Then
         assertTrue(result);
     }
+
+    @Test
+    void testExtractPreloadLinks() {
+        // Given
+        String html = "<link rel=\"icon\" href=\"/static/images/euro.svg\" />"
+                + "<link href=\"/static/reset.css\" rel=\"stylesheet\" />"
+                + "<script type=\"text/javascript\" src=\"/static/js/process.js\"></script>"
+                + "<script type=\"module\" src=\"http://localhost:5173/src/main.tsx\"></script>"
+                + "<script type=\"module\" src=\"/static/ui/index.js\"></script>";
+
+        // When
+        List<String> links = HtmlTemplateParser.extractPreloadLinks(html);
+
+        // Then
+        assertEquals(List.of(
+                "</static/reset.css>; rel=preload; as=style",
+                "</static/js/process.js>; rel=preload; as=script",
+                "</static/ui/index.js>; rel=modulepreload"), links);
+    }
+
+    @Test
+    void testExtractStylesheets() {
+        // Given
+        String html = "<link href='/static/reset.css' rel='stylesheet'><link rel=\"icon\" href=\"/static/euro.svg\">";
+
+        // When
+        List<String> stylesheets = HtmlTemplateParser.extractStylesheets(html);
+
+        // Then
+        assertEquals(List.of("/static/reset.css"), stylesheets);
+    }
+
+    @Test
+    void testExtractFontPreloadLinks() {
+        // Given
+        String css = "src: url('/static/fonts/Regular.woff2') format('woff2'), url('/static/fonts/Regular.woff');";
+
+        // When
+        List<String> links = HtmlTemplateParser.extractFontPreloadLinks(css);
+
+        // Then
+        assertEquals(List.of("</static/fonts/Regular.woff2>; rel=preload; as=font; type=\"font/woff2\"; crossorigin"),
+                links);
+    }
 }
@@ -0,0 +1,26 @@
+package com.reftch.html.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Locale;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class MessagesTest {
+
+    @Test
+    void testPathAndLocale() {
+        assertEquals("i18n/messages_de.properties", Messages.path(Locale.GERMAN));
+        assertEquals("i18n/messages_de_CH.properties", Messages.path(Locale.forLanguageTag("de-CH")));
+        assertEquals(Locale.forLanguageTag("de-CH"), Messages.locale("i18n/messages_de_CH.properties"));
+        assertNull(Messages.locale("i18n/messages_.properties"));
+        assertNull(Messages.locale("views/index.html"));
+    }
+
+    @Test
+    void testParse() {
+        assertEquals(Map.of("title", "Grüße", "lang", "de"), Messages.parse("# comment\ntitle = Grüße\nlang=de\n"));
+    }
+}
@@ -0,0 +1,72 @@
+package com.reftch.html.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class RenderCacheTest {
+
+    @Test
+    void testGet_RendersOncePerFingerprint() {
+        RenderCache<String> cache = new RenderCache<>(4);
+        AtomicInteger renders = new AtomicInteger();
+
+        assertEquals("a1", cache.get("a", () -> "a" + renders.incrementAndGet()));
+        assertEquals("a1", cache.get("a", () -> "a" + renders.incrementAndGet()));
+        assertEquals("b2", cache.get("b", () -> "b" + renders.incrementAndGet()));
+
+        assertEquals(2, renders.get());
+        RenderCache.Stats stats = cache.stats();
+        assertEquals(new RenderCache.Stats(1, 2, 0, 2), stats);
+        assertEquals(1.0 / 3, stats.hitRatio(), 1e-9);
+    }
+
+    @Test
+    void testGet_EvictsLeastRecentlyUsed() {
+        RenderCache<String> cache = new RenderCache<>(2);
+        cache.get("a", () -> "a");
+        cache.get("b", () -> "b");
+        cache.get("a", () -> "a");
+        cache.get("c", () -> "c");
+
+        // b was used least recently
+        assertEquals("b2", cache.get("b", () -> "b2"));
+        assertEquals("c", cache.get("c", () -> "c2"));
+        assertEquals(2, cache.stats().evictions());
+        assertEquals(2, cache.stats().size());
+    }
+
+    @Test
+    void testClear() {
+        RenderCache<String> cache = new RenderCache<>(2);
+        cache.get("a", () -> "a");
+
+        cache.clear();
+
+        assertEquals("a2", cache.get("a", () -> "a2"));
+        assertEquals(0, cache.stats().hits());
+    }
+
+    @Test
+    void testClear_DuringRenderDropsOutput() {
+        RenderCache<String> cache = new RenderCache<>(2);
+
+        // Cleared while rendering, e.g. because a template changed
+        assertEquals("stale", cache.get("a", () -> {
+            cache.clear();
+            return "stale";
+        }));
+
+        assertEquals("fresh", cache.get("a", () -> "fresh"));
+        assertEquals(1, cache.stats().size());
+    }
+
+    @Test
+    void testInvalidSize() {
+        assertThrows(IllegalArgumentException.class, () -> new RenderCache<>(0));
+        assertEquals(0, new RenderCache<>(1).stats().hitRatio());
+    }
+}
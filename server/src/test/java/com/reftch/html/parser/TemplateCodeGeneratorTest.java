@@ -0,0 +1,93 @@
+package com.reftch.html.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.tools.ToolProvider;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TemplateCodeGeneratorTest {
+
+    private static final String SOURCE = "<ul title=\"{{ title }}\">{{#each rows}}"
+            + "{{#if !(hidden) && name != 'x'}}<li>{{ name }} – {{ this }}</li>{{/if}}{{/each}}</ul>{{ missing }}\n";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testClassName() {
+        assertEquals("IndexTemplate", TemplateCodeGenerator.className("views", "views/index.html"));
+        assertEquals("LayoutsMainTemplate", TemplateCodeGenerator.className("views", "views/layouts/main.html"));
+        assertEquals("LayoutsMainDeCHTemplate",
+                TemplateCodeGenerator.className("views", "views/layouts/main.html#de-CH"));
+        assertEquals("PartialsPageHeaderTemplate",
+                TemplateCodeGenerator.className("views", "views/partials/page-header.html"));
+    }
+
+    @Test
+    void testGenerate_DeclaresConstants() {
+        String source = TemplateCodeGenerator.generate("views/list.html", Template.compile(SOURCE),
+                "com.example", "ListTemplate");
+
+        assertTrue(source.startsWith("package com.example;"));
+        assertTrue(source.contains("public final class ListTemplate implements PrecompiledTemplate"));
+        assertTrue(source.contains("private static final String TEXT_0 = \"<ul title=\\\"\";"));
+        assertTrue(source.contains("scope.each(1, \"rows\", "));
+    }
+
+    @Test
+    void testMain_GeneratedRendererMatchesTemplate() throws Exception {
+        Path resources = tempDir.resolve("resources");
+        Files.createDirectories(resources.resolve("views/partials"));
+        Files.writeString(resources.resolve("views/list.html"), "{{> views/partials/list.html}}");
+        Files.writeString(resources.resolve("views/partials/list.html"), SOURCE);
+        Path java = tempDir.resolve("java");
+        Path classes = tempDir.resolve("classes");
+
+        TemplateCodeGenerator.main(new String[] { resources.toString(), "views", "com.example", java.toString(),
+                classes.toString() });
+
+        assertEquals(List.of("com.example.ListTemplate", "com.example.PartialsListTemplate"), Files.readAllLines(
+                classes.resolve("META-INF/services/com.reftch.html.parser.PrecompiledTemplate")));
+        int result = ToolProvider.getSystemJavaCompiler().run(null, null, null,
+                "-cp", System.getProperty("java.class.path"), "-d", classes.toString(),
+                java.resolve("com/example/ListTemplate.java").toString());
+        assertEquals(0, result);
+
+        try (URLClassLoader loader = new URLClassLoader(new URL[] { classes.toUri().toURL() },
+                getClass().getClassLoader())) {
+            PrecompiledTemplate precompiled = (PrecompiledTemplate) loader.loadClass("com.example.ListTemplate")
+                    .getConstructor().newInstance();
+            Template generated = Template.of(precompiled);
+            Template compiled = Template.compile(SOURCE);
+            Map<String, Object> values = Map.of("title", "A \"list\"", "name", "outer", "rows", List.of(
+                    Map.of("name", "Jürgen"), Map.of("hidden", "true"), Map.of("name", "x"), "plain"));
+
+            assertEquals("views/list.html", precompiled.name());
+            assertEquals(Set.of("views/partials/list.html"), generated.dependencies());
+            assertEquals(List.copyOf(compiled.keys()), List.copyOf(generated.keys()));
+            assertEquals(List.copyOf(compiled.loopKeys()), List.copyOf(generated.loopKeys()));
+            assertEquals(compiled.render(values), generated.render(values));
+            assertEquals(compiled.render(values), render(generated, values));
+        }
+    }
+
+    private static String render(Template template, Map<String, Object> values) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        template.renderTo(values, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,287 @@
+package com.reftch.html.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+class TemplateTest {
+
+    @Test
+    void testCompile_BuildsTree() {
+        Template template = Template.compile("<p>{{#if show}}Hello {{ name }}{{/if}}</p>");
+
+        assertEquals(3, template.nodes().size());
+        assertInstanceOf(TemplateNode.Literal.class, template.nodes().get(0));
+        TemplateNode.Conditional conditional = assertInstanceOf(TemplateNode.Conditional.class,
+                template.nodes().get(1));
+        assertEquals(new Condition.Exists("show", 0), conditional.condition());
+        assertEquals(2, conditional.children().size());
+    }
+
+    @Test
+    void testRender_MatchesHtmlTemplateParser() {
+        String html = "<p>{{#if user.isLoggedIn == true}}{{#if user.role == \"admin\"}}Admin {{ name }}{{/if}}"
+                + "{{/if}}</p>{{ missing }} {{ price }}";
+        Map<String, String> values = new HashMap<>();
+        values.put("user.isLoggedIn", "true");
+        values.put("user.role", "admin");
+        values.put("name", "John");
+        values.put("price", "$100");
+
+        assertEquals(HtmlTemplateParser.parseHtmlTemplate(html, values), Template.compile(html).render(values));
+    }
+
+    @Test
+    void testRender_FalseCondition() {
+        Template template = Template.compile("<p>{{#if show}}Hidden{{/if}}</p>");
+
+        assertEquals("<p></p>", template.render(Map.of()));
+    }
+
+    @Test
+    void testRender_KeepsMalformedTags() {
+        String html = "{{}} {{ a}b }} {{ open";
+
+        assertEquals(html, Template.compile(html).render(Map.of("a", "1")));
+    }
+
+    @Test
+    void testCompile_UnclosedBlock() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> Template.compile("<p>\n  {{#if show}}Hello</p>"));
+        assertTrue(e.getMessage().contains("line 2, column 3"));
+    }
+
+    @Test
+    void testCompile_UnmatchedClose() {
+        assertThrows(IllegalArgumentException.class, () -> Template.compile("<p>{{/if}}</p>"));
+    }
+
+    @Test
+    void testRenderTo_WritesUtf8() throws IOException {
+        Template template = Template.compile("<p>Grüße {{ name }}{{#if show}}!{{/if}} {{ missing }}</p>");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        template.renderTo(Map.of("name", "Jürgen", "show", "true"), out);
+
+        assertEquals("<p>Grüße Jürgen! {{ missing }}</p>", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testCompile_InvalidCondition() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> Template.compile("<p>\n{{#if role == }}Admin{{/if}}</p>"));
+        assertTrue(e.getMessage().contains("line 2, column 1"));
+    }
+
+    record Row(int month, String payment) {
+    }
+
+    @Test
+    void testRender_EachOverRecords() {
+        Template template = Template.compile(
+                "<table>{{#each rows}}<tr><td>{{ month }}</td><td>{{ payment }} {{ currency }}</td></tr>{{/each}}</table>");
+
+        String html = template.render(Map.of(
+                "currency", "EUR",
+                "rows", List.of(new Row(1, "100.00"), new Row(2, "99.50"))));
+
+        assertEquals("<table><tr><td>1</td><td>100.00 EUR</td></tr><tr><td>2</td><td>99.50 EUR</td></tr></table>",
+                html);
+    }
+
+    record Note(String text) {
+    }
+
+    @Test
+    void testRender_NullItemValueHidesOuterKey() {
+        Template template = Template.compile("{{#each notes}}[{{#if text}}{{ text }}{{/if}}]{{/each}}");
+        var withoutText = new HashMap<String, Object>();
+        withoutText.put("text", null);
+
+        String html = template.render(Map.of(
+                "text", "outer",
+                "notes", List.of(new Note("a"), new Note(null), withoutText, Map.of())));
+
+        // Only an item that does not define the key falls back to the enclosing scope
+        assertEquals("[a][][][outer]", html);
+    }
+
+    @Test
+    void testRender_EachOverMapsAndConditions() {
+        Template template = Template.compile(
+                "{{#each items}}{{#if active == true}}{{ name }};{{/if}}{{/each}}");
+
+        String html = template.render(Map.of("items", List.of(
+                Map.of("name", "a", "active", true),
+                Map.of("name", "b", "active", false))));
+
+        assertEquals("a;", html);
+    }
+
+    @Test
+    void testRenderTo_EachStreamsRowsLazily() throws IOException {
+        Template template = Template.compile("{{#each rows}}<tr><td>{{ this }}</td></tr>{{/each}}");
+        AtomicInteger produced = new AtomicInteger();
+        AtomicBoolean closed = new AtomicBoolean();
+        Stream<Integer> rows = IntStream.rangeClosed(1, 480).boxed()
+                .peek(_ -> produced.incrementAndGet())
+                .onClose(() -> closed.set(true));
+        AtomicInteger maxAhead = new AtomicInteger();
+        ByteArrayOutputStream out = new ByteArrayOutputStream() {
+            private int written;
+
+            @Override
+            public void write(byte[] b) {
+                super.write(b, 0, b.length);
+                if (new String(b, StandardCharsets.UTF_8).equals("</td></tr>")) {
+                    written++;
+                    maxAhead.accumulateAndGet(produced.get() - written, Math::max);
+                }
+            }
+        };
+
+        template.renderTo(Map.of("rows", rows), out);
+
+        assertEquals(480, produced.get());
+        assertEquals(0, maxAhead.get());
+        assertTrue(closed.get());
+        assertTrue(out.toString(StandardCharsets.UTF_8).endsWith("<tr><td>480</td></tr>"));
+    }
+
+    @Test
+    void testRender_EachMissingKeyRendersNothing() {
+        assertEquals("<ul></ul>", Template.compile("<ul>{{#each rows}}<li>{{ this }}</li>{{/each}}</ul>")
+                .render(Map.of()));
+    }
+
+    @Test
+    void testCompile_MismatchedBlocks() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> Template.compile("{{#each rows}}{{/if}}"));
+        assertTrue(e.getMessage().startsWith("{{/if}} without matching {{#if}}"));
+
+        e = assertThrows(IllegalArgumentException.class, () -> Template.compile("{{#each rows}}"));
+        assertTrue(e.getMessage().startsWith("Unclosed {{#each}}"));
+    }
+
+    private static final Map<String, String> SOURCES = Map.of(
+            "head", "<title>{{ title }}</title>",
+            "base", "<html>{{> head}}{{#block body}}Empty{{/block}}{{#block footer}}Footer{{/block}}</html>",
+            "page", "{{#extends base}}{{#block body}}<main>{{#block content}}Page{{/block}}</main>{{/block}}",
+            "loop", "A{{> loop}}",
+            "url", "{{ url }}",
+            "link", "<a href=\"{{#block base}}/app/{{/block}}{{ url }}\">Go</a>");
+
+    private static String resolve(String name) {
+        var source = SOURCES.get(name);
+        if (source == null) {
+            throw new IllegalArgumentException("File not found: " + name);
+        }
+        return source;
+    }
+
+    @Test
+    void testCompile_InlinesPartials() {
+        Template template = Template.compile("<p>{{> head}}</p>", TemplateTest::resolve);
+
+        assertEquals("<p><title>Home</title></p>", template.render(Map.of("title", "Home")));
+        assertEquals(Set.of("head"), template.dependencies());
+        // Literals are merged across the partial boundary
+        assertEquals(3, template.nodes().size());
+    }
+
+    @Test
+    void testCompile_ExtendsLayouts() {
+        Template template = Template.compile("{{#extends page}}ignored{{#block content}}Hi {{ title }}{{/block}}",
+                TemplateTest::resolve);
+
+        assertEquals("<html><title>Home</title><main>Hi Home</main>Footer</html>",
+                template.render(Map.of("title", "Home")));
+        assertEquals(Set.of("page", "base", "head"), template.dependencies());
+    }
+
+    @Test
+    void testCompile_InvalidReferences() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> Template.compile("{{> loop}}", TemplateTest::resolve));
+        assertTrue(e.getMessage().startsWith("Circular reference to loop"));
+
+        e = assertThrows(IllegalArgumentException.class,
+                () -> Template.compile("\n{{> missing}}", TemplateTest::resolve));
+        assertTrue(e.getMessage().contains("File not found: missing at line 2, column 1"));
+
+        assertThrows(IllegalArgumentException.class, () -> Template.compile("{{> head}}"));
+        assertThrows(IllegalArgumentException.class,
+                () -> Template.compile("{{#block a}}{{/block}}{{#block a}}{{/block}}", TemplateTest::resolve));
+    }
+
+    @Test
+    void testRender_EscapesByContext() {
+        Template template = Template.compile(
+                "<p title=\"{{ t }}\" data-x={{ t }}>{{ t }}</p><a href=\"{{ u }}\">{{ u }}</a><img src={{ js }}>");
+
+        String html = template.render(Map.of("t", "\"Tom\" & <Jerry>", "u", "/q?a=1&b=2", "js", "javascript:alert(1)"));
+
+        assertEquals("<p title=\"&quot;Tom&quot; &amp; &lt;Jerry&gt;\" data-x=&quot;Tom&quot;&#32;&amp;&#32;&lt;Jerry&gt;>"
+                + "&quot;Tom&quot; &amp; &lt;Jerry&gt;</p><a href=\"/q?a=1&amp;b=2\">/q?a=1&amp;b=2</a>"
+                + "<img src=about:invalid#blocked>", html);
+    }
+
+    @Test
+    void testRender_EscapesPartialsForIncludingContext() {
+        Template template = Template.compile("<a href=\"{{> url}}\">{{> url}}</a>", TemplateTest::resolve);
+
+        assertEquals("<a href=\"about:invalid#blocked\">javascript:alert(1)</a>",
+                template.render(Map.of("url", "javascript:alert(1)")));
+    }
+
+    @Test
+    void testRender_EscapesAfterBlocksForEmittedContent() {
+        Map<String, String> values = Map.of("url", "javascript:alert(1)");
+
+        assertEquals("<a href=\"/app/javascript:alert(1)\">Go</a>",
+                Template.compile("{{> link}}", TemplateTest::resolve).render(values));
+        // Without the default prefix the value starts the URL
+        assertEquals("<a href=\"about:invalid#blocked\">Go</a>",
+                Template.compile("{{#extends link}}{{#block base}}{{/block}}", TemplateTest::resolve).render(values));
+    }
+
+    @Test
+    void testRender_RawValues() {
+        Template template = Template.compile("<div>{{{ body }}}</div>{{{ missing }}}");
+
+        assertEquals("<div><b>bold</b></div>{{{ missing }}}", template.render(Map.of("body", "<b>bold</b>")));
+    }
+
+    @Test
+    void testCompile_InlinesMessages() {
+        Map<String, String> messages = Map.of("title", "Grüße & Küsse", "lang", "de");
+        Template template = Template.compile("<html lang=\"{{#msg lang}}\"><h1>{{#msg title}}</h1>{{ name }}</html>",
+                TemplateTest::resolve, messages::get);
+
+        assertEquals("<html lang=\"de\"><h1>Grüße &amp; Küsse</h1>Max</html>", template.render(Map.of("name", "Max")));
+        assertInstanceOf(TemplateNode.Literal.class, template.nodes().get(0));
+        assertEquals(3, template.nodes().size());
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> Template.compile("\n{{#msg missing}}", TemplateTest::resolve, messages::get));
+        assertTrue(e.getMessage().startsWith("Unknown message missing at line 2, column 1"));
+        assertThrows(IllegalArgumentException.class, () -> Template.compile("{{#msg title}}"));
+    }
+}
@@ -0,0 +1,92 @@
+package com.reftch.http.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+class BootstrapTest {
+
+    @Test
+    void testRun_RunsDependenciesFirst() {
+        var configLoaded = new AtomicBoolean();
+        var orderKept = new AtomicBoolean();
+
+        Bootstrap bootstrap = new Bootstrap()
+                .task("config", () -> configLoaded.set(true))
+                .task("templates", () -> orderKept.set(configLoaded.get()), "config");
+        bootstrap.run();
+
+        assertTrue(orderKept.get());
+        assertEquals(List.of("config", "templates"),
+                bootstrap.timeline().stream().map(Bootstrap.Phase::name).toList());
+    }
+
+    @Test
+    void testRun_RunsIndependentTasksConcurrently() {
+        // Each task waits for the other, so they only finish if run in parallel
+        var both = new CountDownLatch(2);
+        Bootstrap.Task task = () -> {
+            both.countDown();
+            if (!both.await(5, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Not concurrent");
+            }
+        };
+
+        Bootstrap bootstrap = new Bootstrap().task("a", task).task("b", task);
+        bootstrap.run();
+
+        assertEquals(2, bootstrap.timeline().size());
+    }
+
+    @Test
+    void testRun_FailsOnTaskFailure() {
+        var skipped = new AtomicBoolean(true);
+        var cause = new IOException("Disk gone");
+
+        Bootstrap bootstrap = new Bootstrap()
+                .task("config", () -> {
+                    throw cause;
+                })
+                .task("templates", () -> skipped.set(false), "config");
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, bootstrap::run);
+        assertSame(cause, e.getCause());
+        assertTrue(skipped.get());
+    }
+
+    @Test
+    void testTimeline_RecordsPhases() {
+        Bootstrap bootstrap = new Bootstrap().task("config", () -> {
+        });
+        bootstrap.run();
+
+        Bootstrap.Phase phase = bootstrap.timeline().get(0);
+        assertEquals("config", phase.name());
+        assertTrue(phase.startMs() >= 0);
+        assertTrue(phase.endMs() >= phase.startMs());
+    }
+
+    @Test
+    void testTask_RejectsDuplicateName() {
+        Bootstrap bootstrap = new Bootstrap().task("config", () -> {
+        });
+
+        assertThrows(IllegalArgumentException.class, () -> bootstrap.task("config", () -> {
+        }));
+    }
+
+    @Test
+    void testTask_RejectsUnknownDependency() {
+        assertThrows(IllegalArgumentException.class, () -> new Bootstrap().task("templates", () -> {
+        }, "config"));
+    }
+}
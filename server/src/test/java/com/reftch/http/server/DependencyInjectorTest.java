@@ -1,14 +1,16 @@
 package com.reftch.http.server;
 
-import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mockConstruction;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -18,11 +20,17 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import com.reftch.annotation.Controller;
 import com.reftch.annotation.Inject;
+import com.reftch.annotation.Lazy;
+import com.reftch.annotation.PostConstruct;
+import com.reftch.annotation.PreDestroy;
 import com.reftch.annotation.Route;
 import com.reftch.annotation.Service;
+import com.reftch.annotation.Warmup;
+import com.reftch.config.ConfigurationService;
 import com.reftch.http.server.handler.RequestProcessor;
 import com.reftch.http.server.handler.RouteHandler;
 import com.reftch.utilities.ReflectionConfigParser;
+import com.reftch.utilities.ResourceService;
 
 @ExtendWith(MockitoExtension.class)
 class DependencyInjectorTest {
@@ -195,7 +203,8 @@ class DependencyInjectorTest {
                     when(mock.getReflectionEntries()).thenReturn(entries);
                 })) {
 
-            assertDoesNotThrow(() -> new DependencyInjector(requestProcessor));
+            var e = assertThrows(IllegalArgumentException.class, () -> new DependencyInjector(requestProcessor));
+            assertTrue(e.getMessage().contains("Unresolved dependency java.lang.String"));
         }
     }
 
@@ -337,4 +346,278 @@ class DependencyInjectorTest {
         }
     }
 
+    private static ReflectionEntry entry(Class<?> clazz) {
+        return new ReflectionEntry(clazz.getName(), true, true, true, true, true, null);
+    }
+
+    @Service
+    public static class ConstructorService {
+        final ServiceA serviceA;
+        final ConfigurationService config;
+
+        @Inject
+        public ConstructorService(ServiceA serviceA, ConfigurationService config) {
+            this.serviceA = serviceA;
+            this.config = config;
+        }
+    }
+
+    @Controller
+    public static class ConstructorController {
+        final ConstructorService service;
+        final ServerProperties properties;
+
+        public ConstructorController(ConstructorService service, ServerProperties properties) {
+            this.service = service;
+            this.properties = properties;
+        }
+
+        @Route(method = "GET", path = "/constructor")
+        public void test() {
+        }
+    }
+
+    @Test
+    void testConstructorInjection() {
+        // Listed before its dependencies, which are still created first
+        List<ReflectionEntry> entries = List.of(entry(ConstructorController.class), entry(ConstructorService.class),
+                entry(ServiceA.class));
+
+        List<RouteHandler> routeHandlers = new ArrayList<>();
+        when(requestProcessor.getRouteHandlers()).thenReturn(routeHandlers);
+
+        new DependencyInjector(requestProcessor, entries);
+
+        assertEquals(1, routeHandlers.size());
+        var controller = (ConstructorController) routeHandlers.get(0).getController();
+        assertEquals("ServiceA", controller.service.serviceA.getData());
+        assertSame(ConfigurationService.getInstance(), controller.service.config);
+        assertNotNull(controller.properties);
+    }
+
+    @Controller
+    public static class SingletonController {
+        @Inject
+        ConfigurationService config;
+
+        @Inject
+        ResourceService resourceService;
+
+        @Route(method = "GET", path = "/singletons")
+        public void test() {
+        }
+    }
+
+    @Test
+    void testSingletonsAreInjected() {
+        List<RouteHandler> routeHandlers = new ArrayList<>();
+        when(requestProcessor.getRouteHandlers()).thenReturn(routeHandlers);
+
+        new DependencyInjector(requestProcessor, List.of(entry(SingletonController.class)));
+
+        var controller = (SingletonController) routeHandlers.get(0).getController();
+        assertSame(ConfigurationService.getInstance(), controller.config);
+        assertSame(ResourceService.getInstance(), controller.resourceService);
+    }
+
+    @Controller
+    public static class UnregisteredDependencyController {
+        @Inject
+        TestService testService;
+    }
+
+    @Test
+    void testUnresolvedFieldFails() {
+        var entries = List.of(entry(UnregisteredDependencyController.class));
+
+        var e = assertThrows(IllegalArgumentException.class, () -> new DependencyInjector(requestProcessor, entries));
+        assertTrue(e.getMessage().contains(TestService.class.getName()));
+    }
+
+    @Service
+    public static class CycleStart {
+        public CycleStart(CycleEnd end) {
+        }
+    }
+
+    @Service
+    public static class CycleEnd {
+        public CycleEnd(CycleStart start) {
+        }
+    }
+
+    @Test
+    void testConstructorCycleFails() {
+        var entries = List.of(entry(CycleStart.class), entry(CycleEnd.class));
+
+        var e = assertThrows(IllegalArgumentException.class, () -> new DependencyInjector(requestProcessor, entries));
+        assertEquals("Circular constructor dependency: CycleStart -> CycleEnd -> CycleStart", e.getMessage());
+    }
+
+    @Service
+    public static class FieldCycleStart {
+        @Inject
+        FieldCycleEnd end;
+    }
+
+    @Service
+    public static class FieldCycleEnd {
+        @Inject
+        FieldCycleStart start;
+    }
+
+    @Controller
+    public static class FieldCycleController {
+        @Inject
+        FieldCycleStart start;
+
+        @Route(method = "GET", path = "/cycle")
+        public void test() {
+        }
+    }
+
+    @Test
+    void testFieldCycleIsResolved() {
+        List<RouteHandler> routeHandlers = new ArrayList<>();
+        when(requestProcessor.getRouteHandlers()).thenReturn(routeHandlers);
+
+        new DependencyInjector(requestProcessor,
+                List.of(entry(FieldCycleStart.class), entry(FieldCycleEnd.class), entry(FieldCycleController.class)));
+
+        var controller = (FieldCycleController) routeHandlers.get(0).getController();
+        assertSame(controller.start, controller.start.end.start);
+    }
+
+    @Service
+    public static class FailingService {
+        public FailingService() {
+            throw new IllegalStateException("broken");
+        }
+    }
+
+    @Test
+    void testFailingConstructorFailsStartup() {
+        var entries = List.of(entry(FailingService.class));
+
+        var e = assertThrows(IllegalStateException.class, () -> new DependencyInjector(requestProcessor, entries));
+        var cause = e.getCause();
+        while (cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        assertEquals("broken", cause.getMessage());
+    }
+
+    private static final List<String> events = new CopyOnWriteArrayList<>();
+
+    @Service
+    public static class HookedService {
+        @PostConstruct
+        void init() {
+            events.add("init service");
+        }
+
+        @Warmup
+        void warmup() {
+            events.add("warmup service");
+        }
+
+        @PreDestroy
+        void destroy() {
+            events.add("destroy service");
+        }
+    }
+
+    @Lazy
+    @Service
+    public static class LazyService {
+        @Inject
+        HookedService hookedService;
+
+        public LazyService() {
+            events.add("create lazy");
+        }
+
+        @PostConstruct
+        void init() {
+            events.add("init lazy");
+        }
+
+        @PreDestroy
+        void destroy() {
+            events.add("destroy lazy");
+        }
+    }
+
+    @Controller
+    public static class LazyController {
+        @Inject
+        Provider<LazyService> lazyService;
+
+        @Route(method = "GET", path = "/lazy")
+        public void test() {
+        }
+    }
+
+    @Test
+    void testLazyServiceCreatedOnFirstUse() {
+        events.clear();
+        List<RouteHandler> routeHandlers = new ArrayList<>();
+        when(requestProcessor.getRouteHandlers()).thenReturn(routeHandlers);
+
+        new DependencyInjector(requestProcessor,
+                List.of(entry(LazyController.class), entry(LazyService.class), entry(HookedService.class)));
+        assertEquals(List.of("init service"), events);
+
+        var controller = (LazyController) routeHandlers.get(0).getController();
+        var lazyService = controller.lazyService.get();
+        assertSame(lazyService, controller.lazyService.get());
+        assertNotNull(lazyService.hookedService);
+        assertEquals(List.of("init service", "create lazy", "init lazy"), events);
+    }
+
+    @Test
+    void testLifecycleHooks() {
+        events.clear();
+        List<RouteHandler> routeHandlers = new ArrayList<>();
+        when(requestProcessor.getRouteHandlers()).thenReturn(routeHandlers);
+
+        var injector = new DependencyInjector(requestProcessor,
+                List.of(entry(LazyController.class), entry(LazyService.class), entry(HookedService.class)));
+        ((LazyController) routeHandlers.get(0).getController()).lazyService.get();
+        injector.warmup();
+        injector.close();
+
+        // Destroyed in reverse order of creation
+        assertEquals(List.of("init service", "create lazy", "init lazy", "warmup service", "destroy lazy",
+                "destroy service"), events);
+    }
+
+    @Controller
+    public static class DirectLazyController {
+        @Inject
+        LazyService lazyService;
+    }
+
+    @Test
+    void testLazyServiceWithoutProviderFails() {
+        var entries = List.of(entry(LazyService.class), entry(HookedService.class),
+                entry(DirectLazyController.class));
+
+        var e = assertThrows(IllegalArgumentException.class, () -> new DependencyInjector(requestProcessor, entries));
+        assertTrue(e.getMessage().contains("as Provider<LazyService>"));
+    }
+
+    @Service
+    public static class InvalidHookService {
+        @PostConstruct
+        void init(String value) {
+        }
+    }
+
+    @Test
+    void testHookWithParametersFails() {
+        var entries = List.of(entry(InvalidHookService.class));
+
+        assertThrows(IllegalArgumentException.class, () -> new DependencyInjector(requestProcessor, entries));
+    }
 }
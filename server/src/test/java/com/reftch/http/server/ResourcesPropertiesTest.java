@@ -0,0 +1,43 @@
+package com.reftch.http.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+
+import com.reftch.config.ConfigSnapshot;
+
+class ResourcesPropertiesTest {
+
+    private static ResourcesProperties bind(Map<String, String> values) {
+        return new ConfigSnapshot(values, 1).bind(ResourcesProperties.class);
+    }
+
+    @Test
+    void testBind() {
+        var properties = bind(Map.of("resources.cacheSize", "1024", "resources.overlay", "src/main/resources"));
+
+        assertEquals(1024, properties.cacheSize());
+        assertEquals(Optional.of(Path.of("src/main/resources")), properties.overlayDirectory());
+    }
+
+    @Test
+    void testBind_Defaults() {
+        var properties = bind(Map.of("resources.overlay", ""));
+
+        assertEquals(33554432, properties.cacheSize());
+        assertTrue(properties.overlayDirectory().isEmpty());
+    }
+
+    @Test
+    void testBind_RejectsInvalidCacheSize() {
+        // A typo must not silently disable the cache
+        assertThrows(IllegalArgumentException.class, () -> bind(Map.of("resources.cacheSize", "32MB")));
+        assertThrows(IllegalArgumentException.class, () -> bind(Map.of("resources.cacheSize", "-1")));
+    }
+}
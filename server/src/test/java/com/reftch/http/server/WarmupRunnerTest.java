@@ -0,0 +1,102 @@
+package com.reftch.http.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.reftch.annotation.Controller;
+import com.reftch.annotation.Route;
+import com.reftch.annotation.Warmup;
+import com.reftch.http.server.handler.RequestProcessor;
+import com.reftch.http.server.handler.StaticResourceHandler;
+
+class WarmupRunnerTest {
+
+    private static final AtomicInteger requests = new AtomicInteger();
+    private static final AtomicInteger warmups = new AtomicInteger();
+
+    @Controller
+    public static class WarmController {
+        @Route(method = "GET", path = "/warm")
+        public String warm() {
+            requests.incrementAndGet();
+            return "warm";
+        }
+
+        @Warmup
+        void warmup() {
+            warmups.incrementAndGet();
+        }
+    }
+
+    @Controller
+    public static class FailingWarmupController {
+        @Warmup
+        void warmup() {
+            warmups.incrementAndGet();
+            throw new IllegalStateException("broken");
+        }
+    }
+
+    private RequestProcessor requestProcessor;
+
+    @BeforeEach
+    void setUp() {
+        requests.set(0);
+        warmups.set(0);
+        requestProcessor = new RequestProcessor(new StaticResourceHandler(List.of()));
+    }
+
+    private WarmupRunner runner(Class<?>... components) {
+        var entries = new ArrayList<ReflectionEntry>();
+        for (var component : components) {
+            entries.add(new ReflectionEntry(component.getName(), true, true, true, true, true, null));
+        }
+        return new WarmupRunner(requestProcessor, new DependencyInjector(requestProcessor, entries));
+    }
+
+    @Test
+    void testRun_SendsRequestsAndCallsWarmupMethods() {
+        int sent = runner(WarmController.class).run(new WarmupProperties(3, List.of("/warm", "/warm?q=1")));
+
+        assertEquals(6, sent);
+        assertEquals(6, requests.get());
+        assertEquals(3, warmups.get());
+    }
+
+    @Test
+    void testRun_SkipsFailingPath() {
+        int sent = runner(WarmController.class).run(new WarmupProperties(3, List.of("/missing", "/warm")));
+
+        // The 404 is requested once only
+        assertEquals(4, sent);
+        assertEquals(3, requests.get());
+    }
+
+    @Test
+    void testRun_SkipsFailingWarmupMethods() {
+        runner(FailingWarmupController.class).run(new WarmupProperties(3, List.of()));
+
+        assertEquals(1, warmups.get());
+    }
+
+    @Test
+    void testRun_DisabledWithoutIterations() {
+        int sent = runner(WarmController.class).run(new WarmupProperties(0, List.of("/warm")));
+
+        assertEquals(0, sent);
+        assertEquals(0, warmups.get());
+    }
+
+    @Test
+    void testProperties_RejectInvalidPaths() {
+        assertThrows(IllegalArgumentException.class, () -> new WarmupProperties(1, List.of("warm")));
+        assertThrows(IllegalArgumentException.class, () -> new WarmupProperties(-1, List.of()));
+    }
+}
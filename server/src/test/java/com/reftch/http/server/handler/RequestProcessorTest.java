@@ -1,15 +1,18 @@
 package com.reftch.http.server.handler;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.lang.reflect.Field;
+import java.io.OutputStream;
 import java.net.URI;
 import java.util.Map;
 
@@ -40,12 +43,7 @@ class RequestProcessorTest {
 
     @BeforeEach
     void setUp() throws Exception {
-        requestProcessor = new RequestProcessor();
-
-        // Inject mocked StaticResourceHandler
-        Field staticHandlerField = RequestProcessor.class.getDeclaredField("staticHandler");
-        staticHandlerField.setAccessible(true);
-        staticHandlerField.set(requestProcessor, staticHandler);
+        requestProcessor = new RequestProcessor(staticHandler);
 
         responseBody = new ByteArrayOutputStream();
     }
@@ -94,6 +92,17 @@ class RequestProcessorTest {
         public String error() {
             throw new RuntimeException("Oops");
         }
+
+        public StreamingBody stream() {
+            return out -> out.write("Streamed".getBytes());
+        }
+
+        public StreamingBody failingStream() {
+            return out -> {
+                out.write("Part".getBytes());
+                throw new IllegalStateException("Render failed");
+            };
+        }
     }
 
     @Test
@@ -151,4 +160,42 @@ class RequestProcessorTest {
         // check for 500 and "Internal Server Error"
         // assertTrue(responseBody.toString().contains("Oops"));
     }
+
+    @Test
+    void testStreamingBody() throws Exception {
+        TestController controller = new TestController();
+        RouteHandler handler = new RouteHandler(controller, TestController.class.getMethod("stream"), HttpMethod.GET,
+                "/stream");
+        requestProcessor.getRouteHandlers().add(handler);
+
+        when(exchange.getRequestMethod()).thenReturn("GET");
+        when(exchange.getRequestURI()).thenReturn(URI.create("/stream"));
+        when(exchange.getResponseBody()).thenReturn(responseBody);
+
+        requestProcessor.handleRequest(exchange);
+
+        verify(exchange).sendResponseHeaders(200, 0);
+        assertEquals("Streamed", responseBody.toString());
+    }
+
+    @Test
+    void testStreamingBodyFailureAbortsResponse() throws Exception {
+        TestController controller = new TestController();
+        RouteHandler handler = new RouteHandler(controller, TestController.class.getMethod("failingStream"),
+                HttpMethod.GET, "/failing");
+        requestProcessor.getRouteHandlers().add(handler);
+
+        OutputStream body = mock(OutputStream.class);
+        when(exchange.getRequestMethod()).thenReturn("GET");
+        when(exchange.getRequestURI()).thenReturn(URI.create("/failing"));
+        when(exchange.getResponseBody()).thenReturn(body);
+
+        // Thrown to the server, which drops the connection
+        assertThrows(IOException.class, () -> requestProcessor.handleRequest(exchange));
+
+        verify(exchange).sendResponseHeaders(200, 0);
+        verify(exchange, never()).sendResponseHeaders(eq(500), anyLong());
+        // Closing would send the terminating chunk
+        verify(body, never()).close();
+    }
 }
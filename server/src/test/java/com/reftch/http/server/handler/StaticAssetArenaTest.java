@@ -0,0 +1,104 @@
+package com.reftch.http.server.handler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.reftch.utilities.ResourceService;
+
+class StaticAssetArenaTest {
+
+    private StaticAssetArena arena;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        arena = StaticAssetArena.load(ResourceService.getInstance());
+    }
+
+    @AfterEach
+    void tearDown() {
+        arena.close();
+    }
+
+    @Test
+    void testLoad_PacksAllStaticAssets() {
+        assertEquals(2, arena.assetCount());
+        assertTrue(arena.contains("index.html"));
+        assertTrue(arena.contains("test.txt"));
+        assertFalse(arena.contains("non-existent.txt"));
+    }
+
+    @Test
+    void testWriteTo() throws IOException {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+
+        arena.writeTo("test.txt", os);
+
+        assertEquals(arena.size("test.txt"), os.size());
+        assertTrue(os.toString(StandardCharsets.UTF_8).contains("This is a static test file."));
+    }
+
+    @Test
+    void testWriteTo_NotFound() {
+        assertEquals(-1, arena.size("non-existent.txt"));
+        assertThrows(IOException.class, () -> arena.writeTo("non-existent.txt", new ByteArrayOutputStream()));
+    }
+
+    @Test
+    void testLoad_FailsIfAssetChangesSize(@TempDir Path directory) throws IOException {
+        Path file = Files.writeString(directory.resolve("app.js"), "abc");
+
+        for (String content : List.of("ab", "abcd")) {
+            ClassLoader classLoader = serving(file, content.getBytes(StandardCharsets.UTF_8));
+            IOException e = assertThrows(IOException.class,
+                    () -> StaticAssetArena.load(List.of("static/app.js"), classLoader).close());
+            assertTrue(e.getMessage().contains("static/app.js"));
+        }
+    }
+
+    @Test
+    void testLoad_FailsIfAssetDisappears(@TempDir Path directory) throws IOException {
+        Path file = Files.writeString(directory.resolve("app.js"), "abc");
+
+        IOException e = assertThrows(IOException.class,
+                () -> StaticAssetArena.load(List.of("static/app.js"), serving(file, null)).close());
+        assertTrue(e.getMessage().contains("static/app.js"));
+    }
+
+    // Measures the size of the file but serves the content, or nothing if null
+    private static ClassLoader serving(Path file, byte[] content) {
+        return new ClassLoader(null) {
+            @Override
+            public URL getResource(String name) {
+                try {
+                    return file.toUri().toURL();
+                } catch (MalformedURLException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public InputStream getResourceAsStream(String name) {
+                return content == null ? null : new ByteArrayInputStream(content);
+            }
+        };
+    }
+}
@@ -0,0 +1,86 @@
+package com.reftch.http.server.handler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class StaticAssetManifestTest {
+
+    static StaticAssetManifest manifestOf(String... paths) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(StaticAssetManifest.MAGIC);
+            out.writeShort(StaticAssetManifest.VERSION);
+            out.writeInt(paths.length);
+            for (String path : paths) {
+                out.writeUTF(path);
+                out.writeLong(42);
+                out.writeUTF("text/plain");
+                out.write(new byte[32]);
+                out.writeByte(path.endsWith(".js") ? 1 : 0);
+                if (path.endsWith(".js")) {
+                    out.writeUTF("gzip");
+                }
+            }
+        }
+        return StaticAssetManifest.read(new ByteArrayInputStream(bytes.toByteArray()));
+    }
+
+    @Test
+    void testRead() throws IOException {
+        StaticAssetManifest manifest = manifestOf("test.txt", "js/app.js");
+
+        assertEquals(2, manifest.size());
+        StaticAssetManifest.Entry entry = manifest.get("js/app.js");
+        assertNotNull(entry);
+        assertEquals(42, entry.size());
+        assertEquals("text/plain", entry.contentType());
+        assertEquals(List.of("gzip"), entry.encodings());
+        assertEquals("\"00000000000000000000000000000000\"", entry.etag());
+        assertEquals("\"00000000000000000000000000000000-gzip\"", entry.etag("gzip"));
+        assertNull(manifest.get("missing.txt"));
+    }
+
+    @Test
+    void testResources() throws IOException {
+        StaticAssetManifest manifest = manifestOf("test.txt", "js/app.js");
+
+        assertEquals(List.of("static/js/app.js", "static/js/app.js.gz", "static/test.txt"), manifest.resources());
+    }
+
+    @Test
+    void testPreferredEncoding() throws IOException {
+        StaticAssetManifest.Entry entry = manifestOf("js/app.js").get("js/app.js");
+
+        assertEquals("gzip", entry.preferredEncoding("gzip, deflate"));
+        assertNull(entry.preferredEncoding("br"));
+        assertNull(entry.preferredEncoding(null));
+    }
+
+    @Test
+    void testPreferredEncoding_Qualities() throws IOException {
+        StaticAssetManifest.Entry entry = manifestOf("js/app.js").get("js/app.js");
+
+        assertEquals("gzip", entry.preferredEncoding("br, GZIP;q=0.5"));
+        assertEquals("gzip", entry.preferredEncoding("*"));
+        assertNull(entry.preferredEncoding("gzip;q=0, deflate"));
+        assertNull(entry.preferredEncoding("*;q=0.8, gzip;q=0"));
+        assertNull(entry.preferredEncoding("x-gzip"));
+        assertNull(entry.preferredEncoding("gzip;q=high"));
+    }
+
+    @Test
+    void testRead_InvalidMagic() {
+        assertThrows(IOException.class,
+                () -> StaticAssetManifest.read(new ByteArrayInputStream(new byte[] { 1, 2, 3, 4, 0, 1 })));
+    }
+}
@@ -0,0 +1,38 @@
+package com.reftch.http.server.handler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.reftch.config.ConfigSnapshot;
+
+class StaticPropertiesTest {
+
+    private static StaticProperties bind(Map<String, String> values) {
+        return new ConfigSnapshot(values, 1).bind(StaticProperties.class);
+    }
+
+    @Test
+    void testBind() {
+        var properties = bind(Map.of("static.storage", "OffHeap", "static.mounts.media", "/srv/media"));
+
+        assertEquals(StaticProperties.Storage.OFFHEAP, properties.storage());
+        assertEquals(Map.of("media", "/srv/media"), properties.mounts());
+    }
+
+    @Test
+    void testBind_Defaults() {
+        var properties = bind(Map.of("static.storage", ""));
+
+        assertEquals(StaticProperties.Storage.CLASSPATH, properties.storage());
+        assertEquals(Map.of(), properties.mounts());
+    }
+
+    @Test
+    void testBind_RejectsUnknownStorage() {
+        assertThrows(IllegalArgumentException.class, () -> bind(Map.of("static.storage", "off-heap")));
+    }
+}
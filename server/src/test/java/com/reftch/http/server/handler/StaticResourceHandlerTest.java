@@ -1,17 +1,28 @@
 package com.reftch.http.server.handler;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -31,6 +42,9 @@ class StaticResourceHandlerTest {
 
     private ByteArrayOutputStream responseBody;
 
+    @TempDir
+    Path tempDir;
+
     @BeforeEach
     void setUp() {
         handler = new StaticResourceHandler();
@@ -80,4 +94,117 @@ class StaticResourceHandlerTest {
 
         verify(headers).set("Content-Type", "text/html");
     }
+
+    @Test
+    void testHandleRequest_Mount() throws IOException {
+        Path mountDir = Files.createDirectories(tempDir.resolve("media"));
+        Files.writeString(mountDir.resolve("clip.txt"), "Served from the filesystem.");
+        handler = new StaticResourceHandler(List.of(new StaticMount("media", mountDir)));
+
+        when(exchange.getResponseHeaders()).thenReturn(headers);
+        when(exchange.getResponseBody()).thenReturn(responseBody);
+
+        handler.handleRequest(exchange, "/static/media/clip.txt");
+
+        verify(headers).set("Content-Type", "text/plain");
+        verify(exchange).sendResponseHeaders(200, 27L);
+        assertTrue(responseBody.toString().contains("Served from the filesystem."));
+    }
+
+    @Test
+    void testHandleRequest_MountFileTruncatedWhileSending() throws IOException {
+        Path mountDir = Files.createDirectories(tempDir.resolve("media"));
+        Path clip = Files.writeString(mountDir.resolve("clip.txt"), "x".repeat(100_000));
+        handler = new StaticResourceHandler(List.of(new StaticMount("media", mountDir)));
+
+        when(exchange.getResponseHeaders()).thenReturn(headers);
+        when(exchange.getResponseBody()).thenReturn(responseBody);
+        // The file is rewritten in place after its length was sent
+        doAnswer(_ -> {
+            try (FileChannel channel = FileChannel.open(clip, StandardOpenOption.WRITE)) {
+                channel.truncate(10);
+            }
+            return null;
+        }).when(exchange).sendResponseHeaders(200, 100_000L);
+
+        IOException e = assertThrows(IOException.class,
+                () -> handler.handleRequest(exchange, "/static/media/clip.txt"));
+
+        assertTrue(e.getMessage().contains("truncated"));
+        assertEquals(10, responseBody.size());
+    }
+
+    @Test
+    void testHandleRequest_MountPathTraversal() throws IOException {
+        Path mountDir = Files.createDirectories(tempDir.resolve("media"));
+        Files.writeString(tempDir.resolve("secret.txt"), "secret");
+        handler = new StaticResourceHandler(List.of(new StaticMount("media", mountDir)));
+
+        when(exchange.getResponseBody()).thenReturn(responseBody);
+
+        handler.handleRequest(exchange, "/static/media/../secret.txt");
+
+        verify(exchange).sendResponseHeaders(eq(404), anyLong());
+        assertTrue(responseBody.toString().contains("404 - Resource Not Found"));
+    }
+
+    private static final String HASH = "00000000000000000000000000000000";
+
+    @Test
+    void testHandleRequest_NotModifiedPerEncoding() throws IOException {
+        handler = new StaticResourceHandler(List.of(), StaticAssetManifestTest.manifestOf("js/app.js"), null);
+        Headers requestHeaders = new Headers();
+        requestHeaders.set("Accept-Encoding", "gzip");
+        requestHeaders.set("If-None-Match", "\"other\", W/\"" + HASH + "-gzip\"");
+
+        when(exchange.getRequestHeaders()).thenReturn(requestHeaders);
+        when(exchange.getResponseHeaders()).thenReturn(headers);
+
+        handler.handleRequest(exchange, "/static/js/app.js");
+
+        verify(headers).set("Vary", "Accept-Encoding");
+        verify(headers).set("ETag", "\"" + HASH + "-gzip\"");
+        verify(exchange).sendResponseHeaders(304, -1);
+    }
+
+    @Test
+    void testHandleRequest_GzipTagDoesNotMatchIdentity() throws IOException {
+        handler = new StaticResourceHandler(List.of(), StaticAssetManifestTest.manifestOf("js/app.js"), null);
+        Headers requestHeaders = new Headers();
+        requestHeaders.set("If-None-Match", "\"" + HASH + "-gzip\"");
+
+        when(exchange.getRequestHeaders()).thenReturn(requestHeaders);
+        when(exchange.getResponseHeaders()).thenReturn(headers);
+        when(exchange.getResponseBody()).thenReturn(responseBody);
+
+        handler.handleRequest(exchange, "/static/js/app.js");
+
+        verify(headers).set("ETag", "\"" + HASH + "\"");
+        verify(exchange, never()).sendResponseHeaders(eq(304), anyLong());
+    }
+
+    @Test
+    void testMatchesEntityTag() {
+        String etag = "\"abc\"";
+
+        assertTrue(StaticResourceHandler.matchesEntityTag("\"abc\"", etag));
+        assertTrue(StaticResourceHandler.matchesEntityTag("W/\"abc\"", etag));
+        assertTrue(StaticResourceHandler.matchesEntityTag("\"a,b\", \"abc\"", etag));
+        assertTrue(StaticResourceHandler.matchesEntityTag("*", etag));
+        assertFalse(StaticResourceHandler.matchesEntityTag(null, etag));
+        assertFalse(StaticResourceHandler.matchesEntityTag("\"abcd\", \"ab\"", etag));
+        assertFalse(StaticResourceHandler.matchesEntityTag("W/", etag));
+    }
+
+    @Test
+    void testHandleRequest_ManifestMiss() throws IOException {
+        // test.txt exists on the classpath but is not part of the manifest
+        handler = new StaticResourceHandler(List.of(), StaticAssetManifestTest.manifestOf("index.html"), null);
+
+        when(exchange.getResponseBody()).thenReturn(responseBody);
+
+        handler.handleRequest(exchange, "/static/test.txt");
+
+        verify(exchange).sendResponseHeaders(eq(404), anyLong());
+    }
 }
@@ -30,6 +30,19 @@ class ClassFinderTest {
         assertEquals(AnnotatedClass.class, found, "Should find the annotated class in the stack");
     }
 
+    @TestAnnotation
+    static class OuterAnnotatedClass {
+        static Class<?> callThroughAnnotatedClass() {
+            return AnnotatedClass.callFindClassByAnnotation();
+        }
+    }
+
+    @Test
+    void testFindClassByAnnotation_StopsAtInnermostMatch() {
+        Class<?> found = OuterAnnotatedClass.callThroughAnnotatedClass();
+        assertEquals(AnnotatedClass.class, found, "Should stop at the annotated class closest to the call");
+    }
+
     @Test
     void testFindClassByAnnotation_NotFound() {
         // This calls it from NonAnnotatedClass -> ClassFinderTest -> ...
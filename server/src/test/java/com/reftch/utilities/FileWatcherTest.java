@@ -0,0 +1,117 @@
+package com.reftch.utilities;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FileWatcherTest {
+
+    // Generous, since some platforms poll for changes
+    private static final long TIMEOUT_SECONDS = 20;
+
+    @Test
+    void testWatch_ReportsBurstOnce(@TempDir Path directory) throws Exception {
+        BlockingQueue<Set<Path>> batches = new LinkedBlockingQueue<>();
+        try (var _ = new FileWatcher(directory, true, Duration.ofMillis(500), batches::add).start()) {
+            Files.writeString(directory.resolve("a.html"), "a");
+            Files.writeString(directory.resolve("b.html"), "b");
+
+            Set<Path> changed = batches.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            assertNotNull(changed);
+            assertTrue(changed.contains(Path.of("a.html")));
+            assertTrue(changed.contains(Path.of("b.html")));
+            assertNull(batches.poll(1, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void testWatch_ReportsFilesInNewDirectories(@TempDir Path directory) throws Exception {
+        BlockingQueue<Set<Path>> batches = new LinkedBlockingQueue<>();
+        try (var _ = new FileWatcher(directory, true, Duration.ofMillis(100), batches::add).start()) {
+            Files.createDirectories(directory.resolve("views"));
+            Files.writeString(directory.resolve("views/index.html"), "index");
+
+            Path file = Path.of("views", "index.html");
+            Set<Path> changed = batches.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            while (changed != null && !changed.contains(file)) {
+                changed = batches.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            }
+            assertNotNull(changed);
+        }
+    }
+
+    @Test
+    void testWatch_ReportsContinuousChanges(@TempDir Path directory) throws Exception {
+        BlockingQueue<Set<Path>> batches = new LinkedBlockingQueue<>();
+        try (var _ = new FileWatcher(directory, false, Duration.ofMillis(200), batches::add).start()) {
+            // Never quiet for a whole interval, the batch is due after ten of them
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+            int count = 0;
+            while (batches.isEmpty() && System.nanoTime() < deadline) {
+                Files.writeString(directory.resolve("log.txt"), "line " + count++);
+                Thread.sleep(20);
+            }
+
+            Set<Path> changed = batches.poll();
+            assertNotNull(changed);
+            assertTrue(changed.contains(Path.of("log.txt")));
+        }
+    }
+
+    @Test
+    void testWatch_ReportsAllAfterOverflow(@TempDir Path directory) throws Exception {
+        BlockingQueue<Set<Path>> batches = new LinkedBlockingQueue<>();
+        CountDownLatch release = new CountDownLatch(1);
+        try (var _ = new FileWatcher(directory, false, Duration.ofMillis(100), changed -> {
+            batches.add(changed);
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }).start()) {
+            Files.writeString(directory.resolve("first.html"), "first");
+            assertNotNull(batches.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+            // More events than a watch key holds while the listener is busy
+            for (int i = 0; i < 1000; i++) {
+                Files.writeString(directory.resolve(i + ".html"), "file");
+            }
+            release.countDown();
+
+            Set<Path> changed = batches.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            assertNotNull(changed);
+            assertTrue(changed.contains(FileWatcher.ALL));
+        }
+    }
+
+    @Test
+    void testDirectory() throws IOException {
+        try (var watcher = new FileWatcher(Path.of("."), false, Duration.ZERO, _ -> {
+        })) {
+            assertEquals(Path.of(".").toAbsolutePath().normalize(), watcher.directory());
+        }
+    }
+
+    @Test
+    void testNotADirectory() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new FileWatcher(Path.of("non-existent-directory"), false, Duration.ZERO, _ -> {
+                }));
+    }
+}
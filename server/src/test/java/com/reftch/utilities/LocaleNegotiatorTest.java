@@ -0,0 +1,45 @@
+package com.reftch.utilities;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.jupiter.api.Test;
+
+class LocaleNegotiatorTest {
+
+    private final LocaleNegotiator negotiator = new LocaleNegotiator(
+            List.of(Locale.GERMAN, Locale.ENGLISH, Locale.forLanguageTag("fr-CH")), Locale.GERMAN);
+
+    @Test
+    void testNegotiate_MissingHeader() {
+        assertEquals(Locale.GERMAN, negotiator.negotiate(null));
+        assertEquals(Locale.GERMAN, negotiator.negotiate(" "));
+    }
+
+    @Test
+    void testNegotiate_ExactAndLanguageMatches() {
+        assertEquals(Locale.ENGLISH, negotiator.negotiate("en"));
+        assertEquals(Locale.ENGLISH, negotiator.negotiate("en-US,en;q=0.9"));
+        assertEquals(Locale.GERMAN, negotiator.negotiate("de-AT"));
+        assertEquals(Locale.forLanguageTag("fr-CH"), negotiator.negotiate("fr-FR"));
+        assertEquals(Locale.forLanguageTag("fr-CH"), negotiator.negotiate("FR-ch"));
+    }
+
+    @Test
+    void testNegotiate_Quality() {
+        assertEquals(Locale.ENGLISH, negotiator.negotiate("de;q=0.5, en;q=0.8"));
+        assertEquals(Locale.ENGLISH, negotiator.negotiate("it, en;q=0.1"));
+        assertEquals(Locale.GERMAN, negotiator.negotiate("en;q=0, it"));
+        assertEquals(Locale.GERMAN, negotiator.negotiate("it;q=0.9, *;q=0.5, en;q=0.1"));
+        assertEquals(Locale.ENGLISH, negotiator.negotiate("en;q=invalid-, en-GB"));
+    }
+
+    @Test
+    void testUnsupportedDefault() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new LocaleNegotiator(List.of(Locale.ENGLISH), Locale.GERMAN));
+    }
+}
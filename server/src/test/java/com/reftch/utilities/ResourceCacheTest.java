@@ -0,0 +1,114 @@
+package com.reftch.utilities;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class ResourceCacheTest {
+
+    private static Resource resource(String path, int size) {
+        return new Resource(path, new byte[size]);
+    }
+
+    @Test
+    void testGet_LoadsOnce() {
+        ResourceCache cache = new ResourceCache(100);
+        Resource a = cache.get("a", path -> resource(path, 10));
+
+        assertSame(a, cache.get("a", path -> resource(path, 10)));
+        assertEquals(new ResourceCache.Stats(1, 1, 0, 1, 10, 100), cache.stats());
+        assertEquals(0.5, cache.stats().hitRatio());
+    }
+
+    @Test
+    void testGet_EvictsLeastRecentlyUsedByWeight() {
+        ResourceCache cache = new ResourceCache(100);
+        Resource a = cache.get("a", path -> resource(path, 40));
+        cache.get("b", path -> resource(path, 40));
+        cache.get("a", path -> resource(path, 40));
+
+        cache.get("c", path -> resource(path, 30));
+
+        // b was used least recently
+        assertSame(a, cache.get("a", path -> resource(path, 40)));
+        assertEquals(2, cache.size());
+        assertEquals(70, cache.stats().weight());
+        assertEquals(1, cache.stats().evictions());
+    }
+
+    @Test
+    void testGet_DoesNotKeepOversizedResources() {
+        ResourceCache cache = new ResourceCache(100);
+        cache.get("small", path -> resource(path, 10));
+
+        Resource large = cache.get("large", path -> resource(path, 101));
+
+        assertNotSame(large, cache.get("large", path -> resource(path, 101)));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void testRemoveAndCapacity() {
+        ResourceCache cache = new ResourceCache(100);
+        cache.get("a", path -> resource(path, 40));
+        cache.get("b", path -> resource(path, 40));
+
+        assertTrue(cache.remove("a"));
+        assertFalse(cache.remove("a"));
+        assertEquals(40, cache.stats().weight());
+
+        cache.setCapacity(0);
+        assertEquals(0, cache.size());
+        assertThrows(IllegalArgumentException.class, () -> cache.setCapacity(-1));
+    }
+
+    @Test
+    void testGet_RemoveDuringLoadIsNotUndone() {
+        ResourceCache cache = new ResourceCache(100);
+
+        Resource stale = cache.get("a", path -> {
+            // The file changes while its old bytes are read
+            cache.remove(path);
+            return resource(path, 10);
+        });
+
+        assertNotSame(stale, cache.get("a", path -> resource(path, 10)));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void testGet_FailedLoadIsNotCached() {
+        ResourceCache cache = new ResourceCache(100);
+
+        assertThrows(IllegalStateException.class, () -> cache.get("a", path -> {
+            throw new IllegalStateException("unreadable");
+        }));
+
+        assertEquals(0, cache.size());
+        assertEquals(10, cache.get("a", path -> resource(path, 10)).size());
+    }
+
+    @Test
+    void testGetText_CountsKeptText() {
+        ResourceCache cache = new ResourceCache(100);
+        cache.get("a", path -> resource(path, 30));
+        cache.get("b", path -> resource(path, 30));
+
+        String text = cache.getText("a", path -> resource(path, 30));
+
+        assertSame(text, cache.getText("a", path -> resource(path, 30)));
+        assertEquals(90, cache.stats().weight());
+
+        // With its text a weighs 60, so b is evicted to fit c
+        cache.get("c", path -> resource(path, 30));
+        assertEquals(90, cache.stats().weight());
+        assertFalse(cache.remove("b"));
+        assertTrue(cache.remove("a"));
+        assertEquals(30, cache.stats().weight());
+    }
+}
@@ -1,10 +1,22 @@
 package com.reftch.utilities;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+
+import com.reftch.html.parser.Template;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -18,6 +30,11 @@ class ResourceServiceTest {
         ResourceService.clearCache();
     }
 
+    @AfterEach
+    void tearDown() {
+        resourceService.setOverlay(null);
+    }
+
     @Test
     void testGetInstance() {
         ResourceService instance1 = ResourceService.getInstance();
@@ -66,6 +83,14 @@ class ResourceServiceTest {
         assertTrue(content.contains("Details: Some details"));
     }
 
+    @Test
+    void testGetFileContent_WithTemplateAndNullValues() {
+        String content = resourceService.getFileContent("test-template.html", null);
+
+        assertTrue(content.contains("Hello {{ name }}!"));
+        assertFalse(content.contains("Details:"));
+    }
+
     @Test
     void testClearCache() {
         resourceService.getFileContent("test-resource.txt");
@@ -80,7 +105,177 @@ class ResourceServiceTest {
         resourceService.getFileContent("test-resource.txt");
         assertEquals(1, ResourceService.getCacheSize());
 
-        ResourceService.removeFromCache(ResourceService.class, "test-resource.txt");
+        ResourceService.removeFromCache("test-resource.txt");
+        assertEquals(0, ResourceService.getCacheSize());
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    void testRemoveFromCache_IgnoresClass() {
+        resourceService.getFileContent("test-resource.txt");
+
+        // Any class but ResourceService itself used to match nothing
+        ResourceService.removeFromCache(String.class, "test-resource.txt");
+
+        assertEquals(0, ResourceService.getCacheSize());
+    }
+
+    @Test
+    void testGetResource_BytesAndText() {
+        Resource resource = resourceService.getResource("unicode-resource.txt");
+
+        assertSame(resource, resourceService.getResource("unicode-resource.txt"));
+        assertSame(resourceService.getFileContent("unicode-resource.txt"), resource.text());
+        assertArrayEquals(resource.text().getBytes(StandardCharsets.UTF_8), resource.bytes());
+    }
+
+    @Test
+    void testGetResource_KeepsContentAsStored() {
+        Resource resource = resourceService.getResource("crlf-resource.txt");
+
+        assertEquals("first\r\nsecond", resource.text());
+        assertEquals(13, resource.size());
+        assertEquals("", resourceService.getFileContent("empty-file.txt"));
+    }
+
+    @Test
+    void testGetCacheStats() {
+        resourceService.getFileContent("test-resource.txt");
+        resourceService.getFileContent("test-resource.txt");
+        ResourceCache.Stats before = ResourceService.getCacheStats();
+
+        resourceService.getFileContent("test-resource.txt");
+        resourceService.getFileContent("unicode-resource.txt");
+        ResourceCache.Stats after = ResourceService.getCacheStats();
+
+        assertEquals(before.hits() + 1, after.hits());
+        assertEquals(before.misses() + 1, after.misses());
+        assertEquals(2, after.size());
+        assertEquals(resourceService.getResource("test-resource.txt").size()
+                + resourceService.getResource("unicode-resource.txt").size(), after.weight());
+    }
+
+    @Test
+    void testGetFileContent_WithLayoutAndPartial() {
+        String content = resourceService.getFileContent("views/page.html", Map.of("title", "Page", "year", "2024"));
+
+        assertEquals("<html><body><h1>Page</h1><footer>2024</footer>\n</body></html>\n", content);
+        assertEquals(Set.of("views/layout.html", "views/footer.html"),
+                resourceService.getTemplate("views/page.html").dependencies());
+    }
+
+    @Test
+    void testRemoveFromCache_RecompilesDependents() {
+        Template page = resourceService.getTemplate("views/page.html");
+        Template other = resourceService.getTemplate("test-template.html");
+
+        ResourceService.removeFromCache("views/footer.html");
+
+        assertNotSame(page, resourceService.getTemplate("views/page.html"));
+        assertSame(other, resourceService.getTemplate("test-template.html"));
+    }
+
+    @Test
+    void testListResources() throws IOException {
+        List<String> resources = resourceService.listResources("static");
+        assertEquals(List.of("static/index.html", "static/test.txt"), resources);
+
+        assertTrue(resourceService.listResources("non-existent-directory").isEmpty());
+    }
+
+    @Test
+    void testGetTemplate_LocaleVariants() throws IOException {
+        Template german = resourceService.getTemplate("views/greeting.html", Locale.GERMAN);
+        Template english = resourceService.getTemplate("views/greeting.html", Locale.ENGLISH);
+
+        assertEquals(List.of(Locale.GERMAN, Locale.ENGLISH), resourceService.getLocales());
+        assertEquals("<h1 title=\"Hallo &amp; willkommen\">Hallo &amp; willkommen, Max</h1>\n",
+                german.render(Map.of("name", "Max")));
+        assertEquals("<h1 title=\"Hello &amp; welcome\">Hello &amp; welcome, Max</h1>\n",
+                english.render(Map.of("name", "Max")));
+        assertSame(german, resourceService.getTemplate("views/greeting.html", Locale.GERMAN));
+        assertThrows(IllegalArgumentException.class, () -> resourceService.getTemplate("views/greeting.html"));
+    }
+
+    @Test
+    void testRemoveFromCache_MessageBundle() {
+        Template german = resourceService.getTemplate("views/greeting.html", Locale.GERMAN);
+        Template english = resourceService.getTemplate("views/greeting.html", Locale.ENGLISH);
+
+        ResourceService.removeFromCache("i18n/messages_de.properties");
+
+        assertNotSame(german, resourceService.getTemplate("views/greeting.html", Locale.GERMAN));
+        assertSame(english, resourceService.getTemplate("views/greeting.html", Locale.ENGLISH));
+    }
+
+    @Test
+    void testSetOverlay_ReadsOverlaidFilesFirst(@TempDir Path overlay) throws IOException {
+        Files.writeString(overlay.resolve("test-resource.txt"), "Overlaid");
+        Files.createDirectories(overlay.resolve("static"));
+        Files.writeString(overlay.resolve("static/extra.txt"), "Extra");
+        String packaged = resourceService.getFileContent("test-resource.txt");
+
+        resourceService.setOverlay(overlay);
+
+        assertEquals("Overlaid", resourceService.getFileContent("test-resource.txt"));
+        assertTrue(resourceService.getFileContent("empty-file.txt").isEmpty());
+        assertEquals(List.of("static/extra.txt", "static/index.html", "static/test.txt"),
+                resourceService.listResources("static"));
+
+        resourceService.setOverlay(null);
+        assertEquals(packaged, resourceService.getFileContent("test-resource.txt"));
+    }
+
+    @Test
+    void testGetOverlayFile_StaysInsideOverlay(@TempDir Path directory) throws IOException {
+        Path overlay = Files.createDirectory(directory.resolve("overlay"));
+        Files.writeString(overlay.resolve("inside.txt"), "Inside");
+        Files.writeString(directory.resolve("outside.txt"), "Outside");
+
+        resourceService.setOverlay(overlay);
+
+        assertTrue(resourceService.getOverlayFile("inside.txt").isPresent());
+        assertTrue(resourceService.getOverlayFile("../outside.txt").isEmpty());
+        assertTrue(resourceService.getOverlayFile("missing.txt").isEmpty());
+    }
+
+    @Test
+    void testSetOverlay_NotADirectory() {
+        assertThrows(IllegalArgumentException.class,
+                () -> resourceService.setOverlay(Path.of("non-existent-directory")));
+    }
+
+    @Test
+    void testReload_RecompilesChangedTemplatesOnly(@TempDir Path overlay) throws IOException {
+        Files.createDirectories(overlay.resolve("views"));
+        Files.writeString(overlay.resolve("views/footer.html"), "<footer>{{ year }}</footer>");
+        resourceService.setOverlay(overlay);
+        Template page = resourceService.getTemplate("views/page.html");
+        Template other = resourceService.getTemplate("test-template.html");
+        List<Set<String>> changes = new ArrayList<>();
+        resourceService.addChangeListener(changes::add);
+
+        Files.writeString(overlay.resolve("views/footer.html"), "<footer>(c) {{ year }}</footer>");
+
+        assertEquals(1, resourceService.reload(List.of("views/footer.html")));
+        assertNotSame(page, resourceService.getTemplate("views/page.html"));
+        assertEquals("<html><body><h1>Page</h1><footer>(c) 2024</footer></body></html>\n",
+                resourceService.getFileContent("views/page.html", Map.of("title", "Page", "year", "2024")));
+        assertSame(other, resourceService.getTemplate("test-template.html"));
+        assertEquals(List.of(Set.of("views/footer.html")), changes);
+    }
+
+    @Test
+    void testReloadAll_ClearsCacheAndNotifiesAllFiles() {
+        Template template = resourceService.getTemplate("test-template.html");
+        resourceService.getFileContent("test-resource.txt");
+        List<Set<String>> changes = new ArrayList<>();
+        resourceService.addChangeListener(changes::add);
+
+        resourceService.reloadAll();
+
         assertEquals(0, ResourceService.getCacheSize());
+        assertNotSame(template, resourceService.getTemplate("test-template.html"));
+        assertEquals(List.of(Set.of("")), changes);
     }
 }